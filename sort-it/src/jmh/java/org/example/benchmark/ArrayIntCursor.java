@@ -0,0 +1,40 @@
+package org.example.benchmark;
+
+import org.example.filemanager.IntCursor;
+
+/**
+ * Курсор по отсортированному int[] в памяти, чтобы замерять слияние Integer данных отдельно от чтения файлов
+ */
+public class ArrayIntCursor implements IntCursor {
+
+    private final int[] elements;
+    private int position;
+
+    public ArrayIntCursor(int[] elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    public boolean hasElement() {
+        return position < elements.length;
+    }
+
+    @Override
+    public int getElement() {
+        return elements[position];
+    }
+
+    @Override
+    public void next() {
+        position++;
+    }
+
+    @Override
+    public String getFile() {
+        return "array";
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Синтетические данные для бенчмарков. Генерация детерминирована (seed), чтобы замеры
+ * разных версий кода шли на одних и тех же данных
+ */
+public final class BenchmarkData {
+
+    public static final String DATA_TYPE_INT = "-i";
+    public static final String DATA_TYPE_STRING = "-s";
+    private static final long SEED = 42;
+    private static final int MAX_STRING_LENGTH = 32;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzабвгд"; //с кириллицей, чтобы UTF-8 был многобайтным
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return int[][] k отсортированных по возрастанию массивов, в сумме n чисел
+     */
+    public static int[][] sortedInts(int k, int n) {
+        var random = new Random(SEED);
+        var arrays = new int[k][];
+        for (int i = 0; i < k; i++) {
+            var array = new int[share(n, k, i)];
+            for (int j = 0; j < array.length; j++) {
+                array[j] = random.nextInt();
+            }
+            Arrays.sort(array);
+            arrays[i] = array;
+        }
+        return arrays;
+    }
+
+    /**
+     * @return List<List<String>> k отсортированных по длине списков строк без пробелов, в сумме n строк
+     */
+    public static List<List<String>> sortedStrings(int k, int n) {
+        var random = new Random(SEED);
+        var lists = new ArrayList<List<String>>();
+        for (int i = 0; i < k; i++) {
+            var list = new ArrayList<String>();
+            for (int j = share(n, k, i); j > 0; j--) {
+                list.add(randomString(random));
+            }
+            list.sort(Comparator.comparingInt(String::length));
+            lists.add(list);
+        }
+        return lists;
+    }
+
+    /**
+     * Пишет данные во временные файлы, по элементу на строку
+     * @param dataType - "-i" или "-s"
+     * @return List<Path> k отсортированных по возрастанию файлов, в сумме n элементов
+     */
+    public static List<Path> writeSortedFiles(Path directory, String dataType, int k, int n) throws IOException {
+        var files = new ArrayList<Path>();
+        if (DATA_TYPE_INT.equals(dataType)) {
+            for (int[] array : sortedInts(k, n)) {
+                files.add(writeLines(directory, Arrays.stream(array).mapToObj(String::valueOf).toArray(String[]::new)));
+            }
+        } else {
+            for (List<String> list : sortedStrings(k, n)) {
+                files.add(writeLines(directory, list.toArray(new String[0])));
+            }
+        }
+        return files;
+    }
+
+    public static Path createDirectory() throws IOException {
+        return Files.createTempDirectory("sort-it-bench");
+    }
+
+    public static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private static Path writeLines(Path directory, String[] lines) throws IOException {
+        var file = Files.createTempFile(directory, "input", ".txt");
+        Files.write(file, (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String randomString(Random random) {
+        var chars = new char[1 + random.nextInt(MAX_STRING_LENGTH)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return сколько из n элементов приходится на i-й из k файлов
+     */
+    private static int share(int n, int k, int i) {
+        return n / k + (i < n % k ? 1 : 0);
+    }
+}
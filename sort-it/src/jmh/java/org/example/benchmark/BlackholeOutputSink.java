@@ -0,0 +1,30 @@
+package org.example.benchmark;
+
+import org.example.filemanager.OutputSink;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Приёмник, отдающий элементы в Blackhole: слияние замеряется без записи на диск
+ */
+public class BlackholeOutputSink implements OutputSink {
+
+    private final Blackhole blackhole;
+
+    public BlackholeOutputSink(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(String element) {
+        blackhole.consume(element);
+    }
+
+    @Override
+    public void writeInt(int element) {
+        blackhole.consume(element);
+    }
+
+    @Override
+    public void close() {
+    }
+}
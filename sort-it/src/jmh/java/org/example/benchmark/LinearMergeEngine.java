@@ -0,0 +1,156 @@
+package org.example.benchmark;
+
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.DecimalCursor;
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.LongCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.StringOrder;
+import org.example.sortmanager.MergeEngine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Слияние перебором: на каждый элемент результата просматриваются головные элементы всех курсоров, O(k).
+ * Так сливала исходная реализация, в бенчмарке это точка отсчёта для HeapMergeEngine. В сборку не входит:
+ * даже при k = 2..4 перебор не быстрее кучи, а дальше отстаёт
+ */
+public class LinearMergeEngine implements MergeEngine {
+
+    @Override
+    public <T> void merge(List<? extends ElementCursor<T>> cursors, Comparator<? super T> order, OutputSink sink) {
+        var activeCursors = new ArrayList<ElementCursor<T>>();
+        for (ElementCursor<T> cursor : cursors) {
+            if (cursor.hasElement()) {
+                activeCursors.add(cursor);
+            }
+        }
+
+        while (!activeCursors.isEmpty() && !sink.isFull()) {
+            var firstCursor = activeCursors.get(0);
+            for (ElementCursor<T> cursor : activeCursors) { //рассматриваем только головные элементы
+                if (order.compare(cursor.getElement(), firstCursor.getElement()) < 0) {
+                    firstCursor = cursor;
+                }
+            }
+            sink.write(String.valueOf(firstCursor.getElement()));
+            firstCursor.next();
+
+            if (!firstCursor.hasElement()) { //если файл закончился - курсор убирается
+                activeCursors.remove(firstCursor);
+            }
+        }
+    }
+
+    @Override
+    public void mergeInt(List<? extends IntCursor> cursors, boolean descending, OutputSink sink) {
+        var activeCursors = new ArrayList<IntCursor>();
+        for (IntCursor cursor : cursors) {
+            if (cursor.hasElement()) {
+                activeCursors.add(cursor);
+            }
+        }
+
+        while (!activeCursors.isEmpty() && !sink.isFull()) {
+            var firstCursor = activeCursors.get(0);
+            for (IntCursor cursor : activeCursors) {
+                if (descending
+                        ? cursor.getElement() > firstCursor.getElement()
+                        : cursor.getElement() < firstCursor.getElement()) {
+                    firstCursor = cursor;
+                }
+            }
+            sink.writeInt(firstCursor.getElement());
+            firstCursor.next();
+
+            if (!firstCursor.hasElement()) {
+                activeCursors.remove(firstCursor);
+            }
+        }
+    }
+
+    @Override
+    public void mergeLong(List<? extends LongCursor> cursors, boolean descending, OutputSink sink) {
+        var activeCursors = new ArrayList<LongCursor>();
+        for (LongCursor cursor : cursors) {
+            if (cursor.hasElement()) {
+                activeCursors.add(cursor);
+            }
+        }
+
+        while (!activeCursors.isEmpty() && !sink.isFull()) {
+            var firstCursor = activeCursors.get(0);
+            for (LongCursor cursor : activeCursors) {
+                if (descending
+                        ? cursor.getElement() > firstCursor.getElement()
+                        : cursor.getElement() < firstCursor.getElement()) {
+                    firstCursor = cursor;
+                }
+            }
+            sink.writeLong(firstCursor.getElement());
+            firstCursor.next();
+
+            if (!firstCursor.hasElement()) {
+                activeCursors.remove(firstCursor);
+            }
+        }
+    }
+
+    @Override
+    public void mergeDecimal(List<? extends DecimalCursor> cursors, boolean descending, OutputSink sink) {
+        var activeCursors = new ArrayList<DecimalCursor>();
+        for (DecimalCursor cursor : cursors) {
+            if (cursor.hasElement()) {
+                activeCursors.add(cursor);
+            }
+        }
+
+        while (!activeCursors.isEmpty() && !sink.isFull()) {
+            var firstCursor = activeCursors.get(0);
+            for (DecimalCursor cursor : activeCursors) {
+                var compare = cursor.getElement().compareTo(firstCursor.getElement());
+                if (descending ? compare > 0 : compare < 0) {
+                    firstCursor = cursor;
+                }
+            }
+            var element = firstCursor.getElement();
+            sink.writeBytes(element.getText(), 0, element.getLength());
+            firstCursor.next();
+
+            if (!firstCursor.hasElement()) {
+                activeCursors.remove(firstCursor);
+            }
+        }
+    }
+
+    @Override
+    public void mergeByteLines(List<? extends ByteLineCursor> cursors, StringOrder order, boolean descending,
+                               OutputSink sink) {
+        var activeCursors = new ArrayList<ByteLineCursor>();
+        for (ByteLineCursor cursor : cursors) {
+            if (cursor.hasElement()) {
+                activeCursors.add(cursor);
+            }
+        }
+
+        while (!activeCursors.isEmpty() && !sink.isFull()) {
+            var firstCursor = activeCursors.get(0);
+            for (ByteLineCursor cursor : activeCursors) {
+                var compare = order.compare(cursor.getElement(), firstCursor.getElement());
+                if (descending ? compare > 0 : compare < 0) {
+                    firstCursor = cursor;
+                }
+            }
+            var element = firstCursor.getElement();
+            sink.writeBytes(element.getBytes(), 0, element.getLength());
+            firstCursor.next();
+
+            if (!firstCursor.hasElement()) {
+                activeCursors.remove(firstCursor);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.benchmark;
+
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.ListElementCursor;
+import org.example.sortmanager.HeapMergeEngine;
+import org.example.sortmanager.SortManager;
+import org.example.sortmanager.SortManagerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * k-путевое слияние данных в памяти, без чтения и записи файлов: k курсоров, в сумме n элементов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeBenchmark {
+
+    private static final Comparator<String> ORDER = Comparator.comparingInt(String::length);
+
+    @Param({"2", "16", "128"})
+    public int k;
+
+    @Param({"1000000"})
+    public int n;
+
+    @Param({"heap", "linear"})
+    public String engine;
+
+    private SortManager sortManager;
+    private int[][] ints;
+    private List<List<String>> strings;
+
+    @Setup
+    public void setUp() {
+        sortManager = new SortManagerImpl("heap".equals(engine) ? new HeapMergeEngine() : new LinearMergeEngine());
+        ints = BenchmarkData.sortedInts(k, n);
+        strings = BenchmarkData.sortedStrings(k, n);
+    }
+
+    @Benchmark
+    public void mergeInt(Blackhole blackhole) {
+        var cursors = new ArrayList<IntCursor>();
+        for (int[] array : ints) {
+            cursors.add(new ArrayIntCursor(array));
+        }
+        sortManager.streamingMergeSortInt(cursors, false, new BlackholeOutputSink(blackhole));
+    }
+
+    @Benchmark
+    public void mergeString(Blackhole blackhole) {
+        var cursors = new ArrayList<ElementCursor<String>>();
+        for (List<String> list : strings) {
+            cursors.add(new ListElementCursor<>("list", list));
+        }
+        sortManager.streamingMergeSort(cursors, ORDER, new BlackholeOutputSink(blackhole));
+    }
+}
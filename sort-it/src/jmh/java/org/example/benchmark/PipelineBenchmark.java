@@ -0,0 +1,107 @@
+package org.example.benchmark;
+
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.WriteOptions;
+import org.example.sortmanager.SortManager;
+import org.example.sortmanager.SortManagerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Весь путь от k входных файлов до выходного файла.
+ * legacy - исходная реализация: файлы целиком в списки, валидация списков, слияние в список строк и запись
+ * через FileWriter. Это базовая линия, с которой сравнивается потоковое слияние курсоров
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Dfile.encoding=UTF-8"}) //legacy читает файлы в кодировке платформы
+public class PipelineBenchmark {
+
+    private static final String SORT_TYPE_ASCENDING = "-a";
+    private static final Comparator<String> ORDER = Comparator.comparingInt(String::length);
+
+    @Param({BenchmarkData.DATA_TYPE_INT, BenchmarkData.DATA_TYPE_STRING})
+    public String dataType;
+
+    @Param({"2", "16"})
+    public int k;
+
+    @Param({"1000000"})
+    public int n;
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortManager sortManager = new SortManagerImpl();
+    private Path directory;
+    private List<String> files;
+    private String outputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkData.createDirectory();
+        files = new ArrayList<>();
+        for (Path file : BenchmarkData.writeSortedFiles(directory, dataType, k, n)) {
+            files.add(file.toString());
+        }
+        outputFile = directory.resolve("output.txt").toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void legacy() {
+        List<String> result;
+        if (BenchmarkData.DATA_TYPE_INT.equals(dataType)) {
+            var filesWithElements = new LinkedHashMap<String, List<Integer>>();
+            files.forEach(file -> filesWithElements.put(file, fileManager.getIntElementsFromFile(file, SORT_TYPE_ASCENDING)));
+            result = sortManager.mergeSort(filesWithElements, Comparator.<Integer>naturalOrder());
+        } else {
+            var filesWithElements = new LinkedHashMap<String, List<String>>();
+            files.forEach(file -> filesWithElements.put(file, fileManager.getStringElementsFromFile(file, SORT_TYPE_ASCENDING)));
+            result = sortManager.mergeSort(filesWithElements, ORDER);
+        }
+        fileManager.writeOutputFile(outputFile, result);
+    }
+
+    @Benchmark
+    public void streaming() {
+        try (var sink = fileManager.openOutputSink(outputFile, WriteOptions.DEFAULT)) {
+            if (BenchmarkData.DATA_TYPE_INT.equals(dataType)) {
+                var cursors = new ArrayList<IntCursor>();
+                files.forEach(file -> cursors.add(fileManager.openIntCursor(file, false, ReadOptions.DEFAULT)));
+                sortManager.streamingMergeSortInt(cursors, false, sink);
+            } else {
+                var cursors = new ArrayList<ElementCursor<String>>();
+                files.forEach(file -> cursors.add(fileManager.openStringCursor(file, ORDER, ReadOptions.DEFAULT)));
+                sortManager.streamingMergeSort(cursors, ORDER, sink);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.benchmark;
+
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.ReadOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение и разбор одного отсортированного файла курсором, с проверкой порядка и без неё
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({BenchmarkData.DATA_TYPE_INT, BenchmarkData.DATA_TYPE_STRING})
+    public String dataType;
+
+    @Param({"1000000"})
+    public int elements;
+
+    @Param({"channel", "mmap", "prefetch"})
+    public String reader;
+
+    @Param({"true", "false"})
+    public boolean orderValidated;
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private Path directory;
+    private String file;
+    private ReadOptions readOptions;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkData.createDirectory();
+        file = BenchmarkData.writeSortedFiles(directory, dataType, 1, elements).get(0).toString();
+        readOptions = ReadOptions.DEFAULT
+                .withMapped("mmap".equals(reader))
+                .withPrefetched("prefetch".equals(reader))
+                .withOrderValidated(orderValidated);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        if (BenchmarkData.DATA_TYPE_INT.equals(dataType)) {
+            try (var cursor = fileManager.openIntCursor(file, false, readOptions)) {
+                for (; cursor.hasElement(); cursor.next()) {
+                    blackhole.consume(cursor.getElement());
+                }
+            }
+        } else {
+            try (var cursor = fileManager.openStringCursor(file, Comparator.comparingInt(String::length), readOptions)) {
+                for (; cursor.hasElement(); cursor.next()) {
+                    blackhole.consume(cursor.getElement());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.benchmark;
+
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.WriteOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись n элементов в выходной файл через ChannelOutputSink с разным размером буфера
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+    @Param({BenchmarkData.DATA_TYPE_INT, BenchmarkData.DATA_TYPE_STRING})
+    public String dataType;
+
+    @Param({"1000000"})
+    public int n;
+
+    @Param({"65536", "1048576"})
+    public int bufferSize;
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private Path directory;
+    private String outputFile;
+    private int[] ints;
+    private List<String> strings;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkData.createDirectory();
+        outputFile = directory.resolve("output.txt").toString();
+        ints = BenchmarkData.sortedInts(1, n)[0];
+        strings = BenchmarkData.sortedStrings(1, n).get(0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void write() {
+        try (var sink = fileManager.openOutputSink(outputFile, WriteOptions.DEFAULT.withBufferSize(bufferSize))) {
+            if (BenchmarkData.DATA_TYPE_INT.equals(dataType)) {
+                for (int element : ints) {
+                    sink.writeInt(element);
+                }
+            } else {
+                for (String element : strings) {
+                    sink.write(element);
+                }
+            }
+        }
+    }
+}
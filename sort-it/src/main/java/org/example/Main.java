@@ -1,8 +1,16 @@
 package org.example;
 
+import org.example.filemanager.FileManager;
 import org.example.filemanager.FileManagerImpl;
+import org.example.service.BatchService;
+import org.example.service.BatchServiceImpl;
 import org.example.service.SortItService;
 import org.example.service.SortItServiceImpl;
+import org.example.sortmanager.CheckpointMergeManagerImpl;
+import org.example.sortmanager.ExternalSortManagerImpl;
+import org.example.sortmanager.ParallelMergeManagerImpl;
+import org.example.sortmanager.PresortedMergeManagerImpl;
+import org.example.sortmanager.SortManager;
 import org.example.sortmanager.SortManagerImpl;
 
 /**
@@ -10,12 +18,22 @@ import org.example.sortmanager.SortManagerImpl;
  * @version 1.0
  */
 public class Main {
+    private static final SortManager sortManager = new SortManagerImpl();
+    private static final FileManager fileManager = new FileManagerImpl();
     private static final SortItService service = new SortItServiceImpl(
-            new SortManagerImpl(),
-            new FileManagerImpl()
+            new ExternalSortManagerImpl(sortManager, fileManager),
+            new ParallelMergeManagerImpl(sortManager, fileManager),
+            new PresortedMergeManagerImpl(sortManager, fileManager),
+            new CheckpointMergeManagerImpl(sortManager, fileManager),
+            fileManager
     );
+    private static final BatchService batchService = new BatchServiceImpl(service);
 
     public static void main(String[] args) {
+        if (batchService.isBatch(args)) { //задачи из списка, в одном процессе
+            batchService.start(args);
+            return;
+        }
         service.start(args);
     }
 }
@@ -0,0 +1,179 @@
+package org.example.filemanager;
+
+import org.example.metrics.FileMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Общая часть курсоров по двоичным файлам (BinaryHeader): записи фиксированной длины читаются из байтового
+ * блока одним getInt/getLong, без разбора цифр. Запись, разрезанная границей блоков, собирается в отдельном буфере.
+ * Что делать с прочитанным значением - проверять тип и порядок и хранить элемент - решают наследники
+ */
+abstract class BinaryBlockCursor implements InputCursor {
+
+    private static final String MSG_INVALID_ELEMENT_IN_FILE = "Невалидный элемент: %s в файле: %s!%n";
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, readInputFile";
+    private static final String INCOMPLETE_RECORD = "<неполная запись>";
+
+    private final String file;
+    private final int recordSize;
+    private final FileMetrics metrics;
+    private final RejectionReporter.FileRejections rejections;
+    private final ByteBuffer splitRecord = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private BlockReader reader;
+    private ByteBuffer block;
+    private boolean hasElement;
+    private long readBytes; //байт получено от reader, смещения считаются от начала читаемой части файла
+    private long blockOffset; //смещение байта с индексом 0 текущего блока
+    private long elementOffset;
+    private long acceptedCount; //ещё не добавлены в metrics
+    private long rejectedCount;
+
+    /**
+     * @param reader - источник байт записей (без заголовка), null - файл не удалось открыть
+     * @param recordSize - длина записи из заголовка
+     * @param skippedBytes - сколько байт от начала читаемой части пропущено до первой записи
+     */
+    BinaryBlockCursor(String file, BlockReader reader, int recordSize, long skippedBytes,
+                      FileMetrics metrics, RejectionReporter rejections) {
+        this.file = file;
+        this.reader = reader;
+        this.recordSize = recordSize;
+        this.readBytes = skippedBytes;
+        this.metrics = metrics;
+        this.rejections = rejections != null ? rejections.forFile(file) : null;
+    }
+
+    /**
+     * @param value - прочитанная запись
+     * @param hasPreviousElement - курсор хранит предыдущий принятый элемент
+     * @return true - элемент принят и стал текущим
+     */
+    abstract boolean accept(long value, boolean hasPreviousElement);
+
+    @Override
+    public boolean hasElement() {
+        return hasElement;
+    }
+
+    @Override
+    public void next() {
+        var hasPreviousElement = hasElement;
+        hasElement = false;
+
+        while (reader != null) {
+            if (block == null || !block.hasRemaining()) {
+                if (!readBlock()) {
+                    close();
+                    return;
+                }
+                continue;
+            }
+            var position = block.position();
+            var recordOffset = blockOffset + position;
+            long value;
+            if (block.remaining() >= recordSize) {
+                value = recordSize == Integer.BYTES ? block.getInt(position) : block.getLong(position);
+                block.position(position + recordSize);
+            } else if (readSplitRecord()) {
+                value = recordSize == Integer.BYTES ? splitRecord.getInt(0) : splitRecord.getLong(0);
+            } else { //файл оборвался посреди записи
+                reject(INCOMPLETE_RECORD);
+                close();
+                return;
+            }
+            if (accept(value, hasPreviousElement)) {
+                hasElement = true;
+                acceptedCount++;
+                elementOffset = recordOffset;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false - файл закончился
+     */
+    private boolean readBlock() {
+        var readStart = System.nanoTime();
+        try {
+            block = reader.read();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            block = null;
+        }
+        publishMetrics(block != null ? block.remaining() : 0, System.nanoTime() - readStart);
+        if (block == null) {
+            return false;
+        }
+        block.order(ByteOrder.LITTLE_ENDIAN);
+        blockOffset = readBytes - block.position();
+        readBytes += block.remaining();
+        return true;
+    }
+
+    /**
+     * Собирает запись из хвоста текущего блока и начала следующих
+     * @return false - файл закончился раньше, чем запись
+     */
+    private boolean readSplitRecord() {
+        splitRecord.clear().limit(recordSize);
+        while (true) {
+            var count = Math.min(block.remaining(), splitRecord.remaining());
+            for (int i = 0; i < count; i++) {
+                splitRecord.put(block.get());
+            }
+            if (!splitRecord.hasRemaining()) {
+                return true;
+            }
+            if (!readBlock()) {
+                return false;
+            }
+        }
+    }
+
+    void reject(String element) {
+        if (rejections != null) {
+            rejections.reject(element);
+        } else {
+            System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, element, file);
+        }
+        rejectedCount++;
+    }
+
+    /**
+     * Добавляет накопленные счётчики в метрики файла, вызывается раз на блок, а не на элемент
+     * @param bytes - размер прочитанного блока
+     * @param readNanos - сколько ждали блок
+     */
+    private void publishMetrics(long bytes, long readNanos) {
+        if (metrics != null) {
+            metrics.add(bytes, readNanos, acceptedCount, rejectedCount);
+        }
+        acceptedCount = 0;
+        rejectedCount = 0;
+    }
+
+    @Override
+    public long getElementOffset() {
+        return elementOffset;
+    }
+
+    @Override
+    public String getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        publishMetrics(0, 0);
+        if (reader == null) {
+            return;
+        }
+        reader.close();
+        reader = null;
+        block = null;
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Заголовок двоичного файла с числами: записи фиксированной длины, int или long в little-endian, без разделителей.
+ * Заголовок - 16 байт: сигнатура "SRTB", версия, тип записей ('i' - int, 'l' - long), флаги
+ * (0x01 - по убыванию, 0x02 - записи отсортированы), резерв, число записей (long, -1 - неизвестно).
+ * Текстовый файл с числами не может начинаться с сигнатуры, так что формат файла определяется по первым байтам
+ */
+public class BinaryHeader {
+
+    public static final int LENGTH = 16;
+    public static final byte TYPE_INT = 'i';
+    public static final byte TYPE_LONG = 'l';
+    private static final byte[] MAGIC = {'S', 'R', 'T', 'B'};
+    private static final byte VERSION = 1;
+    private static final int FLAG_DESCENDING = 0x01;
+    private static final int FLAG_SORTED = 0x02;
+    private static final int COUNT_POSITION = 8;
+
+    private final byte type;
+    private final boolean descending;
+    private final boolean sorted;
+    private final long count;
+
+    /**
+     * @param type - тип записей, TYPE_INT или TYPE_LONG
+     * @param descending - true - записи по убыванию, иначе по возрастанию
+     * @param sorted - true - записи отсортированы в порядке descending
+     * @param count - число записей, -1 - неизвестно
+     */
+    public BinaryHeader(byte type, boolean descending, boolean sorted, long count) {
+        if (type != TYPE_INT && type != TYPE_LONG) {
+            throw new IllegalArgumentException();
+        }
+        this.type = type;
+        this.descending = descending;
+        this.sorted = sorted;
+        this.count = count;
+    }
+
+    /**
+     * @param file - входной файл
+     * @return BinaryHeader заголовок файла, null - файл текстовый (или его нет)
+     * @throws IOException - файл не удалось прочитать, или у него сигнатура двоичного файла, но заголовок повреждён
+     */
+    public static BinaryHeader read(String file) throws IOException {
+        var buffer = ByteBuffer.allocate(LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        try (var channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                //заголовок короткий, дочитывается за один-два вызова
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        buffer.flip();
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.limit() <= i || buffer.get(i) != MAGIC[i]) {
+                return null;
+            }
+        }
+        var type = buffer.limit() == LENGTH ? buffer.get(5) : 0;
+        if (buffer.get(4) != VERSION || (type != TYPE_INT && type != TYPE_LONG)) {
+            throw new IOException("Неизвестный формат двоичного файла: " + file);
+        }
+        var flags = buffer.get(6);
+        return new BinaryHeader(type, (flags & FLAG_DESCENDING) != 0, (flags & FLAG_SORTED) != 0,
+                buffer.getLong(COUNT_POSITION));
+    }
+
+    /**
+     * @return ByteBuffer заголовок в том виде, в каком он лежит в начале файла
+     */
+    public ByteBuffer toBuffer() {
+        var buffer = ByteBuffer.allocate(LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC).put(VERSION).put(type)
+                .put((byte) ((descending ? FLAG_DESCENDING : 0) | (sorted ? FLAG_SORTED : 0)))
+                .put((byte) 0)
+                .putLong(count);
+        return buffer.flip();
+    }
+
+    public BinaryHeader withCount(long count) {
+        return new BinaryHeader(type, descending, sorted, count);
+    }
+
+    /**
+     * @return тип записей, TYPE_INT или TYPE_LONG
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * @return длина записи в байтах
+     */
+    public int getRecordSize() {
+        return type == TYPE_INT ? Integer.BYTES : Long.BYTES;
+    }
+
+    /**
+     * @param descending - нужный порядок
+     * @return true - записи уже отсортированы в этом порядке, проверять его не нужно
+     */
+    public boolean isSortedIn(boolean descending) {
+        return sorted && this.descending == descending;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * @return число записей из заголовка, -1 - неизвестно (файл дописывался и не был закрыт)
+     */
+    public long getCount() {
+        return count;
+    }
+}
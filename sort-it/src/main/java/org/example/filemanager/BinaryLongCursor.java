@@ -0,0 +1,48 @@
+package org.example.filemanager;
+
+import org.example.metrics.FileMetrics;
+
+/**
+ * Курсор по Long данным двоичного файла, записи int расширяются до long.
+ * Если заголовок файла говорит, что записи уже отсортированы в нужном порядке, порядок не проверяется
+ */
+public class BinaryLongCursor extends BinaryBlockCursor implements LongCursor {
+
+    private final boolean descending;
+    private final boolean orderValidated;
+    private long element;
+
+    /**
+     * @param file - входной файл
+     * @param reader - источник байт записей (без заголовка), null - файл не удалось открыть
+     * @param header - заголовок файла
+     * @param skippedBytes - сколько байт от начала читаемой части пропущено до первой записи
+     * @param descending - true - файл отсортирован по убыванию, иначе по возрастанию
+     * @param orderValidated - false - порядок элементов не проверяется
+     * @param metrics - счётчики файла, null - не считаются
+     * @param rejections - куда сообщать о невалидных элементах, null - сразу печатать каждый
+     */
+    public BinaryLongCursor(String file, BlockReader reader, BinaryHeader header, long skippedBytes,
+                            boolean descending, boolean orderValidated, FileMetrics metrics,
+                            RejectionReporter rejections) {
+        super(file, reader, header.getRecordSize(), skippedBytes, metrics, rejections);
+        this.descending = descending;
+        this.orderValidated = orderValidated && !header.isSortedIn(descending);
+        next();
+    }
+
+    @Override
+    public long getElement() {
+        return element;
+    }
+
+    @Override
+    boolean accept(long value, boolean hasPreviousElement) {
+        if (orderValidated && hasPreviousElement && (descending ? element < value : element > value)) {
+            reject(String.valueOf(value));
+            return false;
+        }
+        element = value;
+        return true;
+    }
+}
@@ -0,0 +1,255 @@
+package org.example.filemanager;
+
+import org.example.metrics.RunMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Пишет результат в двоичный файл (BinaryHeader): заголовок, затем записи фиксированной длины в little-endian,
+ * через FileChannel и direct буфер, как ChannelOutputSink, но без перевода чисел в цифры.
+ * Число записей в заголовке проставляется при закрытии, до этого там -1.
+ * Элементы, пришедшие текстом (например, строки уже слитой части результата), разбираются в числа
+ */
+public class BinaryOutputSink implements OutputSink {
+
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, writeOutputFile";
+    private static final String MSG_INVALID_ELEMENT = "Элемент не записан в двоичный файл: %s%n";
+
+    private final ByteBuffer buffer;
+    private final BinaryHeader header;
+    private final boolean longRecords;
+    private final boolean fsync;
+    private final RunMetrics metrics;
+    private FileChannel channel;
+    private long recordCount;
+    private long writtenCount; //элементы с прошлого сброса, ещё не добавлены в metrics
+    private boolean failed;
+
+    /**
+     * @param outputFile - выходной файл, существующее содержимое затирается
+     *                     (при продолжении записи - обрезается до options.getResumeOffset())
+     * @param options - заголовок, размер буфера и нужен ли fsync после записи
+     */
+    public BinaryOutputSink(String outputFile, WriteOptions options) {
+        this.header = options.getBinaryHeader();
+        this.longRecords = header.getType() == BinaryHeader.TYPE_LONG;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(options.getBufferSize(), BinaryHeader.LENGTH))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.fsync = options.isFsync();
+        this.metrics = options.getMetrics();
+        try {
+            var resumeOffset = options.getResumeOffset();
+            if (resumeOffset < BinaryHeader.LENGTH) {
+                channel = FileChannel.open(Path.of(outputFile),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                buffer.put(header.withCount(-1).toBuffer());
+            } else { //хвост после контрольной точки отбрасывается, записи до неё уже в файле
+                channel = FileChannel.open(Path.of(outputFile), StandardOpenOption.WRITE);
+                channel.truncate(resumeOffset);
+                channel.position(resumeOffset);
+                recordCount = (resumeOffset - BinaryHeader.LENGTH) / header.getRecordSize();
+            }
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+        }
+    }
+
+    /**
+     * Текстовый элемент - число в десятичной записи
+     * @param element - очередной элемент результата
+     */
+    @Override
+    public void write(String element) {
+        try {
+            writeLong(Long.parseLong(element));
+        } catch (NumberFormatException e) {
+            System.out.printf(MSG_INVALID_ELEMENT, element);
+        }
+    }
+
+    @Override
+    public void writeInt(int element) {
+        if (channel == null || (buffer.remaining() < Long.BYTES && !flush())) {
+            return;
+        }
+        if (longRecords) {
+            buffer.putLong(element);
+        } else {
+            buffer.putInt(element);
+        }
+        recordCount++;
+        writtenCount++;
+    }
+
+    /**
+     * В файл с записями int попадают только значения, которые в int помещаются
+     * @param element - очередной элемент результата
+     */
+    @Override
+    public void writeLong(long element) {
+        if (!longRecords) {
+            if (element != (int) element) {
+                System.out.printf(MSG_INVALID_ELEMENT, element);
+                return;
+            }
+            writeInt((int) element);
+            return;
+        }
+        if (channel == null || (buffer.remaining() < Long.BYTES && !flush())) {
+            return;
+        }
+        buffer.putLong(element);
+        recordCount++;
+        writtenCount++;
+    }
+
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        write(new String(bytes, offset, length, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Двоичный файл с записями того же типа дописывается через FileChannel.transferTo, без заголовка
+     * и без разбора записей. Текстовый файл читается по строкам, каждая строка разбирается в число
+     * @param file - файл, дописываемый в конец результата
+     * @throws IOException - файл не удалось открыть
+     */
+    @Override
+    public void writeFile(Path file) throws IOException {
+        if (channel == null || !flush()) {
+            return;
+        }
+        var fileHeader = BinaryHeader.read(file.toString());
+        if (fileHeader == null || fileHeader.getType() != header.getType()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    write(line);
+                }
+            }
+            return;
+        }
+        try (var source = FileChannel.open(file, StandardOpenOption.READ)) {
+            var size = source.size();
+            var transferStart = System.nanoTime();
+            try {
+                for (long position = BinaryHeader.LENGTH; position < size; ) {
+                    position += source.transferTo(position, size - position, channel);
+                }
+                recordCount += (size - BinaryHeader.LENGTH) / header.getRecordSize();
+                publishMetrics(0, System.nanoTime() - transferStart);
+            } catch (IOException e) {
+                System.out.println(MSG_IO_EXCEPTION);
+                failed = true;
+                closeChannel();
+            }
+        }
+    }
+
+    /**
+     * Буфер сбрасывается в файл, файл - на диск
+     * @return long длина результата в байтах, -1 - запись не удалась
+     */
+    @Override
+    public long checkpoint() {
+        if (channel == null || !flush()) {
+            return -1;
+        }
+        var forceStart = System.nanoTime();
+        try {
+            channel.force(true);
+            publishMetrics(0, System.nanoTime() - forceStart);
+            return channel.position();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+            closeChannel();
+            return -1;
+        }
+    }
+
+    @Override
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Сбрасывает заполненную часть буфера в файл
+     * @return false - запись не удалась, приёмник закрыт
+     */
+    private boolean flush() {
+        buffer.flip();
+        var bytes = buffer.remaining();
+        var flushStart = System.nanoTime();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            publishMetrics(bytes, System.nanoTime() - flushStart);
+            return true;
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+            buffer.clear();
+            closeChannel();
+            return false;
+        }
+    }
+
+    private void publishMetrics(long bytes, long nanos) {
+        if (metrics != null) {
+            metrics.addWrite(writtenCount, bytes, nanos);
+        }
+        writtenCount = 0;
+    }
+
+    /**
+     * После всех записей в заголовок проставляется их число
+     */
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        if (flush()) {
+            try {
+                var countedHeader = header.withCount(recordCount).toBuffer();
+                for (long position = 0; countedHeader.hasRemaining(); ) {
+                    position += channel.write(countedHeader, position);
+                }
+                if (fsync) {
+                    var forceStart = System.nanoTime();
+                    channel.force(true);
+                    publishMetrics(0, System.nanoTime() - forceStart);
+                }
+            } catch (IOException e) {
+                System.out.println(MSG_IO_EXCEPTION);
+                failed = true;
+            }
+        }
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.filemanager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Источник сырых байт входного файла, отдаёт файл блоками
+ */
+public interface BlockReader extends Closeable {
+    /**
+     * @return следующий блок файла (данные между position и limit) или null, если файл закончился.
+     * Блок остаётся валидным только до следующего вызова read()
+     */
+    ByteBuffer read() throws IOException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,106 @@
+package org.example.filemanager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Строка файла в байтах UTF-8, без декодирования в String. Вместе с байтами хранится ключ сравнения,
+ * который StringOrder считает один раз при разборе строки: длина в символах или границы ключа
+ * и его первые 8 байт одним long, так что большинство сравнений - это одно сравнение long.
+ * Объект изменяемый: курсор дописывает в него строку за строкой, не создавая объектов на элемент
+ */
+public class ByteLine {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    byte[] bytes;
+    int length;
+    //ключ сравнения, заполняет StringOrder.index
+    int charLength;
+    int keyStart;
+    int keyEnd;
+    long prefix;
+
+    public ByteLine() {
+        this(new byte[INITIAL_CAPACITY]);
+    }
+
+    private ByteLine(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    /**
+     * Дописывает к строке кусок блока [from, from + count)
+     */
+    void append(ByteBuffer block, int from, int count) {
+        if (length + count > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+        }
+        block.position(from);
+        block.get(bytes, length, count);
+        length += count;
+    }
+
+    /**
+     * @return ByteLine копия строки вместе с ключом, массив байт ровно по длине строки: курсор переиспользует
+     *         свой ByteLine, а копия остаётся, например, в порции внешней сортировки
+     */
+    public ByteLine copy() {
+        var copy = new ByteLine(Arrays.copyOf(bytes, length));
+        copy.length = length;
+        copy.copyKey(this);
+        return copy;
+    }
+
+    /**
+     * Делает строку копией other, переиспользуя свой массив байт
+     */
+    public void set(ByteLine other) {
+        if (bytes.length < other.length) {
+            bytes = new byte[Math.max(bytes.length * 2, other.length)];
+        }
+        System.arraycopy(other.bytes, 0, bytes, 0, other.length);
+        length = other.length;
+        copyKey(other);
+    }
+
+    private void copyKey(ByteLine other) {
+        charLength = other.charLength;
+        keyStart = other.keyStart;
+        keyEnd = other.keyEnd;
+        prefix = other.prefix;
+    }
+
+    /**
+     * @return true - в строке есть пробел, для строковых данных такая строка невалидна
+     */
+    boolean containsSpace() {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return байты строки, значимы только первые getLength()
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
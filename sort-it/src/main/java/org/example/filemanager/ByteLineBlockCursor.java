@@ -0,0 +1,85 @@
+package org.example.filemanager;
+
+import org.example.metrics.FileMetrics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Курсор по файлу со String данными, который не декодирует строки: байты строки копируются из блока
+ * в ByteLine, ключ сравнения считается один раз на строку (StringOrder), строки с пробелами невалидны.
+ * Как и в DecimalBlockCursor, курсор держит два ByteLine и меняет их местами после принятия строки
+ */
+public class ByteLineBlockCursor extends LineBlockCursor implements ByteLineCursor {
+
+    private final boolean descending;
+    private final boolean orderValidated;
+    private final StringOrder order;
+    private ByteLine element = new ByteLine();
+    private ByteLine line = new ByteLine(); //текущая строка, может начаться в одном блоке и закончиться в другом
+
+    /**
+     * @param file - входной файл
+     * @param reader - источник байт файла, null - файл не удалось открыть
+     * @param order - порядок строк
+     * @param descending - true - файл отсортирован по убыванию, иначе по возрастанию
+     * @param orderValidated - false - порядок элементов не проверяется (файл не отсортирован)
+     */
+    public ByteLineBlockCursor(String file, BlockReader reader, StringOrder order, boolean descending,
+                               boolean orderValidated) {
+        this(file, reader, order, descending, orderValidated, null, null);
+    }
+
+    /**
+     * @param metrics - счётчики файла, null - не считаются
+     * @param rejections - куда сообщать о невалидных элементах, null - сразу печатать каждый
+     */
+    public ByteLineBlockCursor(String file, BlockReader reader, StringOrder order, boolean descending,
+                               boolean orderValidated, FileMetrics metrics, RejectionReporter rejections) {
+        super(file, reader, metrics, rejections);
+        this.order = order;
+        this.descending = descending;
+        this.orderValidated = orderValidated;
+        next();
+    }
+
+    @Override
+    public ByteLine getElement() {
+        return element;
+    }
+
+    @Override
+    protected void appendLine(ByteBuffer block, int from, int to) {
+        line.append(block, from, to - from);
+    }
+
+    /**
+     * Завершает строку и проверяет элемент: валиден ли он и не нарушает ли порядок сортировки
+     * @param hasPreviousElement - element хранит предыдущий принятый элемент
+     */
+    @Override
+    protected boolean acceptLine(boolean hasPreviousElement) {
+        var accepted = false;
+
+        if (line.containsSpace()) {
+            reject(line.toString());
+        } else {
+            order.index(line); //ключ считается один раз и нужен и проверке порядка, и слиянию
+            if (orderValidated && hasPreviousElement && isOutOfOrder()) { //элемент нарушает порядок сортировки
+                reject(line.toString());
+            } else {
+                var previous = element;
+                element = line;
+                line = previous;
+                accepted = true;
+            }
+        }
+
+        line.clear();
+        return accepted;
+    }
+
+    private boolean isOutOfOrder() {
+        var compared = order.compare(element, line);
+        return descending ? compared < 0 : compared > 0;
+    }
+}
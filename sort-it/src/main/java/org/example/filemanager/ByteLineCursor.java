@@ -0,0 +1,12 @@
+package org.example.filemanager;
+
+/**
+ * Курсор по строковым данным файла в байтах, без декодирования в String
+ */
+public interface ByteLineCursor extends InputCursor {
+    /**
+     * @return текущий элемент, ещё не выгруженный в результат. Объект переиспользуется курсором
+     *         и действителен только до следующего вызова next()
+     */
+    ByteLine getElement();
+}
@@ -0,0 +1,72 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Читает файл через FileChannel в один переиспользуемый direct буфер,
+ * без промежуточного копирования и без декодирования в символы
+ */
+public class ChannelBlockReader implements BlockReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, readInputFile";
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long end;
+    private long position;
+
+    public ChannelBlockReader(String file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param file - входной файл
+     * @param bufferSize - размер блока в байтах
+     */
+    public ChannelBlockReader(String file, int bufferSize) throws IOException {
+        this(file, 0, Long.MAX_VALUE, bufferSize);
+    }
+
+    /**
+     * Чтение только части файла [start, end)
+     * @param file - входной файл
+     * @param start - смещение начала части
+     * @param end - смещение конца части (не включительно), Long.MAX_VALUE - до конца файла
+     * @param bufferSize - размер блока в байтах
+     */
+    public ChannelBlockReader(String file, long start, long end, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(Path.of(file), StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public ByteBuffer read() throws IOException {
+        buffer.clear();
+        if (end - position < buffer.capacity()) {
+            buffer.limit((int) Math.max(0, end - position));
+        }
+        while (buffer.position() == 0) { //read может вернуть 0 байт, ждём хотя бы один байт или конец файла
+            if (!buffer.hasRemaining() || channel.read(buffer, position) < 0) {
+                return null;
+            }
+        }
+        position += buffer.position();
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package org.example.filemanager;
+
+import org.example.metrics.RunMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Пишет результат в выходной файл через FileChannel и большой direct буфер.
+ * Строки кодируются явно в UTF-8 (а не в кодировке платформы, как FileWriter), числа пишутся
+ * цифрами прямо в байтовый буфер. Буфер сбрасывается в файл, когда заполнится, так что запись
+ * идёт параллельно со слиянием и весь результат в памяти не держится.
+ * Сжатый результат пишется через GzipChannel: буфер сжимается в его потоке, контрольная точка
+ * завершает член gzip, так что файл, обрезанный по ней, остаётся корректным gzip
+ */
+public class ChannelOutputSink implements OutputSink {
+
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, writeOutputFile";
+    private static final int MAX_INT_LENGTH = 11; //максимальная длина int со знаком: -2147483648
+    private static final int MAX_LONG_LENGTH = 20; //максимальная длина long со знаком: -9223372036854775808
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer buffer;
+    private final boolean fsync;
+    private final RunMetrics metrics;
+    private FileChannel channel;
+    private WritableByteChannel output; //channel или сжимающий GzipChannel поверх него
+    private GzipChannel gzip;
+    private long writtenCount; //элементы с прошлого сброса, ещё не добавлены в metrics
+    private boolean failed;
+
+    /**
+     * @param outputFile - выходной файл, существующее содержимое затирается
+     *                     (при продолжении записи - обрезается до options.getResumeOffset())
+     * @param options - размер буфера и нужен ли fsync после записи
+     */
+    public ChannelOutputSink(String outputFile, WriteOptions options) {
+        this(outputFile, options, false);
+    }
+
+    /**
+     * @param compressed - true - результат сжимается в gzip с уровнем options.getCompressionLevel()
+     */
+    public ChannelOutputSink(String outputFile, WriteOptions options, boolean compressed) {
+        this.buffer = ByteBuffer.allocateDirect(Math.max(options.getBufferSize(), MAX_LONG_LENGTH + 1));
+        this.fsync = options.isFsync();
+        this.metrics = options.getMetrics();
+        try {
+            var resumeOffset = options.getResumeOffset();
+            if (resumeOffset < 0) {
+                channel = FileChannel.open(Path.of(outputFile),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            } else { //хвост после контрольной точки мог не дойти до диска целиком, он отбрасывается
+                channel = FileChannel.open(Path.of(outputFile), StandardOpenOption.WRITE);
+                channel.truncate(resumeOffset);
+                channel.position(resumeOffset);
+            }
+            output = channel;
+            if (compressed) { //при продолжении сжатие начинается с нового члена gzip
+                gzip = new GzipChannel(channel, options.getCompressionLevel());
+                output = gzip;
+            }
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+        }
+    }
+
+    @Override
+    public void write(String element) {
+        if (channel == null) { //после первой ошибки записи дальше не пишем
+            return;
+        }
+        var chars = CharBuffer.wrap(element);
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true).isOverflow()) {
+            if (!flush()) {
+                return;
+            }
+        }
+        encoder.flush(buffer);
+        putNewLine();
+        writtenCount++;
+    }
+
+    /**
+     * Цифры числа пишутся прямо в буфер, без String.valueOf на каждый элемент
+     * @param element - очередной элемент результата
+     */
+    @Override
+    public void writeInt(int element) {
+        if (channel == null || (buffer.remaining() <= MAX_INT_LENGTH && !flush())) {
+            return;
+        }
+        var length = element < 0 ? 2 : 1;
+        for (int value = element / 10; value != 0; value /= 10) {
+            length++;
+        }
+        var end = buffer.position() + length;
+        var position = end;
+        var value = element;
+        do { //цифры снимаются с конца, остаток берётся со знаком, чтобы не переполниться на Integer.MIN_VALUE
+            buffer.put(--position, (byte) ('0' + Math.abs(value % 10)));
+            value /= 10;
+        } while (value != 0);
+        if (element < 0) {
+            buffer.put(--position, (byte) '-');
+        }
+        buffer.position(end);
+        buffer.put((byte) '\n');
+        writtenCount++;
+    }
+
+    /**
+     * Как writeInt, цифры long пишутся прямо в буфер
+     * @param element - очередной элемент результата
+     */
+    @Override
+    public void writeLong(long element) {
+        if (channel == null || (buffer.remaining() <= MAX_LONG_LENGTH && !flush())) {
+            return;
+        }
+        var length = element < 0 ? 2 : 1;
+        for (long value = element / 10; value != 0; value /= 10) {
+            length++;
+        }
+        var end = buffer.position() + length;
+        var position = end;
+        var value = element;
+        do { //остаток со знаком, чтобы не переполниться на Long.MIN_VALUE
+            buffer.put(--position, (byte) ('0' + Math.abs(value % 10)));
+            value /= 10;
+        } while (value != 0);
+        if (element < 0) {
+            buffer.put(--position, (byte) '-');
+        }
+        buffer.position(end);
+        buffer.put((byte) '\n');
+        writtenCount++;
+    }
+
+    /**
+     * Байты элемента копируются в буфер как есть, без кодирования, длинный элемент - по частям
+     * @param bytes - байты элемента в UTF-8
+     * @param offset - начало элемента
+     * @param length - длина элемента
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        if (channel == null) {
+            return;
+        }
+        var end = offset + length;
+        while (offset < end) {
+            if (!buffer.hasRemaining() && !flush()) {
+                return;
+            }
+            var chunk = Math.min(buffer.remaining(), end - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+        putNewLine();
+        writtenCount++;
+    }
+
+    /**
+     * Файл копируется в выходной канал целиком через FileChannel.transferTo, без декодирования строк:
+     * ядро может переложить страницы page cache сразу в выходной файл.
+     * Файл должен быть записан таким же приёмником без сжатия, строки в нём уже в UTF-8 и заканчиваются '\n'.
+     * В сжатый результат байты файла идут через GzipChannel
+     * @param file - файл, дописываемый в конец результата
+     * @throws IOException - файл не удалось открыть
+     */
+    @Override
+    public void writeFile(Path file) throws IOException {
+        if (channel == null || !flush()) {
+            return;
+        }
+        try (var source = FileChannel.open(file, StandardOpenOption.READ)) {
+            var size = source.size();
+            var transferStart = System.nanoTime();
+            try {
+                for (long position = 0; position < size; ) {
+                    position += source.transferTo(position, size - position, output);
+                }
+                publishMetrics(0, System.nanoTime() - transferStart); //элементы и байты файла посчитал приёмник, который его писал
+            } catch (IOException e) { //как и в flush: после ошибки приёмник закрывается
+                System.out.println(MSG_IO_EXCEPTION);
+                failed = true;
+                closeChannel();
+            }
+        }
+    }
+
+    /**
+     * Буфер сбрасывается в файл, файл - на диск, так что вся возвращённая длина результата переживёт сбой.
+     * Сжатый результат перед этим дописывается до конца члена gzip
+     * @return long длина результата в байтах (сжатых), -1 - запись не удалась
+     */
+    @Override
+    public long checkpoint() {
+        if (channel == null || !flush()) {
+            return -1;
+        }
+        var forceStart = System.nanoTime();
+        try {
+            if (gzip != null) {
+                gzip.finishMember();
+            }
+            channel.force(true);
+            publishMetrics(0, System.nanoTime() - forceStart);
+            return channel.position();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+            closeChannel();
+            return -1;
+        }
+    }
+
+    @Override
+    public boolean isFailed() {
+        return failed;
+    }
+
+    private void putNewLine() {
+        if (!buffer.hasRemaining() && !flush()) {
+            return;
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Сбрасывает заполненную часть буфера в файл
+     * @return false - запись не удалась, приёмник закрыт
+     */
+    private boolean flush() {
+        buffer.flip();
+        var bytes = buffer.remaining();
+        var flushStart = System.nanoTime();
+        try {
+            while (buffer.hasRemaining()) {
+                output.write(buffer);
+            }
+            buffer.clear();
+            publishMetrics(bytes, System.nanoTime() - flushStart);
+            return true;
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+            buffer.clear();
+            closeChannel();
+            return false;
+        }
+    }
+
+    private void publishMetrics(long bytes, long nanos) {
+        if (metrics != null) {
+            metrics.addWrite(writtenCount, bytes, nanos);
+        }
+        writtenCount = 0;
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        if (flush() && finishCompression() && fsync) {
+            var forceStart = System.nanoTime();
+            try {
+                channel.force(true);
+            } catch (IOException e) {
+                System.out.println(MSG_IO_EXCEPTION);
+                failed = true;
+            }
+            publishMetrics(0, System.nanoTime() - forceStart);
+        }
+        closeChannel();
+    }
+
+    /**
+     * Дожидается сжатия всего результата и дописывает последний член gzip
+     * @return false - сжатый результат не удалось дописать
+     */
+    private boolean finishCompression() {
+        if (gzip == null) {
+            return true;
+        }
+        var finishStart = System.nanoTime();
+        try {
+            gzip.close();
+            publishMetrics(0, System.nanoTime() - finishStart);
+            return true;
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+            return false;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (gzip != null) {
+                gzip.close();
+            }
+        } catch (IOException e) { //после ошибки записи поток сжатия только останавливается
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            failed = true;
+        }
+        channel = null;
+        output = null;
+        gzip = null;
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Журнал контрольной точки долгого слияния: с какого байта продолжать каждый входной файл
+ * и какой длины выходной файл уже записан на диск. Журнал пишется только после fsync выходного файла,
+ * так что всё, что он описывает, уже на диске. Перезапущенное слияние открывает входные файлы с этих смещений
+ * и дописывает результат с этой длины, не перечитывая уже слитые данные.
+ *
+ * Файл текстовый, по значению на строку: версия, описание задачи (job, по нему проверяется, что перезапуск
+ * тот же самый), длина результата (output) и смещения входных файлов по порядку (offset, -1 - файл слит целиком).
+ * Журнал заменяется атомарно: пишется рядом во временный файл, сбрасывается на диск и переименовывается
+ */
+public class CheckpointJournal {
+
+    private static final String HEADER = "sort-it checkpoint 1";
+    private static final String KEY_JOB = "job";
+    private static final String KEY_OUTPUT = "output";
+    private static final String KEY_OFFSET = "offset";
+    private static final String SEPARATOR = "=";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final String job;
+    private final long outputLength;
+    private final long[] inputOffsets;
+
+    /**
+     * @param job - описание задачи, может быть в несколько строк
+     * @param outputLength - длина выходного файла на диске
+     * @param inputOffsets - смещения, с которых продолжается чтение входных файлов, -1 - файл слит целиком
+     */
+    public CheckpointJournal(String job, long outputLength, long[] inputOffsets) {
+        this.job = job;
+        this.outputLength = outputLength;
+        this.inputOffsets = inputOffsets.clone();
+    }
+
+    /**
+     * @param file - файл журнала
+     * @return CheckpointJournal прочитанный журнал, null - журнала нет
+     * @throws IOException - журнал не удалось прочитать или он повреждён
+     */
+    public static CheckpointJournal read(Path file) throws IOException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (lines.isEmpty() || !lines.get(0).equals(HEADER)) {
+            throw new IOException("Неизвестный формат журнала: " + file);
+        }
+        var job = new ArrayList<String>();
+        var outputLength = -1L;
+        var offsets = new long[lines.size()];
+        var offsetCount = 0;
+        try {
+            for (String line : lines.subList(1, lines.size())) {
+                var separator = line.indexOf(SEPARATOR);
+                var key = separator < 0 ? line : line.substring(0, separator);
+                var value = separator < 0 ? "" : line.substring(separator + 1);
+                switch (key) {
+                    case KEY_JOB:
+                        job.add(value);
+                        break;
+                    case KEY_OUTPUT:
+                        outputLength = Long.parseLong(value);
+                        break;
+                    case KEY_OFFSET:
+                        offsets[offsetCount++] = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IOException("Неизвестная строка журнала: " + line);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Повреждённый журнал: " + file, e);
+        }
+        if (outputLength < 0) {
+            throw new IOException("В журнале нет длины результата: " + file);
+        }
+        return new CheckpointJournal(String.join("\n", job), outputLength, Arrays.copyOf(offsets, offsetCount));
+    }
+
+    /**
+     * Атомарно заменяет журнал: после сбоя на диске либо старый журнал, либо новый целиком
+     * @param file - файл журнала
+     * @throws IOException - журнал не удалось записать, старый журнал при этом остаётся
+     */
+    public void write(Path file) throws IOException {
+        var text = new StringBuilder(HEADER).append('\n');
+        for (String jobLine : job.split("\n", -1)) {
+            text.append(KEY_JOB).append(SEPARATOR).append(jobLine).append('\n');
+        }
+        text.append(KEY_OUTPUT).append(SEPARATOR).append(outputLength).append('\n');
+        for (long offset : inputOffsets) {
+            text.append(KEY_OFFSET).append(SEPARATOR).append(offset).append('\n');
+        }
+
+        var temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (var channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Сбрасывает на диск запись о переименовании. Не на всех системах папку можно открыть на чтение,
+     * там переименование остаётся на совести файловой системы
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //не поддерживается, журнал всё равно записан
+        }
+    }
+
+    /**
+     * @param file - файл журнала, удаляется после успешного завершения слияния
+     * @throws IOException - журнал не удалось удалить
+     */
+    public static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + TEMP_SUFFIX));
+    }
+
+    /**
+     * @return описание задачи, с которой записан журнал
+     */
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * @return длина выходного файла, которая уже на диске
+     */
+    public long getOutputLength() {
+        return outputLength;
+    }
+
+    /**
+     * @return смещения входных файлов по порядку, -1 - файл слит целиком
+     */
+    public long[] getInputOffsets() {
+        return inputOffsets.clone();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.filemanager;
+
+import org.example.metrics.FileMetrics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Курсор по файлу с числами произвольной точности поверх байтовых блоков.
+ * Строка копируется из блока и разбирается в DecimalNumber. Объектов на элемент не создаётся:
+ * курсор держит два DecimalNumber - текущий элемент и следующий, в который разбирается очередная строка,
+ * после принятия строки они меняются местами
+ */
+public class DecimalBlockCursor extends LineBlockCursor implements DecimalCursor {
+
+    private final boolean descending;
+    private final boolean orderValidated;
+    private final boolean fractional;
+    private DecimalNumber element = new DecimalNumber();
+    private DecimalNumber parsed = new DecimalNumber(); //сюда разбирается очередная строка
+    private final ByteLine line = new ByteLine(); //текущая строка, может начаться в одном блоке и закончиться в другом
+
+    /**
+     * @param file - входной файл
+     * @param reader - источник байт файла, null - файл не удалось открыть
+     * @param descending - true - файл отсортирован по убыванию, иначе по возрастанию
+     * @param orderValidated - false - порядок элементов не проверяется (файл не отсортирован)
+     * @param fractional - true - десятичные дроби, иначе только целые числа
+     */
+    public DecimalBlockCursor(String file, BlockReader reader, boolean descending, boolean orderValidated,
+                              boolean fractional) {
+        this(file, reader, descending, orderValidated, fractional, null, null);
+    }
+
+    /**
+     * @param metrics - счётчики файла, null - не считаются
+     * @param rejections - куда сообщать о невалидных элементах, null - сразу печатать каждый
+     */
+    public DecimalBlockCursor(String file, BlockReader reader, boolean descending, boolean orderValidated,
+                              boolean fractional, FileMetrics metrics, RejectionReporter rejections) {
+        super(file, reader, metrics, rejections);
+        this.descending = descending;
+        this.orderValidated = orderValidated;
+        this.fractional = fractional;
+        next();
+    }
+
+    @Override
+    public DecimalNumber getElement() {
+        return element;
+    }
+
+    @Override
+    protected void appendLine(ByteBuffer block, int from, int to) {
+        line.append(block, from, to - from);
+    }
+
+    /**
+     * Завершает строку и проверяет элемент: валиден ли он и не нарушает ли порядок сортировки
+     * @param hasPreviousElement - element хранит предыдущий принятый элемент
+     */
+    @Override
+    protected boolean acceptLine(boolean hasPreviousElement) {
+        var accepted = false;
+
+        if (!parsed.parse(line.bytes, line.length, fractional)) {
+            reject(line.toString());
+        } else if (orderValidated && hasPreviousElement && (descending
+                ? element.compareTo(parsed) < 0
+                : element.compareTo(parsed) > 0)) { //элемент нарушает порядок сортировки
+            reject(parsed.toString());
+        } else {
+            var previous = element;
+            element = parsed;
+            parsed = previous;
+            accepted = true;
+        }
+
+        line.clear();
+        return accepted;
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.filemanager;
+
+/**
+ * Курсор по числам произвольной точности без BigInteger/BigDecimal
+ */
+public interface DecimalCursor extends InputCursor {
+    /**
+     * @return текущий элемент, ещё не выгруженный в результат. Объект переиспользуется курсором
+     *         и действителен только до следующего вызова next()
+     */
+    DecimalNumber getElement();
+}
@@ -0,0 +1,174 @@
+package org.example.filemanager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Число произвольной точности (целое или десятичная дробь) в каноническом виде: ASCII байты
+ * без '+', ведущих нулей целой части и хвостовых нулей дробной, "-0" становится "0".
+ * В таком виде числа сравниваются без BigInteger/BigDecimal: сначала знак, потом длина целой части,
+ * потом цифры по порядку, а при равном начале больше то, у которого дробная часть длиннее.
+ * Объект изменяемый: курсор разбирает в него строку за строкой, не создавая объектов на элемент
+ */
+public class DecimalNumber implements Comparable<DecimalNumber> {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private byte[] text = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int integerLength; //цифры целой части, у "0.5" это 1
+    private boolean negative;
+
+    /**
+     * @param line - строка
+     * @param fractional - допускается ли дробная часть
+     * @return DecimalNumber число строки, null - строка не число
+     */
+    public static DecimalNumber parse(String line, boolean fractional) {
+        var bytes = line.getBytes(StandardCharsets.UTF_8);
+        var number = new DecimalNumber();
+        return number.parse(bytes, bytes.length, fractional) ? number : null;
+    }
+
+    /**
+     * Разбирает строку вида [+-]цифры[.цифры] в канонический вид, у дроби может не быть целой
+     * или дробной части (".5", "5."), но хотя бы одна цифра должна быть
+     * @param line - байты строки
+     * @param lineLength - длина строки
+     * @param fractional - допускается ли дробная часть
+     * @return false - строка не число, содержимое объекта не определено
+     */
+    public boolean parse(byte[] line, int lineLength, boolean fractional) {
+        if (text.length < lineLength + 2) { //к ".5" добавляется ведущий ноль
+            text = new byte[Math.max(text.length * 2, lineLength + 2)];
+        }
+        var i = 0;
+        negative = lineLength > 0 && line[0] == '-';
+        if (lineLength > 0 && (line[0] == '-' || line[0] == '+')) {
+            i++;
+        }
+        length = 0;
+        if (negative) {
+            text[length++] = '-';
+        }
+
+        var digits = 0;
+        integerLength = 0;
+        for (; i < lineLength && line[i] != '.'; i++) {
+            var b = line[i];
+            if (b < '0' || b > '9') {
+                return false;
+            }
+            digits++;
+            if (integerLength > 0 || b != '0') { //ведущие нули пропускаются
+                text[length++] = b;
+                integerLength++;
+            }
+        }
+        if (integerLength == 0) {
+            text[length++] = '0';
+            integerLength = 1;
+        }
+
+        if (i < lineLength) { //дробная часть
+            if (!fractional) {
+                return false;
+            }
+            var point = length;
+            text[length++] = '.';
+            for (i++; i < lineLength; i++) {
+                var b = line[i];
+                if (b < '0' || b > '9') {
+                    return false;
+                }
+                digits++;
+                text[length++] = b;
+            }
+            while (length > point + 1 && text[length - 1] == '0') { //хвостовые нули
+                length--;
+            }
+            if (length == point + 1) {
+                length = point;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (negative && length == 2 && text[1] == '0') { //"-0" и "-0.000"
+            text[0] = '0';
+            length = 1;
+            negative = false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true - строка записана в каноническом виде, приёмник запишет число теми же байтами
+     */
+    public boolean isCanonical(byte[] line, int lineLength) {
+        return Arrays.equals(text, 0, length, line, 0, lineLength);
+    }
+
+    /**
+     * @return байты канонического вида, значимы только первые getLength()
+     */
+    public byte[] getText() {
+        return text;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean isNegative() {
+        return negative;
+    }
+
+    /**
+     * @return DecimalNumber независимая копия числа
+     */
+    public DecimalNumber copy() {
+        var copy = new DecimalNumber();
+        copy.text = Arrays.copyOf(text, Math.max(length, 1));
+        copy.length = length;
+        copy.integerLength = integerLength;
+        copy.negative = negative;
+        return copy;
+    }
+
+    @Override
+    public int compareTo(DecimalNumber other) {
+        if (negative != other.negative) {
+            return negative ? -1 : 1;
+        }
+        var compared = compareMagnitude(other);
+        return negative ? -compared : compared;
+    }
+
+    /**
+     * Сравнение модулей: целые части без ведущих нулей сравниваются по длине, при равной длине
+     * точки стоят на одном месте и остаток сравнивается побайтно
+     */
+    private int compareMagnitude(DecimalNumber other) {
+        if (integerLength != other.integerLength) {
+            return Integer.compare(integerLength, other.integerLength);
+        }
+        var start = negative ? 1 : 0;
+        var otherStart = other.negative ? 1 : 0;
+        var magnitudeLength = length - start;
+        var otherMagnitudeLength = other.length - otherStart;
+        var common = Math.min(magnitudeLength, otherMagnitudeLength);
+        for (int k = 0; k < common; k++) {
+            var compared = Byte.compare(text[start + k], other.text[otherStart + k]);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(magnitudeLength, otherMagnitudeLength); //хвостовых нулей нет, более длинная дробь больше
+    }
+
+    @Override
+    public String toString() {
+        return new String(text, 0, length, StandardCharsets.US_ASCII);
+    }
+}
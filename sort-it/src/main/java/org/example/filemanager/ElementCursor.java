@@ -0,0 +1,13 @@
+package org.example.filemanager;
+
+/**
+ * Курсор по элементам входного файла
+ *
+ * @param <T> тип элементов файла
+ */
+public interface ElementCursor<T> extends InputCursor {
+    /**
+     * @return текущий элемент, ещё не выгруженный в результат
+     */
+    T getElement();
+}
@@ -1,5 +1,6 @@
 package org.example.filemanager;
 
+import java.util.Comparator;
 import java.util.List;
 
 public interface FileManager {
@@ -7,4 +8,26 @@ public interface FileManager {
     void writeOutputFile(String file, List<String> elements);
     List<Integer> getIntElementsFromFile(String file, String sortType);
     List<String> getStringElementsFromFile(String file, String sortType);
+    IntCursor openIntCursor(String file, boolean descending, ReadOptions options);
+    ElementCursor<String> openStringCursor(String file, Comparator<? super String> order, ReadOptions options);
+    ByteLineCursor openByteLineCursor(String file, StringOrder order, boolean descending, ReadOptions options);
+    LongCursor openLongCursor(String file, boolean descending, ReadOptions options);
+    DecimalCursor openDecimalCursor(String file, boolean descending, boolean fractional, ReadOptions options);
+    IntCursor openIntCursor(String file, long start, long end, boolean descending, ReadOptions options);
+    ElementCursor<String> openStringCursor(String file, long start, long end, Comparator<? super String> order,
+                                           ReadOptions options);
+    ByteLineCursor openByteLineCursor(String file, long start, long end, StringOrder order, boolean descending,
+                                      ReadOptions options);
+    LongCursor openLongCursor(String file, long start, long end, boolean descending, ReadOptions options);
+    DecimalCursor openDecimalCursor(String file, long start, long end, boolean descending, boolean fractional,
+                                    ReadOptions options);
+    LineProbe openLineProbe(String file);
+    InputSample sampleInput(String file);
+    InputRange<Integer> scanIntRange(String file, boolean descending);
+    InputRange<String> scanStringRange(String file, Comparator<? super String> order);
+    InputRange<Long> scanLongRange(String file, boolean descending);
+    InputRange<DecimalNumber> scanDecimalRange(String file, boolean descending, boolean fractional);
+    OutputSink openOutputSink(String file, WriteOptions options);
+    BinaryHeader readBinaryHeader(String file);
+    boolean isCompressed(String file);
 }
@@ -1,9 +1,16 @@
 package org.example.filemanager;
 
+import org.example.metrics.FileMetrics;
+
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 
 /**
@@ -12,8 +19,8 @@ import java.util.List;
 public class FileManagerImpl implements FileManager {
 
     private static final String MSG_FILE_NOT_FOUND = "Файл не найден! Путь: %s!%n";
-    private static final String MSG_INVALID_ELEMENT_IN_FILE = "Невалидный элемент: %s в файле: %s!%n";
     private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, writeOutputFile";
+    private static final String GZIP_SUFFIX = ".gz";
     private static final String SORT_TYPE_DESCENDING = "-d";
 
     /**
@@ -59,7 +66,9 @@ public class FileManagerImpl implements FileManager {
             System.out.println(MSG_IO_EXCEPTION);
         }
 
-        return validateInputIntElements(elements, file, sortType);
+        try (var rejections = new RejectionReporter(RejectionReporter.DEFAULT_SAMPLE_LIMIT, null)) {
+            return validateInputIntElements(elements, file, sortType, rejections);
+        }
     }
 
 
@@ -78,7 +87,99 @@ public class FileManagerImpl implements FileManager {
             System.out.println(MSG_IO_EXCEPTION);
         }
 
-        return validateInputStringElements(elements, file, sortType);
+        try (var rejections = new RejectionReporter(RejectionReporter.DEFAULT_SAMPLE_LIMIT, null)) {
+            return validateInputStringElements(elements, file, sortType, rejections);
+        }
+    }
+
+    /**
+     * @param file - входной файл
+     * @return InputSample - строки из начала и конца файла, null - если файл не удалось прочитать
+     */
+    @Override
+    public InputSample sampleInput(String file) {
+        try {
+            if (isCompressed(file)) {
+                try (var input = new GZIPInputStream(Files.newInputStream(Path.of(file)))) {
+                    return new InputSample(input, InputSample.DEFAULT_BLOCK_SIZE);
+                }
+            }
+            return new InputSample(file);
+        } catch (NoSuchFileException e) {
+            System.out.printf(MSG_FILE_NOT_FOUND, file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+        return null;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param descending - порядок сортировки файла
+     * @return InputRange - первый и последний int элемент файла и можно ли его скопировать, null - ошибка чтения
+     */
+    @Override
+    public InputRange<Integer> scanIntRange(String file, boolean descending) {
+        try {
+            return InputRange.scanInt(file, descending);
+        } catch (NoSuchFileException e) {
+            System.out.printf(MSG_FILE_NOT_FOUND, file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+        return null;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param order - порядок сортировки файла
+     * @return InputRange - первая и последняя строка файла и можно ли его скопировать, null - ошибка чтения
+     */
+    @Override
+    public InputRange<String> scanStringRange(String file, Comparator<? super String> order) {
+        try {
+            return InputRange.scanString(file, order);
+        } catch (NoSuchFileException e) {
+            System.out.printf(MSG_FILE_NOT_FOUND, file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+        return null;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param descending - порядок сортировки файла
+     * @return InputRange - первый и последний long элемент файла и можно ли его скопировать, null - ошибка чтения
+     */
+    @Override
+    public InputRange<Long> scanLongRange(String file, boolean descending) {
+        try {
+            return InputRange.scanLong(file, descending);
+        } catch (NoSuchFileException e) {
+            System.out.printf(MSG_FILE_NOT_FOUND, file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+        return null;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param descending - порядок сортировки файла
+     * @param fractional - true - десятичные дроби, иначе только целые числа
+     * @return InputRange - первое и последнее число файла и можно ли его скопировать, null - ошибка чтения
+     */
+    @Override
+    public InputRange<DecimalNumber> scanDecimalRange(String file, boolean descending, boolean fractional) {
+        try {
+            return InputRange.scanDecimal(file, descending, fractional);
+        } catch (NoSuchFileException e) {
+            System.out.printf(MSG_FILE_NOT_FOUND, file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+        return null;
     }
 
     /**
@@ -96,20 +197,255 @@ public class FileManagerImpl implements FileManager {
         }
     }
 
+    /**
+     * Открывает потоковый курсор по Integer данным файла, в отличие от getIntElementsFromFile
+     * файл целиком в память не выгружается, а числа разбираются прямо из байт файла
+     * @param file - входной файл
+     * @param descending - порядок сортировки, на основании его валидируется отсортированность файла
+     * @param options - настройки чтения файла
+     * @return IntCursor курсор, стоящий на первом валидном элементе
+     */
+    @Override
+    public IntCursor openIntCursor(String file, boolean descending, ReadOptions options) {
+        return openIntCursor(file, 0, Long.MAX_VALUE, descending, options);
+    }
+
+    @Override
+    public ElementCursor<String> openStringCursor(String file, Comparator<? super String> order, ReadOptions options) {
+        return openStringCursor(file, 0, Long.MAX_VALUE, order, options);
+    }
+
+    /**
+     * Курсор по String данным файла, который не декодирует строки: сравнение и запись идут по байтам UTF-8
+     * @param file - входной файл
+     * @param order - порядок строк
+     * @param descending - порядок сортировки, на основании его валидируется отсортированность файла
+     * @param options - настройки чтения файла
+     * @return ByteLineCursor курсор, стоящий на первом валидном элементе
+     */
+    @Override
+    public ByteLineCursor openByteLineCursor(String file, StringOrder order, boolean descending, ReadOptions options) {
+        return openByteLineCursor(file, 0, Long.MAX_VALUE, order, descending, options);
+    }
+
+    /**
+     * Курсор по Long данным файла, числа разбираются прямо из байт, как в openIntCursor
+     * @param file - входной файл
+     * @param descending - порядок сортировки, на основании его валидируется отсортированность файла
+     * @param options - настройки чтения файла
+     * @return LongCursor курсор, стоящий на первом валидном элементе
+     */
+    @Override
+    public LongCursor openLongCursor(String file, boolean descending, ReadOptions options) {
+        return openLongCursor(file, 0, Long.MAX_VALUE, descending, options);
+    }
+
+    /**
+     * Курсор по числам произвольной точности, числа хранятся и сравниваются в каноническом виде
+     * @param file - входной файл
+     * @param descending - порядок сортировки, на основании его валидируется отсортированность файла
+     * @param fractional - true - десятичные дроби, иначе только целые числа
+     * @param options - настройки чтения файла
+     * @return DecimalCursor курсор, стоящий на первом валидном элементе
+     */
+    @Override
+    public DecimalCursor openDecimalCursor(String file, boolean descending, boolean fractional, ReadOptions options) {
+        return openDecimalCursor(file, 0, Long.MAX_VALUE, descending, fractional, options);
+    }
+
+    /**
+     * Курсор только по части файла [start, end), границы должны стоять на началах строк
+     * @param file - входной файл
+     * @param start - смещение начала части
+     * @param end - смещение конца части (не включительно), Long.MAX_VALUE - до конца файла
+     * @param descending - порядок сортировки, на основании его валидируется отсортированность части
+     * @param options - настройки чтения файла
+     * @return IntCursor курсор, стоящий на первом валидном элементе части
+     */
+    @Override
+    public IntCursor openIntCursor(String file, long start, long end, boolean descending, ReadOptions options) {
+        if (options.isBinary(file)) {
+            var header = binaryHeaderOrEmpty(file);
+            var recordStart = binaryRecordStart(header, start);
+            return new BinaryIntCursor(file, openBlockReader(file, recordStart, end, options), header,
+                    recordStart - start, descending, options.isOrderValidated(), fileMetrics(file, options),
+                    options.getRejections());
+        }
+        return new IntBlockCursor(file, openBlockReader(file, start, end, options), descending,
+                options.isOrderValidated(), fileMetrics(file, options), options.getRejections());
+    }
+
+    @Override
+    public ElementCursor<String> openStringCursor(String file, long start, long end, Comparator<? super String> order,
+                                                  ReadOptions options) {
+        return new StringBlockCursor(file, openBlockReader(file, start, end, options),
+                options.isOrderValidated() ? order : null, fileMetrics(file, options),
+                options.getRejections());
+    }
+
+    @Override
+    public ByteLineCursor openByteLineCursor(String file, long start, long end, StringOrder order, boolean descending,
+                                             ReadOptions options) {
+        return new ByteLineBlockCursor(file, openBlockReader(file, start, end, options), order, descending,
+                options.isOrderValidated(), fileMetrics(file, options), options.getRejections());
+    }
+
+    @Override
+    public LongCursor openLongCursor(String file, long start, long end, boolean descending, ReadOptions options) {
+        if (options.isBinary(file)) {
+            var header = binaryHeaderOrEmpty(file);
+            var recordStart = binaryRecordStart(header, start);
+            return new BinaryLongCursor(file, openBlockReader(file, recordStart, end, options), header,
+                    recordStart - start, descending, options.isOrderValidated(), fileMetrics(file, options),
+                    options.getRejections());
+        }
+        return new LongBlockCursor(file, openBlockReader(file, start, end, options), descending,
+                options.isOrderValidated(), fileMetrics(file, options), options.getRejections());
+    }
+
+    @Override
+    public DecimalCursor openDecimalCursor(String file, long start, long end, boolean descending, boolean fractional,
+                                           ReadOptions options) {
+        return new DecimalBlockCursor(file, openBlockReader(file, start, end, options), descending,
+                options.isOrderValidated(), fractional, fileMetrics(file, options), options.getRejections());
+    }
+
+    /**
+     * @param file - входной файл
+     * @return LineProbe - чтение отдельных строк файла по смещению, null - если файл не удалось открыть
+     */
+    @Override
+    public LineProbe openLineProbe(String file) {
+        try {
+            return new LineProbe(file);
+        } catch (NoSuchFileException e) {
+            System.out.printf(MSG_FILE_NOT_FOUND, file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+        return null;
+    }
+
+    /**
+     * @param outputFile - выходной файл
+     * @param options - размер буфера записи и нужен ли fsync в конце
+     * @return OutputSink - приёмник, в который элементы пишутся по одному во время слияния.
+     *         Файл *.gz сжимается с уровнем options.getCompressionLevel(). С --unique, --limit и --count-only
+     *         элементы проходят через FilteringOutputSink, с --count-only выходной файл не открывается
+     */
+    @Override
+    public OutputSink openOutputSink(String outputFile, WriteOptions options) {
+        if (options.isFiltered()) {
+            var sink = options.isCountOnly() ? null
+                    : openOutputSink(outputFile, options.withUnique(false).withLimit(-1));
+            return new FilteringOutputSink(sink, options);
+        }
+        if (options.getBinaryHeader() != null) {
+            return new BinaryOutputSink(outputFile, options);
+        }
+        return new ChannelOutputSink(outputFile, options, isCompressed(outputFile));
+    }
+
+    /**
+     * Сжатые файлы определяются по расширению, как у gzip
+     * @param file - входной или выходной файл
+     * @return true - файл в формате gzip: читается с распаковкой, пишется со сжатием
+     */
+    @Override
+    public boolean isCompressed(String file) {
+        return file.endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * @param file - входной файл
+     * @return BinaryHeader заголовок двоичного файла, null - файл текстовый или его не удалось прочитать
+     */
+    @Override
+    public BinaryHeader readBinaryHeader(String file) {
+        try {
+            return BinaryHeader.read(file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            return null;
+        }
+    }
+
+    /**
+     * Заголовок для курсора по двоичному файлу: если файл перестал читаться, курсор по нему будет пустым
+     */
+    private BinaryHeader binaryHeaderOrEmpty(String file) {
+        var header = readBinaryHeader(file);
+        return header != null ? header : new BinaryHeader(BinaryHeader.TYPE_INT, false, false, 0);
+    }
+
+    /**
+     * @return long смещение первой записи двоичного файла не раньше start: записи идут после заголовка
+     *         с шагом в длину записи
+     */
+    private static long binaryRecordStart(BinaryHeader header, long start) {
+        if (start <= BinaryHeader.LENGTH) {
+            return BinaryHeader.LENGTH;
+        }
+        var recordSize = header.getRecordSize();
+        return BinaryHeader.LENGTH + (start - BinaryHeader.LENGTH + recordSize - 1) / recordSize * recordSize;
+    }
+
+    private static FileMetrics fileMetrics(String file, ReadOptions options) {
+        return options.getMetrics() != null ? options.getMetrics().file(file) : null;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param start - смещение начала читаемой части файла
+     * @param end - смещение конца части (не включительно), Long.MAX_VALUE - до конца файла
+     * @param options - настройки чтения: отображение в память или чтение через канал, с конца, чтение заранее
+     * @return BlockReader - источник байт файла, null - если файл не удалось открыть
+     */
+    private BlockReader openBlockReader(String file, long start, long end, ReadOptions options) {
+        try {
+            BlockReader reader;
+            if (isCompressed(file)) { //распаковка всегда в потоке предвыборки, чтобы не тормозить слияние
+                reader = new GzipBlockReader(file, start, end, GzipBlockReader.DEFAULT_BUFFER_SIZE);
+                return new PrefetchingBlockReader(file, reader,
+                        GzipBlockReader.DEFAULT_BUFFER_SIZE, PrefetchingBlockReader.DEFAULT_DEPTH);
+            }
+            if (options.isReversed(file)) { //файл читается только целиком, start и end не используются
+                reader = new ReverseBlockReader(file, ReverseBlockReader.DEFAULT_BUFFER_SIZE);
+            } else if (options.isMapped()) {
+                reader = new MappedBlockReader(file, start, end, MappedBlockReader.DEFAULT_WINDOW_SIZE);
+            } else {
+                reader = new ChannelBlockReader(file, start, end, ChannelBlockReader.DEFAULT_BUFFER_SIZE);
+            }
+            if (options.isPrefetched()) {
+                reader = new PrefetchingBlockReader(file, reader,
+                        PrefetchingBlockReader.DEFAULT_BLOCK_SIZE, PrefetchingBlockReader.DEFAULT_DEPTH);
+            }
+            return reader;
+        } catch (NoSuchFileException e) {
+            System.out.printf(MSG_FILE_NOT_FOUND, file);
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+        return null;
+    }
+
     /**
      * Метод валидирует входные данные из файла, проверяется, являются ли элементы Integer
      * Также проверяется, отсортированы ли входные данные
      *
      * @param elements - элементы из файла
      * @param fileName - название файла
+     * @param rejections - куда сообщать о невалидных элементах
      * @return - List<Integer> возвращает валидированные данные, всё, что не прошло валидацию, не входит в результирующий массив
      */
-    private List<Integer> validateInputIntElements(List<String> elements, String fileName, String sortType) {
+    private List<Integer> validateInputIntElements(List<String> elements, String fileName, String sortType,
+                                                   RejectionReporter rejections) {
         if (elements.isEmpty()) {
             return Collections.emptyList();
         }
 
         var resultElement = new ArrayList<Integer>();
+        var fileRejections = rejections.forFile(fileName);
         Integer previousElement = null;
         Integer currentElement;
 
@@ -118,7 +454,7 @@ public class FileManagerImpl implements FileManager {
             try {
                 currentElement = Integer.parseInt(element);
             } catch (NumberFormatException e) {
-                System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, element, fileName);
+                fileRejections.reject(element);
                 continue;
             }
             if (previousElement == null) {
@@ -128,12 +464,12 @@ public class FileManagerImpl implements FileManager {
             } else {
                 if (sortType.equals(SORT_TYPE_DESCENDING)) { // при типе сортировки "-d"
                     if (previousElement < currentElement) { //если предыдущий элемент < текущего, тогда он лишний и значит удаляется
-                        System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, currentElement, fileName);
+                        fileRejections.reject(String.valueOf(currentElement));
                         continue;
                     }
                 } else { // при типе сортировки "-a"
                     if (previousElement > currentElement) { //если предыдущий элемент > текущего, тогда он лишний и значит удаляется
-                        System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, currentElement, fileName);
+                        fileRejections.reject(String.valueOf(currentElement));
                         continue;
                     }
                 }
@@ -144,19 +480,21 @@ public class FileManagerImpl implements FileManager {
         return resultElement;
     }
 
-    private List<String> validateInputStringElements(List<String> elements, String fileName, String sortType) {
+    private List<String> validateInputStringElements(List<String> elements, String fileName, String sortType,
+                                                     RejectionReporter rejections) {
         if (elements.isEmpty()) {
             return Collections.emptyList();
         }
 
         var resultElement = new ArrayList<String>();
+        var fileRejections = rejections.forFile(fileName);
         String previousElement = null;
         String currentElement;
 
 
         for (String element : elements) {
             if (element.contains(" ")) {
-                System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, element, fileName);
+                fileRejections.reject(element);
                 continue;
             }
 
@@ -168,12 +506,12 @@ public class FileManagerImpl implements FileManager {
             } else {
                 if (sortType.equals(SORT_TYPE_DESCENDING)) { // при типе сортировки "-d"
                     if (previousElement.length() < currentElement.length()) { //если предыдущий элемент < текущего, тогда он лишний и значит удаляется
-                        System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, currentElement, fileName);
+                        fileRejections.reject(String.valueOf(currentElement));
                         continue;
                     }
                 } else { // при типе сортировки "-a"
                     if (previousElement.length() > currentElement.length()) { //если предыдущий элемент > текущего, тогда он лишний и значит удаляется
-                        System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, currentElement, fileName);
+                        fileRejections.reject(String.valueOf(currentElement));
                         continue;
                     }
                 }
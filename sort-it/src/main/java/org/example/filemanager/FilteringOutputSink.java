@@ -0,0 +1,163 @@
+package org.example.filemanager;
+
+import org.example.metrics.RunMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Приёмник, который пропускает в результат не все элементы: без повторов подряд (--unique), только первые
+ * limit элементов (--limit), или ничего не пишет и только считает (--count-only).
+ * Когда limit набран, isFull сообщает слиянию, что дальше читать входные файлы незачем.
+ * Повтором считается элемент, равный предыдущему записанному целиком (байт в байт, число - по значению)
+ */
+public class FilteringOutputSink implements OutputSink {
+
+    private static final int NO_PREVIOUS = 0;
+    private static final int PREVIOUS_NUMBER = 1;
+    private static final int PREVIOUS_BYTES = 2;
+    private static final int PREVIOUS_STRING = 3;
+
+    private final OutputSink sink;
+    private final boolean unique;
+    private final long limit;
+    private final RunMetrics metrics;
+    private long count;
+    private int previousKind = NO_PREVIOUS;
+    private long previousNumber;
+    private byte[] previousBytes = new byte[64];
+    private int previousLength;
+    private String previousString;
+
+    /**
+     * @param sink - приёмник результата, null - элементы только считаются
+     * @param options - убирать ли повторы и сколько элементов пропустить, -1 - все
+     */
+    public FilteringOutputSink(OutputSink sink, WriteOptions options) {
+        this.sink = sink;
+        this.unique = options.isUnique();
+        this.limit = options.getLimit();
+        this.metrics = sink == null ? options.getMetrics() : null; //записанное считает сам приёмник результата
+    }
+
+    @Override
+    public void write(String element) {
+        if (isFull() || (unique && previousKind == PREVIOUS_STRING && element.equals(previousString))) {
+            return;
+        }
+        previousKind = PREVIOUS_STRING;
+        previousString = element;
+        count++;
+        if (sink != null) {
+            sink.write(element);
+        }
+    }
+
+    @Override
+    public void writeInt(int element) {
+        if (isFull() || isRepeated(element)) {
+            return;
+        }
+        count++;
+        if (sink != null) {
+            sink.writeInt(element);
+        }
+    }
+
+    @Override
+    public void writeLong(long element) {
+        if (isFull() || isRepeated(element)) {
+            return;
+        }
+        count++;
+        if (sink != null) {
+            sink.writeLong(element);
+        }
+    }
+
+    private boolean isRepeated(long element) {
+        if (!unique) {
+            return false;
+        }
+        if (previousKind == PREVIOUS_NUMBER && element == previousNumber) {
+            return true;
+        }
+        previousKind = PREVIOUS_NUMBER;
+        previousNumber = element;
+        return false;
+    }
+
+    /**
+     * Байты элемента живут только до сдвига курсора, поэтому для сравнения они копируются
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        if (isFull()) {
+            return;
+        }
+        if (unique) {
+            if (previousKind == PREVIOUS_BYTES
+                    && Arrays.equals(bytes, offset, offset + length, previousBytes, 0, previousLength)) {
+                return;
+            }
+            if (previousBytes.length < length) {
+                previousBytes = new byte[Math.max(length, 2 * previousBytes.length)];
+            }
+            System.arraycopy(bytes, offset, previousBytes, 0, length);
+            previousLength = length;
+            previousKind = PREVIOUS_BYTES;
+        }
+        count++;
+        if (sink != null) {
+            sink.writeBytes(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Готовый файл не копируется целиком: его строки проходят через фильтр по одной, пока limit не набран
+     */
+    @Override
+    public void writeFile(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while (!isFull() && (line = reader.readLine()) != null) {
+                write(line);
+            }
+        }
+    }
+
+    @Override
+    public boolean isFull() {
+        return limit >= 0 && count >= limit;
+    }
+
+    @Override
+    public boolean isSelective() {
+        return true;
+    }
+
+    @Override
+    public boolean isFailed() {
+        return sink != null && sink.isFailed();
+    }
+
+    /**
+     * @return long сколько элементов прошло фильтр
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if (sink != null) {
+            sink.close();
+        } else if (metrics != null) {
+            metrics.addWrite(count, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Читает сжатый gzip файл блоками уже распакованных байт, так что курсоры разбирают его так же,
+ * как обычный файл. Несколько подряд записанных членов gzip читаются как один поток.
+ * Смещения start и end считаются в распакованных байтах: начало части распаковывается и пропускается.
+ * FileManagerImpl всегда читает такой файл через PrefetchingBlockReader, и распаковка идёт в потоке
+ * предвыборки, а не в потоке слияния
+ */
+public class GzipBlockReader implements BlockReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, readInputFile";
+
+    private final InputStream input;
+    private final ByteBuffer buffer;
+    private long remaining; //сколько распакованных байт ещё отдать, до end
+
+    /**
+     * @param file - сжатый входной файл
+     * @param start - смещение начала читаемой части в распакованных байтах
+     * @param end - смещение конца части (не включительно), Long.MAX_VALUE - до конца файла
+     * @param bufferSize - размер блока распакованных байт
+     */
+    public GzipBlockReader(String file, long start, long end, int bufferSize) throws IOException {
+        this.input = new GZIPInputStream(Files.newInputStream(Path.of(file)), INPUT_BUFFER_SIZE);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.remaining = end == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, end - start);
+        try {
+            skip(start);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void skip(long count) throws IOException {
+        while (count > 0) {
+            var skipped = input.skip(count);
+            if (skipped <= 0) { //skip не обязан различать конец файла и паузу
+                if (input.read() < 0) {
+                    return;
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    @Override
+    public ByteBuffer read() throws IOException {
+        buffer.clear();
+        if (remaining < buffer.capacity()) {
+            buffer.limit((int) remaining);
+        }
+        var array = buffer.array();
+        while (buffer.hasRemaining()) { //блок заполняется целиком: распаковщик отдаёт байты мелкими порциями
+            var count = input.read(array, buffer.position(), buffer.remaining());
+            if (count < 0) {
+                break;
+            }
+            buffer.position(buffer.position() + count);
+        }
+        if (buffer.position() == 0) {
+            return null;
+        }
+        remaining -= buffer.position();
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Канал, который сжимает записанные байты в gzip и пишет их в файл. Сжатие идёт в отдельном потоке:
+ * write только копирует байты в свободный буфер из небольшого пула и ставит его в очередь, как
+ * PrefetchingBlockReader, только в обратную сторону, так что слияние не ждёт сжатия, пока поток успевает.
+ *
+ * finishMember завершает текущий член gzip (трейлер с CRC32 и длиной), следующий write начнёт новый.
+ * Файл из нескольких членов gzip - тоже корректный gzip, поэтому на границе члена можно сделать
+ * контрольную точку: файл, обрезанный по ней, распаковывается целиком
+ */
+public class GzipChannel implements WritableByteChannel {
+
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+    public static final int DEFAULT_DEPTH = 2;
+    private static final String THREAD_NAME = "sort-it-gzip";
+    private static final ByteBuffer FINISH_MEMBER = ByteBuffer.allocate(0);
+    private static final byte[] MEMBER_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final FileChannel target;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer compressed;
+    private final BlockingQueue<ByteBuffer> freeBlocks;
+    private final BlockingQueue<ByteBuffer> filledBlocks;
+    private final Semaphore memberFinished = new Semaphore(0);
+    private final Thread compressor;
+    private volatile IOException failure;
+    private boolean open = true;
+    //состояние потока сжатия
+    private boolean memberStarted;
+    private int memberLength; //длина члена по модулю 2^32, как в трейлере gzip
+
+    /**
+     * @param target - файл, в который пишется сжатый поток, с его текущей позиции
+     * @param level - уровень сжатия 0-9, Deflater.DEFAULT_COMPRESSION - по умолчанию (6)
+     */
+    public GzipChannel(FileChannel target, int level) {
+        this(target, level, DEFAULT_BLOCK_SIZE, DEFAULT_DEPTH);
+    }
+
+    /**
+     * @param blockSize - размер буфера несжатых байт
+     * @param depth - сколько заполненных буферов может ждать сжатия
+     */
+    public GzipChannel(FileChannel target, int level, int blockSize, int depth) {
+        this.target = target;
+        this.deflater = new Deflater(level, true);
+        this.compressed = ByteBuffer.allocate(blockSize);
+        this.freeBlocks = new ArrayBlockingQueue<>(depth + 1);
+        this.filledBlocks = new ArrayBlockingQueue<>(depth + 2); //+1 место под FINISH_MEMBER
+        for (int i = 0; i <= depth; i++) {
+            freeBlocks.add(ByteBuffer.allocate(blockSize));
+        }
+        this.compressor = new Thread(this::compress, THREAD_NAME);
+        compressor.setDaemon(true);
+        compressor.start();
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        checkFailure();
+        var length = source.remaining();
+        try {
+            while (source.hasRemaining()) {
+                var block = freeBlocks.take();
+                block.clear();
+                var part = source.duplicate();
+                part.limit(part.position() + Math.min(block.remaining(), source.remaining()));
+                block.put(part);
+                source.position(part.position());
+                filledBlocks.add(block.flip());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        return length;
+    }
+
+    /**
+     * Дожидается сжатия всего записанного и завершает член gzip
+     * @throws IOException - сжатый поток не удалось записать
+     */
+    public void finishMember() throws IOException {
+        filledBlocks.add(FINISH_MEMBER);
+        try {
+            memberFinished.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Цикл потока сжатия. После ошибки записи буферы только возвращаются в пул, ошибку получит писатель
+     */
+    private void compress() {
+        try {
+            while (true) {
+                var block = filledBlocks.take();
+                if (block == FINISH_MEMBER) {
+                    if (failure == null) {
+                        finish();
+                    }
+                    memberFinished.release();
+                    continue;
+                }
+                if (failure == null) {
+                    deflate(block);
+                }
+                freeBlocks.add(block);
+            }
+        } catch (InterruptedException e) { //канал закрыт
+            deflater.end();
+        }
+    }
+
+    private void deflate(ByteBuffer block) {
+        try {
+            if (!memberStarted) {
+                startMember();
+            }
+            var array = block.array();
+            crc.update(array, block.position(), block.remaining());
+            memberLength += block.remaining();
+            deflater.setInput(array, block.position(), block.remaining());
+            while (!deflater.needsInput()) {
+                writeCompressed(deflater.deflate(compressed.array()));
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void startMember() throws IOException {
+        deflater.reset();
+        crc.reset();
+        memberLength = 0;
+        writeFully(ByteBuffer.wrap(MEMBER_HEADER));
+        memberStarted = true;
+    }
+
+    /**
+     * Дописывает остаток сжатых данных и трейлер: CRC32 и длина в little-endian.
+     * Пустой член тоже пишется, чтобы даже пустой результат был корректным gzip
+     */
+    private void finish() {
+        try {
+            if (!memberStarted) {
+                startMember();
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeCompressed(deflater.deflate(compressed.array()));
+            }
+            var trailer = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue()).putInt(memberLength);
+            writeFully(trailer.flip());
+            memberStarted = false;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void writeCompressed(int length) throws IOException {
+        compressed.clear().limit(length);
+        writeFully(compressed);
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            target.write(bytes);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Завершает последний член gzip и останавливает поток сжатия. Файл закрывает владелец
+     * @throws IOException - сжатый поток не удалось дописать
+     */
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            finishMember();
+        } finally {
+            compressor.interrupt();
+        }
+    }
+}
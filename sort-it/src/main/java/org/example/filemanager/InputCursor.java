@@ -0,0 +1,35 @@
+package org.example.filemanager;
+
+import java.io.Closeable;
+
+/**
+ * Курсор по элементам входного файла.
+ * Файл читается последовательно, в памяти держится только текущий (головной) элемент
+ */
+public interface InputCursor extends Closeable {
+    /**
+     * @return true - в файле остался хотя бы один валидный элемент
+     */
+    boolean hasElement();
+
+    /**
+     * Переходит к следующему валидному элементу файла
+     */
+    void next();
+
+    /**
+     * @return смещение начала строки текущего элемента от начала читаемой части файла:
+     *         курсор, открытый с этого смещения, начнёт с того же элемента. -1 - курсор смещения не считает
+     */
+    default long getElementOffset() {
+        return -1;
+    }
+
+    /**
+     * @return путь к файлу, по которому идёт курсор
+     */
+    String getFile();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,425 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+
+/**
+ * Результат одного прохода по отсортированному входному файлу без записи и без сообщений:
+ * первый и последний элемент, которые примет курсор, их количество и можно ли скопировать файл
+ * в результат байт в байт. Файл копируется, только если курсор и приёмник дали бы те же байты:
+ * нет невалидных элементов и нарушений порядка, строки заканчиваются '\n' (и последняя тоже),
+ * числа записаны без '+' и ведущих нулей (дроби - и без хвостовых нулей), строки - корректный UTF-8
+ * @param <T> - тип элементов
+ */
+public class InputRange<T> {
+
+    private final String file;
+    private final LineParser<T> parser;
+    private T first;
+    private T last;
+    private long elements;
+    private long size;
+    private boolean copyable = true;
+
+    private InputRange(String file, LineParser<T> parser) {
+        this.file = file;
+        this.parser = parser;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param descending - порядок сортировки файла
+     * @return InputRange диапазон int элементов файла
+     */
+    public static InputRange<Integer> scanInt(String file, boolean descending) throws IOException {
+        var range = new InputRange<Integer>(file, new IntParser(descending));
+        range.scan();
+        return range;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param descending - порядок сортировки файла
+     * @return InputRange диапазон long элементов файла
+     */
+    public static InputRange<Long> scanLong(String file, boolean descending) throws IOException {
+        var range = new InputRange<Long>(file, new LongParser(descending));
+        range.scan();
+        return range;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param descending - порядок сортировки файла
+     * @param fractional - true - десятичные дроби, иначе только целые числа
+     * @return InputRange диапазон чисел произвольной точности
+     */
+    public static InputRange<DecimalNumber> scanDecimal(String file, boolean descending, boolean fractional)
+            throws IOException {
+        var range = new InputRange<DecimalNumber>(file, new DecimalParser(descending, fractional));
+        range.scan();
+        return range;
+    }
+
+    /**
+     * @param file - входной файл
+     * @param order - порядок сортировки файла
+     * @return InputRange диапазон строк файла
+     */
+    public static InputRange<String> scanString(String file, Comparator<? super String> order) throws IOException {
+        var range = new InputRange<String>(file, new StringParser(order));
+        range.scan();
+        return range;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @return первый принятый элемент, null - файл без валидных элементов
+     */
+    public T getFirst() {
+        return first;
+    }
+
+    /**
+     * @return последний принятый элемент, он же максимальный в порядке сортировки
+     */
+    public T getLast() {
+        return last;
+    }
+
+    public long getElements() {
+        return elements;
+    }
+
+    /**
+     * @return размер файла в байтах
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return true - файл можно дописать в результат как есть, вместо разбора и слияния
+     */
+    public boolean isCopyable() {
+        return copyable;
+    }
+
+    /**
+     * Разбирает строки тем же LineBlockCursor, что и курсоры слияния: \n, \r\n и одиночный \r,
+     * последняя строка может быть без перевода строки. Строка, которая кончается не '\n', не копируется:
+     * приёмник записал бы '\n'
+     */
+    private void scan() throws IOException {
+        var scanner = new Scanner(new ChannelBlockReader(file));
+        try {
+            scanner.next(); //acceptLine не останавливает курсор, так что next проходит весь файл
+        } finally {
+            scanner.close();
+        }
+        if (scanner.failure != null) {
+            throw scanner.failure;
+        }
+        size = scanner.getReadBytes();
+        if (elements > 0) {
+            last = parser.getAccepted();
+        }
+    }
+
+    private void acceptLine(byte[] line, int length, boolean newLine) {
+        if (!parser.parse(line, length) || !parser.isInOrder()) { //элемент курсор бы отбросил
+            copyable = false;
+            return;
+        }
+        if (!newLine || !parser.isCanonical()) {
+            copyable = false;
+        }
+        parser.accept();
+        if (elements == 0) {
+            first = parser.getAccepted();
+        }
+        elements++;
+    }
+
+    /**
+     * Проход по строкам файла без метрик и сообщений: каждая строка отдаётся в acceptLine диапазона
+     */
+    private class Scanner extends LineBlockCursor {
+        private final ByteLine line = new ByteLine();
+        private IOException failure;
+
+        private Scanner(BlockReader reader) {
+            super(file, reader, null, null);
+        }
+
+        @Override
+        protected void appendLine(ByteBuffer block, int from, int to) {
+            line.append(block, from, to - from);
+        }
+
+        @Override
+        protected boolean acceptLine(boolean hasPreviousElement) {
+            InputRange.this.acceptLine(line.bytes, line.length, isLineFeedTerminated());
+            line.clear();
+            return false;
+        }
+
+        @Override
+        protected void readFailed(IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Разбор строк файла в элементы. Последний принятый элемент хранится в разборщике,
+     * чтобы числа не упаковывались в объекты на каждой строке
+     */
+    private interface LineParser<T> {
+        /**
+         * @return false - строка невалидна
+         */
+        boolean parse(byte[] line, int length);
+
+        /**
+         * @return true - разобранный элемент не нарушает порядок после последнего принятого
+         */
+        boolean isInOrder();
+
+        /**
+         * @return true - приёмник запишет разобранный элемент теми же байтами, что и в файле
+         */
+        boolean isCanonical();
+
+        /**
+         * Разобранный элемент становится последним принятым
+         */
+        void accept();
+
+        T getAccepted();
+    }
+
+    /**
+     * Разбор int по правилам IntBlockCursor: необязательный знак и хотя бы одна цифра, без переполнения
+     */
+    private static class IntParser implements LineParser<Integer> {
+        private final boolean descending;
+        private int current;
+        private int accepted;
+        private boolean hasAccepted;
+        private boolean canonical;
+
+        private IntParser(boolean descending) {
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean parse(byte[] line, int length) {
+            var negative = length > 0 && line[0] == '-';
+            var start = length > 0 && (line[0] == '-' || line[0] == '+') ? 1 : 0;
+            if (start == length) {
+                return false;
+            }
+            var limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+            var value = 0;
+            for (int i = start; i < length; i++) {
+                var digit = line[i] - '0';
+                if (digit < 0 || digit > 9 || value < limit / 10 || value * 10 < limit + digit) {
+                    return false;
+                }
+                value = value * 10 - digit;
+            }
+            current = negative ? value : -value;
+            canonical = line[0] != '+' && (line[start] != '0' || length == 1); //без "+1", "007", "-0"
+            return true;
+        }
+
+        @Override
+        public boolean isInOrder() {
+            return !hasAccepted || (descending ? accepted >= current : accepted <= current);
+        }
+
+        @Override
+        public boolean isCanonical() {
+            return canonical;
+        }
+
+        @Override
+        public void accept() {
+            accepted = current;
+            hasAccepted = true;
+        }
+
+        @Override
+        public Integer getAccepted() {
+            return accepted;
+        }
+    }
+
+    /**
+     * Разбор long по правилам LongBlockCursor
+     */
+    private static class LongParser implements LineParser<Long> {
+        private final boolean descending;
+        private long current;
+        private long accepted;
+        private boolean hasAccepted;
+        private boolean canonical;
+
+        private LongParser(boolean descending) {
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean parse(byte[] line, int length) {
+            var negative = length > 0 && line[0] == '-';
+            var start = length > 0 && (line[0] == '-' || line[0] == '+') ? 1 : 0;
+            if (start == length) {
+                return false;
+            }
+            var limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            var value = 0L;
+            for (int i = start; i < length; i++) {
+                var digit = line[i] - '0';
+                if (digit < 0 || digit > 9 || value < limit / 10 || value * 10 < limit + digit) {
+                    return false;
+                }
+                value = value * 10 - digit;
+            }
+            current = negative ? value : -value;
+            canonical = line[0] != '+' && (line[start] != '0' || length == 1);
+            return true;
+        }
+
+        @Override
+        public boolean isInOrder() {
+            return !hasAccepted || (descending ? accepted >= current : accepted <= current);
+        }
+
+        @Override
+        public boolean isCanonical() {
+            return canonical;
+        }
+
+        @Override
+        public void accept() {
+            accepted = current;
+            hasAccepted = true;
+        }
+
+        @Override
+        public Long getAccepted() {
+            return accepted;
+        }
+    }
+
+    /**
+     * Разбор чисел произвольной точности по правилам DecimalBlockCursor, два DecimalNumber меняются местами,
+     * наружу отдаётся копия
+     */
+    private static class DecimalParser implements LineParser<DecimalNumber> {
+        private final boolean descending;
+        private final boolean fractional;
+        private DecimalNumber current = new DecimalNumber();
+        private DecimalNumber accepted = new DecimalNumber();
+        private boolean hasAccepted;
+        private boolean canonical;
+
+        private DecimalParser(boolean descending, boolean fractional) {
+            this.descending = descending;
+            this.fractional = fractional;
+        }
+
+        @Override
+        public boolean parse(byte[] line, int length) {
+            if (!current.parse(line, length, fractional)) {
+                return false;
+            }
+            canonical = current.isCanonical(line, length);
+            return true;
+        }
+
+        @Override
+        public boolean isInOrder() {
+            if (!hasAccepted) {
+                return true;
+            }
+            var compared = accepted.compareTo(current);
+            return descending ? compared >= 0 : compared <= 0;
+        }
+
+        @Override
+        public boolean isCanonical() {
+            return canonical;
+        }
+
+        @Override
+        public void accept() {
+            var previous = accepted;
+            accepted = current;
+            current = previous;
+            hasAccepted = true;
+        }
+
+        @Override
+        public DecimalNumber getAccepted() {
+            return accepted.copy();
+        }
+    }
+
+    /**
+     * Строка без пробелов, декодируется из UTF-8 так же, как в StringBlockCursor
+     */
+    private static class StringParser implements LineParser<String> {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private final Comparator<? super String> order;
+        private String current;
+        private String accepted;
+        private boolean canonical;
+
+        private StringParser(Comparator<? super String> order) {
+            this.order = order;
+        }
+
+        @Override
+        public boolean parse(byte[] line, int length) {
+            try {
+                current = decoder.decode(ByteBuffer.wrap(line, 0, length)).toString();
+                canonical = true;
+            } catch (CharacterCodingException e) { //приёмник записал бы замену, а не исходные байты
+                current = new String(line, 0, length, StandardCharsets.UTF_8);
+                canonical = false;
+            }
+            return !current.contains(" ");
+        }
+
+        @Override
+        public boolean isInOrder() {
+            return accepted == null || order.compare(accepted, current) <= 0;
+        }
+
+        @Override
+        public boolean isCanonical() {
+            return canonical;
+        }
+
+        @Override
+        public void accept() {
+            accepted = current;
+        }
+
+        @Override
+        public String getAccepted() {
+            return accepted;
+        }
+    }
+}
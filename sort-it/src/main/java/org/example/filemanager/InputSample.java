@@ -0,0 +1,292 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Строки из начала и конца входного файла, по ним без полного чтения файла определяется,
+ * числа в файле или строки и в каком порядке он отсортирован.
+ * Читаются только два блока: первый и последний, неполные строки на краях блоков отбрасываются
+ */
+public class InputSample {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    private static final double MAX_INVALID_SHARE = 0.1; //столько невалидных строк допускается в числовом файле
+
+    private final List<String> head;
+    private final List<String> tail;
+
+    public InputSample(String file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param file - входной файл
+     * @param blockSize - сколько байт прочитать с начала и с конца файла
+     */
+    public InputSample(String file, int blockSize) throws IOException {
+        try (var channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size <= 2L * blockSize) { //файл читается целиком, конец - вторая половина строк
+                var lines = splitLines(readBlock(channel, 0, (int) size), true, true);
+                head = new ArrayList<>(lines.subList(0, (lines.size() + 1) / 2));
+                tail = new ArrayList<>(lines.subList((lines.size() + 1) / 2, lines.size()));
+            } else {
+                head = splitLines(readBlock(channel, 0, blockSize), true, false);
+                tail = splitLines(readBlock(channel, size - blockSize, blockSize), false, true);
+            }
+        }
+    }
+
+    /**
+     * Выборка из потока, который нельзя читать с конца (например, распакованного gzip): читается только
+     * начало, 2 * blockSize байт, а если поток не длиннее - он целиком, как небольшой файл
+     * @param input - поток байт входного файла
+     * @param blockSize - половина прочитанного начала потока
+     */
+    public InputSample(InputStream input, int blockSize) throws IOException {
+        var block = input.readNBytes(2 * blockSize + 1);
+        if (block.length <= 2 * blockSize) {
+            var lines = splitLines(block, true, true);
+            head = new ArrayList<>(lines.subList(0, (lines.size() + 1) / 2));
+            tail = new ArrayList<>(lines.subList((lines.size() + 1) / 2, lines.size()));
+        } else {
+            head = splitLines(Arrays.copyOf(block, 2 * blockSize), true, false);
+            tail = new ArrayList<>();
+        }
+    }
+
+    /**
+     * @return true - в выборке нет ни одной строки
+     */
+    public boolean isEmpty() {
+        return head.isEmpty() && tail.isEmpty();
+    }
+
+    /**
+     * @return true - почти все строки выборки (кроме MAX_INVALID_SHARE) являются int
+     */
+    public boolean isNumeric() {
+        var total = head.size() + tail.size();
+        if (total == 0) {
+            return false;
+        }
+        var invalid = 0;
+        for (String line : lines()) {
+            if (parseInt(line) == null) {
+                invalid++;
+            }
+        }
+        return invalid <= total * MAX_INVALID_SHARE;
+    }
+
+    /**
+     * Порядок определяется по соседним строкам в начале и в конце файла, а если они все равны -
+     * по первой и последней строке выборки. Невалидные строки пропускаются
+     * @param numeric - ключ строки: число или длина строки
+     * @return int больше 0 - файл по возрастанию, меньше 0 - по убыванию, 0 - порядок не определить
+     */
+    public int getOrder(boolean numeric) {
+        var steps = countSteps(head, numeric) + countSteps(tail, numeric);
+        if (steps != 0) {
+            return Long.signum(steps);
+        }
+        Long first = null;
+        Long last = null;
+        for (String line : lines()) {
+            var key = key(line, numeric);
+            if (key != null) {
+                first = first == null ? key : first;
+                last = key;
+            }
+        }
+        return first == null ? 0 : Long.compare(last, first);
+    }
+
+    /**
+     * Порядок строковых данных по компаратору, так же по соседним строкам, а если они все равны -
+     * по первой и последней строке. Строки с пробелами пропускаются
+     * @param order - порядок строк по возрастанию
+     * @return int больше 0 - файл по возрастанию, меньше 0 - по убыванию, 0 - порядок не определить
+     */
+    public int getOrder(Comparator<? super String> order) {
+        var steps = countSteps(head, order) + countSteps(tail, order);
+        if (steps != 0) {
+            return Long.signum(steps);
+        }
+        String first = null;
+        String last = null;
+        for (String line : lines()) {
+            if (!line.contains(" ")) {
+                first = first == null ? line : first;
+                last = line;
+            }
+        }
+        return first == null ? 0 : Integer.signum(order.compare(last, first));
+    }
+
+    /**
+     * Подходит ли к выборке порядок строк: соседние строки в начале и в конце файла идут в одну сторону,
+     * против неё - не больше MAX_INVALID_SHARE шагов, как невалидных строк в числовом файле.
+     * Строки с пробелами пропускаются
+     * @param order - порядок строк по возрастанию
+     * @return int больше 0 - файл отсортирован в этом порядке (по возрастанию или по убыванию),
+     *         0 - все соседние строки в этом порядке равны, по выборке не видно, меньше 0 - не отсортирован
+     */
+    public int matchOrder(Comparator<? super String> order) {
+        var ascending = countSteps(head, order, 1) + countSteps(tail, order, 1);
+        var descending = countSteps(head, order, -1) + countSteps(tail, order, -1);
+        if (ascending + descending == 0) {
+            return 0;
+        }
+        return Math.min(ascending, descending) <= (ascending + descending) * MAX_INVALID_SHARE ? 1 : -1;
+    }
+
+    /**
+     * @return List<String> строки выборки: начало файла, затем конец
+     */
+    public List<String> getLines() {
+        return lines();
+    }
+
+    /**
+     * @return long шаги по возрастанию минус шаги по убыванию между соседними валидными строками
+     */
+    private static long countSteps(List<String> lines, boolean numeric) {
+        var steps = 0L;
+        Long previous = null;
+        for (String line : lines) {
+            var key = key(line, numeric);
+            if (key == null) {
+                continue;
+            }
+            if (previous != null) {
+                steps += Long.compare(key, previous);
+            }
+            previous = key;
+        }
+        return steps;
+    }
+
+    private static long countSteps(List<String> lines, Comparator<? super String> order) {
+        var steps = 0L;
+        String previous = null;
+        for (String line : lines) {
+            if (line.contains(" ")) {
+                continue;
+            }
+            if (previous != null) {
+                steps += Integer.signum(order.compare(line, previous));
+            }
+            previous = line;
+        }
+        return steps;
+    }
+
+    /**
+     * @param direction - 1 - считаются шаги по возрастанию, -1 - по убыванию
+     * @return long шаги в сторону direction между соседними строками без пробелов
+     */
+    private static long countSteps(List<String> lines, Comparator<? super String> order, int direction) {
+        var steps = 0L;
+        String previous = null;
+        for (String line : lines) {
+            if (line.contains(" ")) {
+                continue;
+            }
+            if (previous != null && Integer.signum(order.compare(line, previous)) == direction) {
+                steps++;
+            }
+            previous = line;
+        }
+        return steps;
+    }
+
+    private List<String> lines() {
+        var lines = new ArrayList<>(head);
+        lines.addAll(tail);
+        return lines;
+    }
+
+    /**
+     * @return Long ключ сортировки строки: число или длина, null - строка невалидна
+     */
+    private static Long key(String line, boolean numeric) {
+        if (numeric) { //long, чтобы порядок определялся и для -l
+            return parseLong(line);
+        }
+        return line.contains(" ") ? null : Long.valueOf(line.length());
+    }
+
+    /**
+     * Разбор по тем же правилам, что и в IntBlockCursor: необязательный знак и хотя бы одна цифра
+     */
+    private static Integer parseInt(String line) {
+        if (line.isEmpty() || line.equals("-") || line.equals("+")) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(line);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String line) {
+        if (line.isEmpty() || line.equals("-") || line.equals("+")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(line);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readBlock(FileChannel channel, long position, int length) throws IOException {
+        var buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            //читаем, пока блок не заполнится или файл не закончится
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Делит блок на строки по \n, \r\n и одиночному \r
+     * @param fromStart - блок начинается с начала файла, иначе первая строка может быть неполной
+     * @param toEnd - блок заканчивается концом файла, иначе последняя строка может быть неполной
+     */
+    private static List<String> splitLines(byte[] block, boolean fromStart, boolean toEnd) {
+        var lines = new ArrayList<String>();
+        var lineStart = 0;
+        var complete = fromStart;
+        for (int i = 0; i < block.length; i++) {
+            var b = block[i];
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+            if (b == '\n' && i > 0 && block[i - 1] == '\r') { //вторая половина \r\n
+                lineStart = i + 1;
+                continue;
+            }
+            if (complete) {
+                lines.add(new String(block, lineStart, i - lineStart, StandardCharsets.UTF_8));
+            }
+            complete = true;
+            lineStart = i + 1;
+        }
+        if (toEnd && complete && lineStart < block.length) { //последняя строка без перевода строки
+            lines.add(new String(block, lineStart, block.length - lineStart, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.filemanager;
+
+/**
+ * Курсор по Integer данным файла без упаковки в Integer
+ */
+public interface IntCursor extends InputCursor {
+    /**
+     * @return текущий элемент, ещё не выгруженный в результат
+     */
+    int getElement();
+}
@@ -0,0 +1,211 @@
+package org.example.filemanager;
+
+import org.example.metrics.FileMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Общая часть курсоров по текстовым файлам поверх байтовых блоков: чтение блоков, деление на строки
+ * (\n, \r\n и одиночный \r, последняя строка может быть без перевода строки), смещения строк,
+ * счётчики для метрик и сообщения о невалидных элементах.
+ * Наследник только разбирает байты строки (appendLine) и решает, принять ли её (acceptLine).
+ * Конструктор наследника заканчивается вызовом next(), чтобы курсор сразу стоял на первом элементе
+ */
+public abstract class LineBlockCursor implements InputCursor {
+
+    private static final String MSG_INVALID_ELEMENT_IN_FILE = "Невалидный элемент: %s в файле: %s!%n";
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, readInputFile";
+
+    private final String file;
+    private final FileMetrics metrics;
+    private final RejectionReporter.FileRejections rejections;
+    private BlockReader reader;
+    private ByteBuffer block;
+    private boolean hasElement;
+    private long lineLength; //байт текущей строки, строка может начаться в одном блоке и закончиться в другом
+    private boolean lineFeed; //текущая строка закончилась '\n', а не '\r' или концом файла
+    private boolean skipLineFeed; //после '\r' следующий '\n' относится к тому же переводу строки
+    private long readBytes; //байт получено от reader, смещения считаются от начала читаемой части файла
+    private long blockOffset; //смещение байта с индексом 0 текущего блока
+    private long lineStart; //смещение начала текущей строки
+    private long elementOffset;
+    private long acceptedCount; //ещё не добавлены в metrics
+    private long rejectedCount;
+
+    /**
+     * @param file - входной файл
+     * @param reader - источник байт файла, null - файл не удалось открыть
+     * @param metrics - счётчики файла, null - не считаются
+     * @param rejections - куда сообщать о невалидных элементах, null - сразу печатать каждый
+     */
+    protected LineBlockCursor(String file, BlockReader reader, FileMetrics metrics, RejectionReporter rejections) {
+        this.file = file;
+        this.reader = reader;
+        this.metrics = metrics;
+        this.rejections = rejections != null ? rejections.forFile(file) : null;
+    }
+
+    /**
+     * Дописывает к текущей строке кусок блока [from, to) без переводов строки
+     */
+    protected abstract void appendLine(ByteBuffer block, int from, int to);
+
+    /**
+     * Завершает текущую строку: проверяет элемент и, если он принят, делает его текущим.
+     * После вызова наследник начинает новую строку
+     * @param hasPreviousElement - текущий элемент курсора - предыдущий принятый, с ним сверяется порядок
+     * @return true - элемент принят
+     */
+    protected abstract boolean acceptLine(boolean hasPreviousElement);
+
+    @Override
+    public boolean hasElement() {
+        return hasElement;
+    }
+
+    @Override
+    public void next() {
+        var hasPreviousElement = hasElement;
+        hasElement = false;
+
+        while (reader != null) {
+            if (block == null || !block.hasRemaining()) {
+                var readStart = System.nanoTime();
+                try {
+                    block = reader.read();
+                } catch (IOException e) {
+                    readFailed(e);
+                    block = null;
+                }
+                publishMetrics(block != null ? block.remaining() : 0, System.nanoTime() - readStart);
+                if (block == null) { //файл закончился, последняя строка может быть без перевода строки
+                    if (lineLength > 0) {
+                        endLine(hasPreviousElement, false, readBytes);
+                    }
+                    close();
+                    return;
+                }
+                blockOffset = readBytes - block.position();
+                readBytes += block.remaining();
+            }
+
+            var start = block.position();
+            var limit = block.limit();
+            for (int i = start; i < limit; i++) {
+                var b = block.get(i);
+                if (b != '\n' && b != '\r') {
+                    skipLineFeed = false;
+                    continue;
+                }
+                if (b == '\n' && skipLineFeed) {
+                    skipLineFeed = false;
+                    start = i + 1;
+                    lineStart = blockOffset + i + 1;
+                    continue;
+                }
+                skipLineFeed = b == '\r';
+                append(start, i);
+                block.position(i + 1);
+                if (endLine(hasPreviousElement, b == '\n', blockOffset + i + 1)) {
+                    return;
+                }
+                start = i + 1;
+            }
+            append(start, limit);
+            block.position(limit);
+        }
+    }
+
+    private void append(int from, int to) {
+        if (to > from) {
+            appendLine(block, from, to);
+            lineLength += to - from;
+        }
+    }
+
+    /**
+     * @param nextLineStart - смещение начала следующей строки
+     * @return true - элемент принят и стал текущим
+     */
+    private boolean endLine(boolean hasPreviousElement, boolean lineFeed, long nextLineStart) {
+        this.lineFeed = lineFeed;
+        var accepted = acceptLine(hasPreviousElement);
+        if (accepted) {
+            hasElement = true;
+            acceptedCount++;
+            elementOffset = lineStart;
+        }
+        lineStart = nextLineStart;
+        lineLength = 0;
+        return accepted;
+    }
+
+    /**
+     * @return true - строка, которую завершает acceptLine, закончилась '\n', а не '\r' или концом файла
+     */
+    protected boolean isLineFeedTerminated() {
+        return lineFeed;
+    }
+
+    /**
+     * Сообщает о невалидном элементе или элементе, нарушающем порядок сортировки
+     * @param element - текст элемента для сообщения
+     */
+    protected void reject(String element) {
+        if (rejections != null) {
+            rejections.reject(element);
+        } else {
+            System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, element, file);
+        }
+        rejectedCount++;
+    }
+
+    /**
+     * Блок не прочитался: курсор считает файл законченным
+     */
+    protected void readFailed(IOException e) {
+        System.out.println(MSG_IO_EXCEPTION);
+    }
+
+    /**
+     * @return сколько байт получено от reader
+     */
+    protected long getReadBytes() {
+        return readBytes;
+    }
+
+    /**
+     * Добавляет накопленные счётчики в метрики файла, вызывается раз на блок, а не на элемент
+     * @param bytes - размер прочитанного блока
+     * @param readNanos - сколько ждали блок
+     */
+    private void publishMetrics(long bytes, long readNanos) {
+        if (metrics != null) {
+            metrics.add(bytes, readNanos, acceptedCount, rejectedCount);
+        }
+        acceptedCount = 0;
+        rejectedCount = 0;
+    }
+
+    @Override
+    public long getElementOffset() {
+        return elementOffset;
+    }
+
+    @Override
+    public String getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        publishMetrics(0, 0);
+        if (reader == null) {
+            return;
+        }
+        reader.close();
+        reader = null;
+        block = null;
+    }
+}
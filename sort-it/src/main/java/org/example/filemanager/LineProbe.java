@@ -0,0 +1,144 @@
+package org.example.filemanager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Чтение отдельных строк файла по произвольному смещению, без чтения файла целиком.
+ * Нужно, чтобы бинарным поиском по байтам отсортированного файла найти, где начинаются элементы
+ * с заданным ключом. Переводы строк те же, что у курсоров: \n, \r\n и одиночный \r
+ */
+public class LineProbe implements Closeable {
+
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, readInputFile";
+    private static final int WINDOW_SIZE = 4096;
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE); //последний прочитанный кусок файла
+    private long windowStart = -1;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private long nextLineStart;
+
+    public LineProbe(String file) throws IOException {
+        this.channel = FileChannel.open(Path.of(file), StandardOpenOption.READ);
+        this.size = channel.size();
+        window.limit(0);
+    }
+
+    /**
+     * @return размер файла в байтах
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param offset - смещение в файле
+     * @return long начало первой строки, начинающейся не раньше offset, size - если таких строк нет
+     */
+    public long lineStartAtOrAfter(long offset) throws IOException {
+        if (offset <= 0) {
+            return 0;
+        }
+        if (offset >= size) {
+            return size;
+        }
+        var previous = byteAt(offset - 1);
+        if (previous == '\n') {
+            return offset;
+        }
+        if (previous == '\r') { //offset может указывать на '\n' из "\r\n", тогда строка начинается после него
+            return byteAt(offset) == '\n' ? offset + 1 : offset;
+        }
+        for (long position = offset; position < size; position++) { //середина строки - ищем её конец
+            var b = byteAt(position);
+            if (b == '\n' || b == '\r') {
+                return lineEnd(position, b);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Читает строку целиком, после вызова доступны getLine, getLineLength и getNextLineStart
+     * @param lineStart - начало строки
+     * @return false - начало за концом файла, строки нет
+     */
+    public boolean readLine(long lineStart) throws IOException {
+        if (lineStart >= size) {
+            return false;
+        }
+        lineLength = 0;
+        for (long position = lineStart; position < size; position++) {
+            var b = byteAt(position);
+            if (b == '\n' || b == '\r') {
+                nextLineStart = lineEnd(position, b);
+                return true;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = b;
+        }
+        nextLineStart = size;
+        return true;
+    }
+
+    /**
+     * @return байты прочитанной строки, без перевода строки
+     */
+    public byte[] getLine() {
+        return line;
+    }
+
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * @return начало строки, следующей за прочитанной
+     */
+    public long getNextLineStart() {
+        return nextLineStart;
+    }
+
+    /**
+     * @return начало следующей строки после перевода строки b, стоящего в position
+     */
+    private long lineEnd(long position, byte b) throws IOException {
+        if (b == '\r' && position + 1 < size && byteAt(position + 1) == '\n') {
+            return position + 2;
+        }
+        return position + 1;
+    }
+
+    private byte byteAt(long offset) throws IOException {
+        if (offset < windowStart || offset >= windowStart + window.limit()) {
+            window.clear();
+            windowStart = offset;
+            while (window.hasRemaining() && channel.read(window, windowStart + window.position()) >= 0) {
+                if (windowStart + window.position() >= size) {
+                    break;
+                }
+            }
+            window.flip();
+        }
+        return window.get((int) (offset - windowStart));
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+    }
+}
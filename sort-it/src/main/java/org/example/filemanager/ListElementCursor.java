@@ -0,0 +1,54 @@
+package org.example.filemanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Курсор по уже выгруженным в память элементам файла.
+ * Исходный список не изменяется, курсор только сдвигает индекс головного элемента,
+ * так что выгрузка головного элемента стоит O(1), а не сдвиг всего массива, как у ArrayList.remove(0)
+ *
+ * @param <T> тип элементов
+ */
+public class ListElementCursor<T> implements ElementCursor<T> {
+
+    private final String file;
+    private final List<T> elements;
+    private int position;
+
+    /**
+     * @param file - файл, из которого выгружены элементы
+     * @param elements - элементы файла (предварительно отсортированы и провалидированы)
+     */
+    public ListElementCursor(String file, List<T> elements) {
+        this.file = file;
+        this.elements = elements instanceof RandomAccess
+                ? elements
+                : new ArrayList<>(elements); //у LinkedList get(i) идёт перебором, головной элемент доставался бы за O(n)
+    }
+
+    @Override
+    public boolean hasElement() {
+        return position < elements.size();
+    }
+
+    @Override
+    public T getElement() {
+        return elements.get(position);
+    }
+
+    @Override
+    public void next() {
+        position++;
+    }
+
+    @Override
+    public String getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+    }
+}
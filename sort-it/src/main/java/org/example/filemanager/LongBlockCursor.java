@@ -0,0 +1,122 @@
+package org.example.filemanager;
+
+import org.example.metrics.FileMetrics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Курсор по файлу с Long данными (64-битные идентификаторы, метки времени), устроен так же, как IntBlockCursor:
+ * цифры разбираются прямо из байтового буфера, на валидную строку не создаётся ни String, ни Long
+ */
+public class LongBlockCursor extends LineBlockCursor implements LongCursor {
+
+    private static final int MAX_REPORTED_LINE_LENGTH = 256; //длиннее в сообщение о невалидной строке не попадёт
+
+    private final boolean descending;
+    private final boolean orderValidated;
+    private long element;
+
+    //состояние разбора текущей строки, строка может начаться в одном блоке и закончиться в другом
+    private final byte[] line = new byte[MAX_REPORTED_LINE_LENGTH];
+    private int lineLength;
+    private boolean negative;
+    private int digits;
+    private long value; //накапливается отрицательным, как в Long.parseLong, чтобы уместить Long.MIN_VALUE
+    private boolean invalid;
+
+    /**
+     * @param file - входной файл
+     * @param reader - источник байт файла, null - файл не удалось открыть
+     * @param descending - true - файл отсортирован по убыванию, иначе по возрастанию
+     * @param orderValidated - false - порядок элементов не проверяется (файл не отсортирован)
+     */
+    public LongBlockCursor(String file, BlockReader reader, boolean descending, boolean orderValidated) {
+        this(file, reader, descending, orderValidated, null, null);
+    }
+
+    /**
+     * @param metrics - счётчики файла, null - не считаются
+     * @param rejections - куда сообщать о невалидных элементах, null - сразу печатать каждый
+     */
+    public LongBlockCursor(String file, BlockReader reader, boolean descending, boolean orderValidated,
+                           FileMetrics metrics, RejectionReporter rejections) {
+        super(file, reader, metrics, rejections);
+        this.descending = descending;
+        this.orderValidated = orderValidated;
+        next();
+    }
+
+    @Override
+    public long getElement() {
+        return element;
+    }
+
+    @Override
+    protected void appendLine(ByteBuffer block, int from, int to) {
+        for (int i = from; i < to; i++) {
+            appendByte(block.get(i));
+        }
+    }
+
+    /**
+     * Учитывает очередной байт строки: знак, цифру или невалидный символ
+     */
+    private void appendByte(byte b) {
+        if (lineLength < line.length) {
+            line[lineLength] = b;
+        }
+        lineLength++;
+        if (invalid) {
+            return;
+        }
+
+        if (b >= '0' && b <= '9') {
+            var limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            var digit = b - '0';
+            if (value < limit / 10 || value * 10 < limit + digit) { //переполнение long
+                invalid = true;
+                return;
+            }
+            value = value * 10 - digit;
+            digits++;
+        } else if ((b == '-' || b == '+') && lineLength == 1) {
+            negative = b == '-';
+        } else {
+            invalid = true;
+        }
+    }
+
+    /**
+     * Завершает разбор строки и проверяет элемент: валиден ли он и не нарушает ли порядок сортировки
+     */
+    @Override
+    protected boolean acceptLine(boolean hasPreviousElement) {
+        var valid = !invalid && digits > 0;
+        var currentElement = negative ? value : -value;
+        var accepted = false;
+
+        if (!valid) {
+            reject(lineAsString());
+        } else if (orderValidated && hasPreviousElement && (descending
+                ? element < currentElement
+                : element > currentElement)) { //элемент нарушает порядок сортировки
+            reject(String.valueOf(currentElement));
+        } else {
+            element = currentElement;
+            accepted = true;
+        }
+
+        lineLength = 0;
+        negative = false;
+        digits = 0;
+        value = 0;
+        invalid = false;
+        return accepted;
+    }
+
+    private String lineAsString() {
+        var text = new String(line, 0, Math.min(lineLength, line.length), StandardCharsets.UTF_8);
+        return lineLength > line.length ? text + "..." : text;
+    }
+}
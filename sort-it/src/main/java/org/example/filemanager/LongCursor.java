@@ -0,0 +1,11 @@
+package org.example.filemanager;
+
+/**
+ * Курсор по Long данным файла без упаковки в Long
+ */
+public interface LongCursor extends InputCursor {
+    /**
+     * @return текущий элемент, ещё не выгруженный в результат
+     */
+    long getElement();
+}
@@ -0,0 +1,73 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Отдаёт файл окнами, отображёнными в память через FileChannel.map.
+ * Блок - это само окно, данные не копируются и не читаются системными вызовами,
+ * страницы подтягиваются из page cache (общего для всех процессов) при обращении.
+ * Один MappedByteBuffer ограничен 2 ГБ, поэтому большие файлы отображаются несколькими окнами
+ */
+public class MappedBlockReader implements BlockReader {
+
+    public static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, readInputFile";
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private long position;
+
+    public MappedBlockReader(String file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param file - входной файл
+     * @param windowSize - размер окна отображения в байтах, не больше Integer.MAX_VALUE
+     */
+    public MappedBlockReader(String file, long windowSize) throws IOException {
+        this(file, 0, Long.MAX_VALUE, windowSize);
+    }
+
+    /**
+     * Отображение только части файла [start, end)
+     * @param file - входной файл
+     * @param start - смещение начала части
+     * @param end - смещение конца части (не включительно), Long.MAX_VALUE - до конца файла
+     * @param windowSize - размер окна отображения в байтах, не больше Integer.MAX_VALUE
+     */
+    public MappedBlockReader(String file, long start, long end, long windowSize) throws IOException {
+        this.channel = FileChannel.open(Path.of(file), StandardOpenOption.READ);
+        this.size = Math.min(end, channel.size());
+        this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+        this.position = start;
+    }
+
+    @Override
+    public ByteBuffer read() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        var length = Math.min(windowSize, size - position);
+        var window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        position += length;
+        return window;
+    }
+
+    /**
+     * Отображение остаётся валидным и после закрытия канала, окна освобождаются сборщиком мусора
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.filemanager;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Приёмник результата сортировки. Элементы записываются по одному, прямо во время слияния
+ */
+public interface OutputSink extends Closeable {
+    /**
+     * @param element - очередной элемент результата
+     */
+    void write(String element);
+
+    /**
+     * Запись Integer элемента без промежуточной строки, если приёмник это поддерживает
+     * @param element - очередной элемент результата
+     */
+    default void writeInt(int element) {
+        write(String.valueOf(element));
+    }
+
+    /**
+     * Запись Long элемента без промежуточной строки, если приёмник это поддерживает
+     * @param element - очередной элемент результата
+     */
+    default void writeLong(long element) {
+        write(String.valueOf(element));
+    }
+
+    /**
+     * Запись элемента, уже закодированного в байты UTF-8 (например, числа в каноническом виде),
+     * без промежуточной строки, если приёмник это поддерживает
+     * @param bytes - байты элемента
+     * @param offset - начало элемента
+     * @param length - длина элемента
+     */
+    default void writeBytes(byte[] bytes, int offset, int length) {
+        write(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Дописывает в результат строки готового файла, например уже слитую часть результата
+     * @param file - файл в кодировке UTF-8, по элементу на строку
+     * @throws IOException - файл не удалось прочитать
+     */
+    default void writeFile(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                write(line);
+            }
+        }
+    }
+
+    /**
+     * Контрольная точка: всё записанное до сих пор сбрасывается в файл и на диск (fsync)
+     * @return long длина результата в байтах, которая уже на диске, -1 - приёмник это не поддерживает
+     *         или запись не удалась
+     */
+    default long checkpoint() {
+        return -1;
+    }
+
+    /**
+     * Приёмник печатает ошибку записи и закрывается, а слияние идёт дальше. Тот, кому нужен весь результат
+     * (временные run'ы внешней сортировки), проверяет это после закрытия
+     * @return true - запись не удалась, часть элементов в файл не попала
+     */
+    default boolean isFailed() {
+        return false;
+    }
+
+    /**
+     * Слияние проверяет это перед каждым элементом и останавливается, не дочитывая входные файлы
+     * @return true - приёмник больше элементов не примет (набран --limit)
+     */
+    default boolean isFull() {
+        return false;
+    }
+
+    /**
+     * @return true - приёмник пропускает в результат не все элементы (--unique, --limit, --count-only),
+     *         так что готовые файлы ему не копируются байтами целиком
+     */
+    default boolean isSelective() {
+        return false;
+    }
+
+    @Override
+    void close();
+}
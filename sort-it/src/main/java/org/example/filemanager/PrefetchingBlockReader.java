@@ -0,0 +1,113 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Читает файл заранее в отдельном потоке.
+ * Поток копирует блоки исходного BlockReader в небольшой пул буферов и складывает их в очередь,
+ * курсор забирает уже заполненные буферы, так что слияние не ждёт диска, пока поток успевает читать.
+ * Каждый файл читается своим потоком, поэтому файлы на разных дисках читаются параллельно.
+ * Памяти на файл уходит (depth + 1) * blockSize
+ */
+public class PrefetchingBlockReader implements BlockReader {
+
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+    public static final int DEFAULT_DEPTH = 2;
+    private static final String THREAD_NAME_PREFIX = "sort-it-prefetch-";
+    private static final ByteBuffer END_OF_FILE = ByteBuffer.allocate(0);
+
+    private final BlockReader source;
+    private final BlockingQueue<ByteBuffer> freeBlocks;
+    private final BlockingQueue<ByteBuffer> filledBlocks;
+    private final Thread prefetcher;
+    private volatile IOException failure;
+    private ByteBuffer current;
+    private boolean finished;
+
+    /**
+     * @param file - входной файл, только для имени потока
+     * @param source - источник блоков, читается только потоком предвыборки
+     * @param blockSize - размер буфера в байтах
+     * @param depth - сколько заполненных буферов может ждать курсор
+     */
+    public PrefetchingBlockReader(String file, BlockReader source, int blockSize, int depth) {
+        this.source = source;
+        this.freeBlocks = new ArrayBlockingQueue<>(depth + 1);
+        this.filledBlocks = new ArrayBlockingQueue<>(depth + 2); //+1 место под END_OF_FILE, чтобы put никогда не блокировался
+        for (int i = 0; i <= depth; i++) {
+            freeBlocks.add(ByteBuffer.allocate(blockSize));
+        }
+        this.prefetcher = new Thread(this::prefetch, THREAD_NAME_PREFIX + file);
+        prefetcher.setDaemon(true);
+        prefetcher.start();
+    }
+
+    /**
+     * Цикл потока предвыборки: берёт свободный буфер, заполняет его из источника и отдаёт курсору
+     */
+    private void prefetch() {
+        try {
+            ByteBuffer block;
+            while ((block = source.read()) != null) {
+                while (block.hasRemaining()) { //блок источника может быть больше буфера (окно mmap), копируется частями
+                    var target = freeBlocks.take();
+                    target.clear();
+                    var length = Math.min(target.remaining(), block.remaining());
+                    var part = block.duplicate();
+                    part.limit(part.position() + length);
+                    target.put(part);
+                    block.position(block.position() + length);
+                    filledBlocks.add(target.flip());
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) { //курсор закрыт раньше конца файла
+            return;
+        } finally {
+            source.close();
+        }
+        filledBlocks.add(END_OF_FILE);
+    }
+
+    @Override
+    public ByteBuffer read() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (current != null) { //прошлый буфер курсору больше не нужен
+            freeBlocks.add(current);
+            current = null;
+        }
+        try {
+            current = filledBlocks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        if (current == END_OF_FILE) {
+            current = null;
+            finished = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+        return current;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        prefetcher.interrupt();
+        try {
+            prefetcher.join(); //поток сам закрывает источник, после join файл точно закрыт
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.filemanager;
+
+import org.example.metrics.RunMetrics;
+
+import java.util.Set;
+
+/**
+ * Настройки чтения входных файлов
+ */
+public class ReadOptions {
+
+    public static final ReadOptions DEFAULT = new ReadOptions(false, true, false, null, null, Set.of(), Set.of());
+
+    private final boolean mapped;
+    private final boolean orderValidated;
+    private final boolean prefetched;
+    private final RunMetrics metrics;
+    private final RejectionReporter rejections;
+    private final Set<String> reversedFiles;
+    private final Set<String> binaryFiles;
+
+    private ReadOptions(boolean mapped, boolean orderValidated, boolean prefetched, RunMetrics metrics,
+                        RejectionReporter rejections, Set<String> reversedFiles, Set<String> binaryFiles) {
+        this.mapped = mapped;
+        this.orderValidated = orderValidated;
+        this.prefetched = prefetched;
+        this.metrics = metrics;
+        this.rejections = rejections;
+        this.reversedFiles = reversedFiles;
+        this.binaryFiles = binaryFiles;
+    }
+
+    /**
+     * @return true - файлы отображаются в память (FileChannel.map), иначе читаются через FileChannel.read
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * @return true - элементы, нарушающие порядок сортировки, отбрасываются,
+     * false - файл не обязан быть отсортирован, проверяется только тип элементов
+     */
+    public boolean isOrderValidated() {
+        return orderValidated;
+    }
+
+    /**
+     * @return true - каждый файл заранее читается отдельным потоком в двойной буфер
+     */
+    public boolean isPrefetched() {
+        return prefetched;
+    }
+
+    /**
+     * @return метрики запуска, в которые курсоры добавляют прочитанные и отброшенные элементы, null - не считаются
+     */
+    public RunMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return куда курсоры сообщают о невалидных элементах, null - каждый элемент сразу печатается
+     */
+    public RejectionReporter getRejections() {
+        return rejections;
+    }
+
+    /**
+     * @param file - входной файл
+     * @return true - файл отсортирован в обратную сторону и читается с конца
+     */
+    public boolean isReversed(String file) {
+        return reversedFiles.contains(file);
+    }
+
+    /**
+     * @return true - хотя бы один файл читается с конца
+     */
+    public boolean hasReversedFiles() {
+        return !reversedFiles.isEmpty();
+    }
+
+    /**
+     * @param file - входной файл
+     * @return true - файл двоичный (BinaryHeader), а не текстовый
+     */
+    public boolean isBinary(String file) {
+        return binaryFiles.contains(file);
+    }
+
+    /**
+     * @return true - хотя бы один файл двоичный
+     */
+    public boolean hasBinaryFiles() {
+        return !binaryFiles.isEmpty();
+    }
+
+    public ReadOptions withMapped(boolean mapped) {
+        return new ReadOptions(mapped, orderValidated, prefetched, metrics, rejections, reversedFiles, binaryFiles);
+    }
+
+    public ReadOptions withOrderValidated(boolean orderValidated) {
+        return new ReadOptions(mapped, orderValidated, prefetched, metrics, rejections, reversedFiles, binaryFiles);
+    }
+
+    public ReadOptions withPrefetched(boolean prefetched) {
+        return new ReadOptions(mapped, orderValidated, prefetched, metrics, rejections, reversedFiles, binaryFiles);
+    }
+
+    public ReadOptions withMetrics(RunMetrics metrics) {
+        return new ReadOptions(mapped, orderValidated, prefetched, metrics, rejections, reversedFiles, binaryFiles);
+    }
+
+    public ReadOptions withRejections(RejectionReporter rejections) {
+        return new ReadOptions(mapped, orderValidated, prefetched, metrics, rejections, reversedFiles, binaryFiles);
+    }
+
+    public ReadOptions withReversedFiles(Set<String> reversedFiles) {
+        return new ReadOptions(mapped, orderValidated, prefetched, metrics, rejections, Set.copyOf(reversedFiles),
+                binaryFiles);
+    }
+
+    public ReadOptions withBinaryFiles(Set<String> binaryFiles) {
+        return new ReadOptions(mapped, orderValidated, prefetched, metrics, rejections, reversedFiles,
+                Set.copyOf(binaryFiles));
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.filemanager;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сообщает о невалидных элементах без printf на каждый элемент.
+ * Курсоры только считают элемент и кладут его в ограниченную очередь, в консоль отдельным потоком
+ * печатаются первые sampleLimit элементов, остальные только считаются, при закрытии печатается итог по файлам.
+ * Если задан файл отброшенных строк, в него через буфер пишутся все невалидные элементы: "файл\tэлемент"
+ */
+public class RejectionReporter implements Closeable {
+
+    public static final int DEFAULT_SAMPLE_LIMIT = 100;
+    private static final String MSG_INVALID_ELEMENT_IN_FILE = "Невалидный элемент: %s в файле: %s!%n";
+    private static final String MSG_REJECTED_IN_FILE = "Всего невалидных элементов: %d в файле: %s%n";
+    private static final String MSG_SAMPLES_LIMITED = "Показаны первые %d невалидных элементов%n";
+    private static final String MSG_REJECTS_FILE_EXCEPTION = "Ошибка записи файла невалидных элементов: %s%n";
+    private static final String THREAD_NAME = "sort-it-rejections";
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static final Rejection END = new Rejection(null, null);
+    private static final Rejection RESET = new Rejection(null, null);
+
+    private final int sampleLimit;
+    private final Path rejectsFile;
+    private final Map<String, LongAdder> counts = new LinkedHashMap<>();
+    private final AtomicLong queued = new AtomicLong();
+    private final BlockingQueue<Rejection> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private final boolean rejectsWritten; //пишется ли файл отброшенных строк, читается потоками курсоров
+    private BufferedWriter rejectsWriter; //только поток вывода
+    private int printed; //напечатано за текущий проход, только поток вывода, close читает после join
+
+    /**
+     * @param sampleLimit - сколько невалидных элементов напечатать в консоль
+     * @param rejectsFile - файл для всех невалидных элементов, null - не пишется
+     */
+    public RejectionReporter(int sampleLimit, Path rejectsFile) {
+        this.sampleLimit = sampleLimit;
+        this.rejectsFile = rejectsFile;
+        if (rejectsFile != null) {
+            openRejectsWriter();
+        }
+        this.rejectsWritten = rejectsWriter != null;
+        this.writer = new Thread(this::drain, THREAD_NAME);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Счётчик файла берётся один раз на курсор, дальше элементы учитываются без поиска файла в общей таблице
+     * @param file - файл, в котором ищутся невалидные элементы
+     * @return FileRejections счётчик невалидных элементов файла
+     */
+    public FileRejections forFile(String file) {
+        synchronized (counts) {
+            return new FileRejections(file, counts.computeIfAbsent(file, key -> new LongAdder()));
+        }
+    }
+
+    /**
+     * Учитывает невалидный элемент, может вызываться из нескольких потоков.
+     * Блокируется, только если очередь в файл отброшенных строк переполнена
+     */
+    private void reject(String file, LongAdder count, String element) {
+        count.increment();
+        if (!rejectsWritten && queued.get() >= sampleLimit) { //дальше только счёт, очередь не нужна
+            return;
+        }
+        queued.incrementAndGet();
+        enqueue(new Rejection(file, element));
+    }
+
+    /**
+     * Забывает учтённые элементы, если данные будут прочитаны заново (параллельное слияние откатилось
+     * на последовательное): счётчики обнуляются, файл отброшенных строк начинается сначала,
+     * первые sampleLimit элементов нового прохода снова печатаются, итог при закрытии - только по нему.
+     * Вызывается, когда курсоры прошлого прохода уже не читают, их счётчики файлов остаются рабочими
+     */
+    public void reset() {
+        synchronized (counts) {
+            counts.values().forEach(LongAdder::reset);
+        }
+        queued.set(0);
+        enqueue(RESET); //элементы прошлого прохода из очереди выводятся до него
+    }
+
+    private void enqueue(Rejection rejection) {
+        try {
+            queue.put(rejection);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return сколько элементов отброшено в файле
+     */
+    public long getRejected(String file) {
+        synchronized (counts) {
+            var count = counts.get(file);
+            return count != null ? count.sum() : 0;
+        }
+    }
+
+    /**
+     * Цикл потока вывода: печатает первые элементы и пишет все в файл отброшенных строк
+     */
+    private void drain() {
+        try {
+            Rejection rejection;
+            while ((rejection = queue.take()) != END) {
+                if (rejection == RESET) {
+                    printed = 0;
+                    if (rejectsWriter != null) {
+                        closeRejectsWriter();
+                        openRejectsWriter();
+                    }
+                    continue;
+                }
+                if (printed < sampleLimit) {
+                    System.out.printf(MSG_INVALID_ELEMENT_IN_FILE, rejection.element, rejection.file);
+                    printed++;
+                }
+                writeRejection(rejection);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeRejection(Rejection rejection) {
+        if (rejectsWriter == null) {
+            return;
+        }
+        try {
+            rejectsWriter.append(rejection.file).append('\t').append(rejection.element).append('\n');
+        } catch (IOException e) {
+            System.out.printf(MSG_REJECTS_FILE_EXCEPTION, rejectsFile);
+            closeRejectsWriter();
+        }
+    }
+
+    private void openRejectsWriter() {
+        try {
+            rejectsWriter = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.printf(MSG_REJECTS_FILE_EXCEPTION, rejectsFile);
+        }
+    }
+
+    private void closeRejectsWriter() {
+        try {
+            rejectsWriter.close();
+        } catch (IOException e) {
+            System.out.printf(MSG_REJECTS_FILE_EXCEPTION, rejectsFile);
+        }
+        rejectsWriter = null;
+    }
+
+    /**
+     * Дожидается вывода всех элементов из очереди и печатает итог по файлам, если напечатаны не все
+     */
+    @Override
+    public void close() {
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (rejectsWriter != null) {
+            closeRejectsWriter();
+        }
+
+        var total = 0L;
+        synchronized (counts) {
+            for (LongAdder count : counts.values()) {
+                total += count.sum();
+            }
+            if (total <= printed) {
+                return;
+            }
+            System.out.printf(MSG_SAMPLES_LIMITED, printed);
+            counts.forEach((file, count) -> {
+                var rejected = count.sum();
+                if (rejected > 0) { //файлы прошлого прохода без невалидных элементов в новом
+                    System.out.printf(MSG_REJECTED_IN_FILE, rejected, file);
+                }
+            });
+        }
+    }
+
+    /**
+     * Счётчик невалидных элементов одного файла, его держит курсор
+     */
+    public final class FileRejections {
+        private final String file;
+        private final LongAdder count;
+
+        private FileRejections(String file, LongAdder count) {
+            this.file = file;
+            this.count = count;
+        }
+
+        /**
+         * Учитывает невалидный элемент файла, см. RejectionReporter
+         * @param element - текст элемента
+         */
+        public void reject(String element) {
+            RejectionReporter.this.reject(file, count, element);
+        }
+    }
+
+    private static class Rejection {
+        private final String file;
+        private final String element;
+
+        private Rejection(String file, String element) {
+            this.file = file;
+            this.element = element;
+        }
+    }
+}
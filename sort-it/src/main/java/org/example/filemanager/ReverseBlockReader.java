@@ -0,0 +1,153 @@
+package org.example.filemanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Читает файл с конца: отдаёт строки в обратном порядке, байты внутри строки - как в файле.
+ * Так файл, отсортированный в обратную сторону, читается курсором как отсортированный в нужную,
+ * без отбрасывания элементов и без сортировки. Строки в блоках заканчиваются '\n',
+ * переводы строк входного файла те же, что у курсоров: \n, \r\n и одиночный \r
+ */
+public class ReverseBlockReader implements BlockReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, readInputFile";
+
+    private final FileChannel channel;
+    private final int bufferSize;
+    private long position; //всё до position ещё не прочитано
+    private byte[] data; //прочитанный кусок файла, за ним - pending
+    private byte[] pending = new byte[0]; //начало уже прочитанной части: строка, чьё начало ещё не прочитано
+    private int pendingLength;
+    private int[] lineStarts = new int[1024];
+    private int[] lineEnds = new int[1024];
+    private ByteBuffer block = ByteBuffer.allocate(0);
+
+    public ReverseBlockReader(String file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param file - входной файл
+     * @param bufferSize - сколько байт читается с диска за раз
+     */
+    public ReverseBlockReader(String file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(Path.of(file), StandardOpenOption.READ);
+        this.bufferSize = bufferSize;
+        this.position = channel.size();
+        this.data = new byte[bufferSize];
+    }
+
+    @Override
+    public ByteBuffer read() throws IOException {
+        while (position > 0) {
+            var length = readChunk();
+            var firstLineStart = position == 0 ? 0 : firstLineStart(length);
+            if (firstLineStart < 0) { //во всём куске нет начала строки, читаем дальше
+                keepPending(length);
+                continue;
+            }
+            reverseLines(firstLineStart, length);
+            keepPending(firstLineStart);
+            if (block.hasRemaining()) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Дочитывает кусок перед position и ставит за ним pending
+     * @return int длина куска вместе с pending
+     */
+    private int readChunk() throws IOException {
+        var chunkSize = (int) Math.min(bufferSize, position);
+        var length = chunkSize + pendingLength;
+        if (data.length < length) {
+            data = new byte[length];
+        }
+        var chunkStart = position - chunkSize;
+        var buffer = ByteBuffer.wrap(data, 0, chunkSize);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, chunkStart + buffer.position()) < 0) { //файл укоротили во время чтения
+                Arrays.fill(data, buffer.position(), chunkSize, (byte) '\n');
+                break;
+            }
+        }
+        System.arraycopy(pending, 0, data, chunkSize, pendingLength);
+        position = chunkStart;
+        return length;
+    }
+
+    /**
+     * @return int начало первой строки, которая целиком лежит в data, -1 - переводов строки нет
+     */
+    private int firstLineStart(int length) {
+        for (int i = 0; i < length; i++) {
+            var b = data[i];
+            if (b == '\n') {
+                return i + 1;
+            }
+            if (b == '\r') {
+                return i + 1 < length && data[i + 1] == '\n' ? i + 2 : i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Записывает в block строки data[from, length) в обратном порядке, каждую с '\n'
+     */
+    private void reverseLines(int from, int length) {
+        var lineCount = 0;
+        for (int i = from; i < length; ) {
+            var end = i;
+            while (end < length && data[end] != '\n' && data[end] != '\r') {
+                end++;
+            }
+            if (lineCount == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+            }
+            lineStarts[lineCount] = i;
+            lineEnds[lineCount] = end;
+            lineCount++;
+            if (end == length) {
+                break;
+            }
+            i = data[end] == '\r' && end + 1 < length && data[end + 1] == '\n' ? end + 2 : end + 1;
+        }
+
+        var size = length - from + 1;
+        if (block.capacity() < size) {
+            block = ByteBuffer.allocate(Math.max(size, bufferSize + 1));
+        }
+        block.clear();
+        for (int k = lineCount - 1; k >= 0; k--) {
+            block.put(data, lineStarts[k], lineEnds[k] - lineStarts[k]).put((byte) '\n');
+        }
+        block.flip();
+    }
+
+    private void keepPending(int length) {
+        if (pending.length < length) {
+            pending = new byte[Math.max(length, pending.length * 2)];
+        }
+        System.arraycopy(data, 0, pending, 0, length);
+        pendingLength = length;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        }
+    }
+}
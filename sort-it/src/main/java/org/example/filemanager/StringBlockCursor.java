@@ -0,0 +1,73 @@
+package org.example.filemanager;
+
+import org.example.metrics.FileMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+/**
+ * Курсор по файлу со String данными поверх байтовых блоков.
+ * Строка копируется из блока одним куском и декодируется из UTF-8, строки с пробелами невалидны
+ */
+public class StringBlockCursor extends LineBlockCursor implements ElementCursor<String> {
+
+    private final Comparator<? super String> order;
+    private final ByteLine line = new ByteLine(); //текущая строка, может начаться в одном блоке и закончиться в другом
+    private String element;
+
+    /**
+     * @param file - входной файл
+     * @param reader - источник байт файла, null - файл не удалось открыть
+     * @param order - порядок сортировки, элемент, идущий "раньше" предыдущего, считается невалидным,
+     *              null - порядок элементов не проверяется (файл не отсортирован)
+     */
+    public StringBlockCursor(String file, BlockReader reader, Comparator<? super String> order) {
+        this(file, reader, order, null, null);
+    }
+
+    /**
+     * @param metrics - счётчики файла, null - не считаются
+     * @param rejections - куда сообщать о невалидных элементах, null - сразу печатать каждый
+     */
+    public StringBlockCursor(String file, BlockReader reader, Comparator<? super String> order, FileMetrics metrics,
+                             RejectionReporter rejections) {
+        super(file, reader, metrics, rejections);
+        this.order = order;
+        next();
+    }
+
+    /**
+     * @return текущий элемент, null - элементы закончились
+     */
+    @Override
+    public String getElement() {
+        return hasElement() ? element : null;
+    }
+
+    @Override
+    protected void appendLine(ByteBuffer block, int from, int to) {
+        line.append(block, from, to - from);
+    }
+
+    /**
+     * Завершает строку и проверяет элемент: валиден ли он и не нарушает ли порядок сортировки
+     * @param hasPreviousElement - element хранит предыдущий принятый элемент
+     */
+    @Override
+    protected boolean acceptLine(boolean hasPreviousElement) {
+        var currentElement = line.toString();
+        var accepted = false;
+
+        if (currentElement.contains(" ")) {
+            reject(currentElement);
+        } else if (order != null && hasPreviousElement && order.compare(element, currentElement) > 0) { //элемент нарушает порядок сортировки
+            reject(currentElement);
+        } else {
+            element = currentElement;
+            accepted = true;
+        }
+
+        line.clear();
+        return accepted;
+    }
+}
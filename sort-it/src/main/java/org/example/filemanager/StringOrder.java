@@ -0,0 +1,215 @@
+package org.example.filemanager;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Порядок строковых данных (-s): по длине строки, лексикографически по байтам UTF-8 или по полю-ключу,
+ * отделённому разделителем. Сравнение по байтам UTF-8 совпадает с порядком кодовых точек Unicode.
+ *
+ * Один и тот же порядок задан и над ByteLine (слияние, внешняя сортировка и параллельное слияние
+ * без декодирования строк), и над String (определение диапазонов), результаты сравнений совпадают.
+ * Порядок всегда по возрастанию, убывание получается сменой знака у вызывающего
+ */
+public class StringOrder {
+
+    public static final StringOrder LENGTH = new StringOrder(Mode.LENGTH, 0, ',');
+    public static final StringOrder BYTES = new StringOrder(Mode.BYTES, 0, ',');
+    private static final int PREFIX_LENGTH = Long.BYTES;
+
+    private final Mode mode;
+    private final int field;
+    private final char delimiter;
+
+    private StringOrder(Mode mode, int field, char delimiter) {
+        this.mode = mode;
+        this.field = field;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @param field - номер поля-ключа, с 1
+     * @param delimiter - разделитель полей, ASCII символ
+     * @return StringOrder порядок по байтам поля, строка без такого поля имеет пустой ключ
+     */
+    public static StringOrder field(int field, char delimiter) {
+        if (field < 1 || delimiter >= 0x80) {
+            throw new IllegalArgumentException();
+        }
+        return new StringOrder(Mode.FIELD, field, delimiter);
+    }
+
+    /**
+     * @return true - строки сравниваются только по длине
+     */
+    public boolean isLength() {
+        return mode == Mode.LENGTH;
+    }
+
+    /**
+     * Считает ключ сравнения строки, вызывается один раз после разбора строки
+     */
+    void index(ByteLine line) {
+        if (mode == Mode.LENGTH) {
+            line.charLength = charLength(line.bytes, line.length);
+            return;
+        }
+        line.keyStart = 0;
+        line.keyEnd = line.length;
+        if (mode == Mode.FIELD) {
+            var currentField = 1;
+            for (int i = 0; i < line.length && currentField <= field; i++) {
+                if (line.bytes[i] == delimiter) { //байт ASCII не встречается внутри многобайтовых символов UTF-8
+                    if (currentField == field) {
+                        line.keyEnd = i;
+                    } else if (currentField == field - 1) {
+                        line.keyStart = i + 1;
+                    }
+                    currentField++;
+                }
+            }
+            if (currentField < field) { //поля нет
+                line.keyStart = line.length;
+                line.keyEnd = line.length;
+            }
+        }
+        var prefix = 0L;
+        for (int i = 0; i < PREFIX_LENGTH; i++) {
+            var position = line.keyStart + i;
+            prefix = (prefix << 8) | (position < line.keyEnd ? line.bytes[position] & 0xFF : 0);
+        }
+        line.prefix = prefix;
+    }
+
+    /**
+     * Разбор строки так же, как в ByteLineBlockCursor, например ключа из выборки строк файла
+     * @return ByteLine копия строки с посчитанным ключом, null - строка невалидна (есть пробел)
+     */
+    public ByteLine parse(byte[] bytes, int length) {
+        var line = new ByteLine();
+        line.append(ByteBuffer.wrap(bytes), 0, length);
+        if (line.containsSpace()) {
+            return null;
+        }
+        index(line);
+        return line;
+    }
+
+    /**
+     * @return long ключ строки, посчитанный index: длина или первые 8 байт ключа. Ключи сравниваются
+     *         как long без знака, при разных ключах их порядок - порядок строк, при равных нужен compare
+     */
+    public long key(ByteLine line) {
+        return mode == Mode.LENGTH ? line.charLength : line.prefix;
+    }
+
+    /**
+     * Сравнение по ключам, посчитанным index: сначала первые 8 байт ключа одним long без знака,
+     * и только при равенстве - остаток ключа
+     */
+    public int compare(ByteLine first, ByteLine second) {
+        if (mode == Mode.LENGTH) {
+            return Integer.compare(first.charLength, second.charLength);
+        }
+        var compared = Long.compareUnsigned(first.prefix, second.prefix);
+        if (compared != 0) {
+            return compared;
+        }
+        return Arrays.compareUnsigned(first.bytes, first.keyStart, first.keyEnd,
+                second.bytes, second.keyStart, second.keyEnd);
+    }
+
+    /**
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @return Comparator<ByteLine> сравнение строк с посчитанными ключами, как compare, для сортировки порций
+     *         и поиска границ частей
+     */
+    public Comparator<ByteLine> lineComparator(boolean descending) {
+        return descending ? (first, second) -> compare(second, first) : this::compare;
+    }
+
+    /**
+     * @return Comparator<String> тот же порядок над String, по возрастанию
+     */
+    public Comparator<String> comparator() {
+        switch (mode) {
+            case LENGTH:
+                return Comparator.comparingInt(String::length);
+            case BYTES:
+                return (first, second) -> compareCodePoints(first, 0, first.length(), second, 0, second.length());
+            default:
+                return (first, second) -> {
+                    var firstStart = fieldStart(first);
+                    var secondStart = fieldStart(second);
+                    return compareCodePoints(first, firstStart, fieldEnd(first, firstStart),
+                            second, secondStart, fieldEnd(second, secondStart));
+                };
+        }
+    }
+
+    private int fieldStart(String line) {
+        var start = 0;
+        for (int currentField = 1; currentField < field; currentField++) {
+            var delimiterIndex = line.indexOf(delimiter, start);
+            if (delimiterIndex < 0) {
+                return line.length();
+            }
+            start = delimiterIndex + 1;
+        }
+        return start;
+    }
+
+    private int fieldEnd(String line, int start) {
+        var delimiterIndex = line.indexOf(delimiter, start);
+        return delimiterIndex < 0 ? line.length() : delimiterIndex;
+    }
+
+    /**
+     * Сравнение частей строк в порядке кодовых точек, то есть так же, как их байты UTF-8.
+     * Порядок char отличается от него только для суррогатных пар против символов U+E000..U+FFFF,
+     * поэтому суррогаты сдвигаются выше, а U+E000..U+FFFF ниже
+     */
+    private static int compareCodePoints(String first, int firstFrom, int firstTo,
+                                         String second, int secondFrom, int secondTo) {
+        var common = Math.min(firstTo - firstFrom, secondTo - secondFrom);
+        for (int i = 0; i < common; i++) {
+            var firstChar = first.charAt(firstFrom + i);
+            var secondChar = second.charAt(secondFrom + i);
+            if (firstChar != secondChar) {
+                return Integer.compare(fixUp(firstChar), fixUp(secondChar));
+            }
+        }
+        return Integer.compare(firstTo - firstFrom, secondTo - secondFrom);
+    }
+
+    private static int fixUp(char c) {
+        if (c < 0xD800) {
+            return c;
+        }
+        return c >= 0xE000 ? c - 0x800 : c + 0x2000;
+    }
+
+    /**
+     * @return int длина строки в char, как у String.length(): символ вне BMP - два char
+     */
+    private static int charLength(byte[] bytes, int length) {
+        var chars = 0;
+        for (int i = 0; i < length; i++) {
+            var b = bytes[i];
+            if ((b & 0xC0) != 0x80) { //не продолжение многобайтового символа
+                chars++;
+            }
+            if ((b & 0xF8) == 0xF0) { //начало четырёхбайтового символа - суррогатная пара
+                chars++;
+            }
+        }
+        return chars;
+    }
+
+    private enum Mode {
+        LENGTH,
+        BYTES,
+        FIELD
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.filemanager;
+
+import org.example.metrics.RunMetrics;
+
+import java.util.zip.Deflater;
+
+/**
+ * Настройки записи выходного файла
+ */
+public class WriteOptions {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    public static final WriteOptions DEFAULT = new WriteOptions(DEFAULT_BUFFER_SIZE, false, null, -1, null,
+            Deflater.DEFAULT_COMPRESSION, false, -1, false);
+
+    private final int bufferSize;
+    private final boolean fsync;
+    private final RunMetrics metrics;
+    private final long resumeOffset;
+    private final BinaryHeader binaryHeader;
+    private final int compressionLevel;
+    private final boolean unique;
+    private final long limit;
+    private final boolean countOnly;
+
+    private WriteOptions(int bufferSize, boolean fsync, RunMetrics metrics, long resumeOffset,
+                         BinaryHeader binaryHeader, int compressionLevel, boolean unique, long limit,
+                         boolean countOnly) {
+        this.bufferSize = bufferSize;
+        this.fsync = fsync;
+        this.metrics = metrics;
+        this.resumeOffset = resumeOffset;
+        this.binaryHeader = binaryHeader;
+        this.compressionLevel = compressionLevel;
+        this.unique = unique;
+        this.limit = limit;
+        this.countOnly = countOnly;
+    }
+
+    /**
+     * @return размер буфера записи в байтах, буфер сбрасывается в файл, когда заполнится
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return true - после записи данные принудительно сбрасываются на диск (fsync)
+     */
+    public boolean isFsync() {
+        return fsync;
+    }
+
+    /**
+     * @return метрики запуска, в которые приёмник добавляет записанные элементы и байты, null - не считаются
+     */
+    public RunMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return long длина уже записанного результата, с которой продолжается запись после перезапуска:
+     *         файл обрезается до неё, а не затирается. -1 - файл пишется заново
+     */
+    public long getResumeOffset() {
+        return resumeOffset;
+    }
+
+    /**
+     * @return заголовок двоичного выходного файла: тип записей и порядок, число записей приёмник проставит сам.
+     *         null - результат пишется текстом
+     */
+    public BinaryHeader getBinaryHeader() {
+        return binaryHeader;
+    }
+
+    /**
+     * @return уровень сжатия gzip 0-9 для выходного файла *.gz, Deflater.DEFAULT_COMPRESSION - по умолчанию (6)
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @return true - повторы подряд не пишутся, в отсортированном результате это все повторы
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * @return long сколько первых элементов результата записать, после этого слияние останавливается.
+     *         -1 - все
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return true - результат не пишется в файл, элементы только считаются
+     */
+    public boolean isCountOnly() {
+        return countOnly;
+    }
+
+    /**
+     * @return true - в результат попадают не все элементы слияния, нужен FilteringOutputSink
+     */
+    public boolean isFiltered() {
+        return unique || limit >= 0 || countOnly;
+    }
+
+    public WriteOptions withBufferSize(int bufferSize) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withFsync(boolean fsync) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withMetrics(RunMetrics metrics) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withResumeOffset(long resumeOffset) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withBinaryHeader(BinaryHeader binaryHeader) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withCompressionLevel(int compressionLevel) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withUnique(boolean unique) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withLimit(long limit) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+
+    public WriteOptions withCountOnly(boolean countOnly) {
+        return new WriteOptions(bufferSize, fsync, metrics, resumeOffset, binaryHeader, compressionLevel,
+                unique, limit, countOnly);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики одного входного файла. Курсор копит элементы в своих полях и добавляет их сюда
+ * раз на прочитанный блок, так что в цикле разбора нет ни атомарных операций, ни замеров времени.
+ * Один файл может читаться несколькими курсорами из разных потоков (параллельное слияние)
+ */
+public class FileMetrics {
+
+    private final String file;
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder elements = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+
+    FileMetrics(String file) {
+        this.file = file;
+    }
+
+    /**
+     * @param bytes - прочитано байт
+     * @param readNanos - сколько курсор ждал блок от BlockReader
+     * @param elements - принято валидных элементов
+     * @param rejected - отброшено невалидных элементов
+     */
+    public void add(long bytes, long readNanos, long elements, long rejected) {
+        this.bytes.add(bytes);
+        this.readNanos.add(readNanos);
+        this.elements.add(elements);
+        this.rejected.add(rejected);
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getElements() {
+        return elements.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getReadNanos() {
+        return readNanos.sum();
+    }
+
+    void reset() {
+        bytes.reset();
+        elements.reset();
+        rejected.reset();
+        readNanos.reset();
+    }
+}
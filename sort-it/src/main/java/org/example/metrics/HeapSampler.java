@@ -0,0 +1,39 @@
+package org.example.metrics;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически замеряет занятый heap отдельным потоком, метрики запуска хранят максимум замеров.
+ * При закрытии делает последний замер
+ */
+public class HeapSampler implements Closeable {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 50;
+    private static final String THREAD_NAME = "sort-it-heap";
+
+    private final RunMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param metrics - метрики запуска
+     * @param intervalMillis - период замера в миллисекундах
+     */
+    public HeapSampler(RunMetrics metrics, long intervalMillis) {
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(metrics::sampleHeap, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        metrics.sampleHeap();
+    }
+}
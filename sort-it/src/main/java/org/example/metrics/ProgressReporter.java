@@ -0,0 +1,42 @@
+package org.example.metrics;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически печатает прогресс запуска в stderr отдельным потоком, stdout остаётся под сообщения
+ * о невалидных элементах и итоговое сообщение. При закрытии печатает последнюю строку
+ */
+public class ProgressReporter implements Closeable {
+
+    private static final String THREAD_NAME = "sort-it-progress";
+
+    private final RunMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param metrics - метрики запуска
+     * @param intervalSeconds - период вывода в секундах
+     */
+    public ProgressReporter(RunMetrics metrics, long intervalSeconds) {
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void report() {
+        System.err.println(metrics.progressLine());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report();
+    }
+}
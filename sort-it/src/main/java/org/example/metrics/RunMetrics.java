@@ -0,0 +1,221 @@
+package org.example.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Метрики одного запуска: время фаз, прочитанные и записанные элементы и байты по файлам,
+ * отброшенные элементы, пиковый heap процесса за время запуска.
+ * Фазы (сортировка порций, слияние и т.д.) идут друг за другом и замеряются по часам. Чтение, проверка,
+ * слияние и запись внутри фазы идут вперемешку, поэтому отдельно копится только время ожидания блоков
+ * от BlockReader и время сброса буфера записи (суммарно по всем потокам), остальное - разбор,
+ * проверка и слияние
+ */
+public class RunMetrics {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MB = 1024.0 * 1024;
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, FileMetrics> files = new LinkedHashMap<>();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final LongAdder elementsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+    private volatile String phase;
+    private long phaseStartNanos;
+    private volatile long finishNanos;
+
+    /**
+     * @param file - входной файл
+     * @return FileMetrics счётчики файла, общие для всех его курсоров
+     */
+    public synchronized FileMetrics file(String file) {
+        return files.computeIfAbsent(file, FileMetrics::new);
+    }
+
+    /**
+     * Завершает текущую фазу и начинает новую, время фаз с одним названием складывается
+     * @param name - название фазы
+     */
+    public synchronized void startPhase(String name) {
+        sampleHeap();
+        endPhase();
+        phase = name;
+        phaseStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Завершает последнюю фазу и останавливает часы запуска
+     */
+    public synchronized void finish() {
+        sampleHeap();
+        endPhase();
+        finishNanos = System.nanoTime();
+    }
+
+    private void endPhase() {
+        if (phase != null) {
+            phaseNanos.merge(phase, System.nanoTime() - phaseStartNanos, Long::sum);
+            phase = null;
+        }
+    }
+
+    /**
+     * Обнуляет счётчики элементов и байт, если данные придётся прочитать и записать заново
+     * (параллельное слияние откатилось на последовательное). Время фаз сохраняется
+     */
+    public synchronized void resetCounters() {
+        files.values().forEach(FileMetrics::reset);
+        elementsWritten.reset();
+        bytesWritten.reset();
+        writeNanos.reset();
+    }
+
+    /**
+     * @param elements - записано элементов
+     * @param bytes - сброшено байт
+     * @param nanos - сколько занял сброс
+     */
+    public void addWrite(long elements, long bytes, long nanos) {
+        elementsWritten.add(elements);
+        bytesWritten.add(bytes);
+        writeNanos.add(nanos);
+    }
+
+    public long getElementsRead() {
+        return sum(FileMetrics::getElements);
+    }
+
+    public long getBytesRead() {
+        return sum(FileMetrics::getBytes);
+    }
+
+    public long getRejected() {
+        return sum(FileMetrics::getRejected);
+    }
+
+    public long getElementsWritten() {
+        return elementsWritten.sum();
+    }
+
+    /**
+     * @return время с начала запуска до finish или до текущего момента
+     */
+    public long getElapsedNanos() {
+        var finish = finishNanos;
+        return (finish != 0 ? finish : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * Замеряет занятый heap и запоминает максимум, вызывается HeapSampler'ом, на границах фаз и при выводе прогресса
+     * @return long занятый heap сейчас
+     */
+    public long sampleHeap() {
+        var used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        peakHeapBytes.accumulateAndGet(used, Math::max);
+        return used;
+    }
+
+    /**
+     * Максимум замеров занятого heap за время запуска. Heap общий на процесс, поэтому у задач пакета (--batch),
+     * выполняющихся одновременно, в пик входят и чужие задачи. Пик между замерами может быть пропущен,
+     * так что это оценка снизу, но не сумма пиков пулов в разные моменты, которая завышает пик
+     * @return long байт
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes.get();
+    }
+
+    /**
+     * @return строка прогресса для периодического вывода
+     */
+    public String progressLine() {
+        var seconds = getElapsedNanos() / NANOS_PER_SECOND;
+        var bytesRead = getBytesRead();
+        var heap = sampleHeap();
+        return String.format(Locale.ROOT,
+                "[%.1f с] фаза: %s, прочитано: %d элементов, %.1f МБ (%.1f МБ/с), записано: %d, отброшено: %d, heap: %.0f МБ",
+                seconds, phase != null ? phase : "-", getElementsRead(), bytesRead / BYTES_PER_MB,
+                seconds > 0 ? bytesRead / BYTES_PER_MB / seconds : 0, getElementsWritten(), getRejected(),
+                heap / BYTES_PER_MB);
+    }
+
+    /**
+     * @return String итог запуска в JSON
+     */
+    public synchronized String toJson() {
+        var elapsedNanos = getElapsedNanos();
+        var seconds = elapsedNanos / NANOS_PER_SECOND;
+        var json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"elapsedMs\": ").append(millis(elapsedNanos)).append(",\n");
+        json.append("  \"phasesMs\": {");
+        var first = true;
+        for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+            json.append(first ? "" : ",").append("\n    ").append(quote(entry.getKey())).append(": ")
+                    .append(millis(entry.getValue()));
+            first = false;
+        }
+        json.append(first ? "},\n" : "\n  },\n");
+        json.append("  \"readWaitMs\": ").append(millis(sum(FileMetrics::getReadNanos))).append(",\n");
+        json.append("  \"writeMs\": ").append(millis(writeNanos.sum())).append(",\n");
+        json.append("  \"elementsRead\": ").append(getElementsRead()).append(",\n");
+        json.append("  \"bytesRead\": ").append(getBytesRead()).append(",\n");
+        json.append("  \"elementsWritten\": ").append(getElementsWritten()).append(",\n");
+        json.append("  \"bytesWritten\": ").append(bytesWritten.sum()).append(",\n");
+        json.append("  \"rejected\": ").append(getRejected()).append(",\n");
+        json.append("  \"elementsPerSecond\": ").append(seconds > 0 ? Math.round(getElementsRead() / seconds) : 0)
+                .append(",\n");
+        json.append("  \"bytesPerSecond\": ").append(seconds > 0 ? Math.round(getBytesRead() / seconds) : 0)
+                .append(",\n");
+        json.append("  \"processPeakHeapBytes\": ").append(getPeakHeapBytes()).append(",\n");
+        json.append("  \"files\": [");
+        first = true;
+        for (FileMetrics file : files.values()) {
+            json.append(first ? "" : ",").append("\n    {\"file\": ").append(quote(file.getFile()))
+                    .append(", \"bytes\": ").append(file.getBytes())
+                    .append(", \"elements\": ").append(file.getElements())
+                    .append(", \"rejected\": ").append(file.getRejected())
+                    .append(", \"readWaitMs\": ").append(millis(file.getReadNanos()))
+                    .append('}');
+            first = false;
+        }
+        json.append(first ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private synchronized long sum(ToLongFunction<FileMetrics> counter) {
+        var sum = 0L;
+        for (FileMetrics file : files.values()) {
+            sum += counter.applyAsLong(file);
+        }
+        return sum;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static String quote(String value) {
+        var quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.service;
+
+public interface BatchService {
+
+    /**
+     * @param args - аргументы запуска
+     * @return boolean true - это пакетный запуск (--batch), задачи берутся из списка, а не из аргументов
+     */
+    boolean isBatch(String[] args);
+
+    void start(String[] args);
+}
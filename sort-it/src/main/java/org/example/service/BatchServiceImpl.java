@@ -0,0 +1,202 @@
+package org.example.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пакетный запуск: задачи читаются по строке из списка (--batch=ФАЙЛ) или из stdin (--batch=-) и выполняются
+ * одним процессом, не больше --jobs задач одновременно. JVM, JIT и пулы уже прогреты, так что короткие задачи
+ * не платят за старт процесса. Строка списка - аргументы одной задачи, как в командной строке.
+ * Задачи читаются по мере выполнения: пока все места заняты, следующая строка не читается
+ */
+public class BatchServiceImpl implements BatchService {
+    private static final String MSG_INVALID_ARGUMENTS = "Введены некорректные аргументы!";
+    private static final String MSG_INVALID_OPTION_VALUE = "Некорректное значение опции: %s%n";
+    private static final String MSG_BATCH_NOT_READ = "Не удалось прочитать список задач: %s%n";
+    private static final String MSG_JOB_FINISHED = "Задача %d: готово за %d мс, элементов %d: %s%n";
+    private static final String MSG_JOB_REFUSED = "Задача %d: не запускалась за %d мс: %s%n";
+    private static final String MSG_JOB_FAILED = "Задача %d: ошибка за %d мс (%s): %s%n";
+    private static final String MSG_BATCH_FINISHED = "Задач выполнено: %d из %d, за %d мс%n";
+    private static final String OPTION_BATCH = "--batch";
+    private static final String OPTION_JOBS = "--jobs";
+    private static final String OPTION_VALUE_SEPARATOR = "=";
+    private static final String STDIN = "-";
+    private static final String COMMENT_PREFIX = "#";
+    private static final String THREAD_NAME_PREFIX = "sort-it-job-";
+
+    private final SortItService service;
+
+    public BatchServiceImpl(SortItService service) {
+        this.service = service;
+    }
+
+    @Override
+    public boolean isBatch(String[] args) {
+        for (String arg : args) {
+            if (arg.equals(OPTION_BATCH) || arg.startsWith(OPTION_BATCH + OPTION_VALUE_SEPARATOR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Разбирает --batch и --jobs и выполняет задачи из списка. Других аргументов у пакетного запуска нет
+     * @param args - аргументы запуска
+     */
+    @Override
+    public void start(String[] args) {
+        String batch = null;
+        var jobs = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            var option = args[i];
+            String value = null;
+            var separatorIndex = option.indexOf(OPTION_VALUE_SEPARATOR);
+            if (separatorIndex >= 0) {
+                value = option.substring(separatorIndex + 1);
+                option = option.substring(0, separatorIndex);
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            }
+            if (option.equals(OPTION_BATCH) && value != null && !value.isEmpty()) {
+                batch = value;
+            } else if (option.equals(OPTION_JOBS)) {
+                jobs = SortRequestParser.parsePositiveInt(value);
+                if (jobs <= 0) {
+                    System.out.printf(MSG_INVALID_OPTION_VALUE, option);
+                    return;
+                }
+            } else {
+                System.out.println(MSG_INVALID_ARGUMENTS);
+                return;
+            }
+        }
+        if (batch == null) {
+            System.out.printf(MSG_INVALID_OPTION_VALUE, OPTION_BATCH);
+            return;
+        }
+
+        try (var reader = batch.equals(STDIN)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(batch.replace("\\", "/")), StandardCharsets.UTF_8)) {
+            runJobs(reader, jobs);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.printf(MSG_BATCH_NOT_READ, batch);
+        }
+    }
+
+    /**
+     * Выполняет задачи из списка на пуле из jobs потоков. Семафор не даёт прочитать задачу, пока для неё
+     * нет свободного потока, так что очередь не растёт, а stdin можно дописывать по мере выполнения.
+     * По каждой задаче печатается строка с её номером, временем и числом записанных элементов.
+     * Сообщения самих задач, выполняющихся одновременно, могут перемежаться
+     * @param reader - список задач, по задаче на строку, пустые строки и строки с "#" пропускаются
+     * @param jobs - сколько задач выполняется одновременно
+     * @return int сколько задач завершилось успешно
+     */
+    int runJobs(BufferedReader reader, int jobs) throws IOException {
+        var started = System.nanoTime();
+        var threadNumber = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(jobs, task -> {
+            var thread = new Thread(task, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        var slots = new Semaphore(jobs);
+        var succeeded = new AtomicInteger();
+        var submitted = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                var args = tokenize(line);
+                if (args.isEmpty() || args.get(0).startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+                var job = ++submitted;
+                slots.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        if (runJob(job, args)) {
+                            succeeded.incrementAndGet();
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } finally {
+            slots.acquireUninterruptibly(jobs); //все задачи завершились
+            executor.shutdown();
+        }
+        System.out.printf(MSG_BATCH_FINISHED, succeeded.get(), submitted, elapsedMillis(started));
+        return succeeded.get();
+    }
+
+    /**
+     * @return boolean true - задача завершилась успешно
+     */
+    private boolean runJob(int job, List<String> args) {
+        var started = System.nanoTime();
+        var line = String.join(" ", args);
+        try {
+            var metrics = service.run(args.toArray(new String[0]));
+            if (metrics == null) {
+                System.out.printf(MSG_JOB_REFUSED, job, elapsedMillis(started), line);
+                return false;
+            }
+            System.out.printf(MSG_JOB_FINISHED, job, elapsedMillis(started), metrics.getElementsWritten(), line);
+            return true;
+        } catch (RuntimeException e) { //упавшая задача не останавливает остальные
+            System.out.printf(MSG_JOB_FAILED, job, elapsedMillis(started), e, line);
+            return false;
+        }
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Делит строку списка на аргументы по пробелам. Аргумент с пробелами берётся в двойные кавычки:
+     * "C:\My files\in.txt"
+     * @param line - строка списка задач
+     * @return List<String> аргументы задачи
+     */
+    static List<String> tokenize(String line) {
+        var args = new ArrayList<String>();
+        var arg = new StringBuilder();
+        var quoted = false;
+        var hasArg = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                hasArg = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (hasArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    hasArg = false;
+                }
+            } else {
+                arg.append(c);
+                hasArg = true;
+            }
+        }
+        if (hasArg) {
+            args.add(arg.toString());
+        }
+        return args;
+    }
+}
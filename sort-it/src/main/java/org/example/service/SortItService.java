@@ -1,5 +1,14 @@
 package org.example.service;
 
+import org.example.metrics.RunMetrics;
+
 public interface SortItService {
     void start(String[] args);
+
+    /**
+     * Выполняет одну задачу сортировки. Сообщения печатаются так же, как при start
+     * @param args - аргументы задачи, как в командной строке
+     * @return RunMetrics итог задачи, null - аргументы или файлы не подошли и задача не запускалась
+     */
+    RunMetrics run(String[] args);
 }
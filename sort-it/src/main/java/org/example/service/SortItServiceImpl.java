@@ -1,164 +1,524 @@
 package org.example.service;
 
+import org.example.filemanager.BinaryHeader;
+import org.example.filemanager.CheckpointJournal;
 import org.example.filemanager.FileManager;
-import org.example.sortmanager.SortManager;
+import org.example.filemanager.InputSample;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.RejectionReporter;
+import org.example.filemanager.StringOrder;
+import org.example.metrics.HeapSampler;
+import org.example.metrics.ProgressReporter;
+import org.example.metrics.RunMetrics;
+import org.example.sortmanager.CheckpointMergeManager;
+import org.example.sortmanager.CheckpointOptions;
+import org.example.sortmanager.ExternalSortManager;
+import org.example.sortmanager.ParallelMergeManager;
+import org.example.sortmanager.PresortedMergeManager;
 
-import java.io.File;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
+import static org.example.service.SortRequest.DATA_TYPE_BIG_INTEGER;
+import static org.example.service.SortRequest.DATA_TYPE_DECIMAL;
+import static org.example.service.SortRequest.DATA_TYPE_INT;
+import static org.example.service.SortRequest.DATA_TYPE_LONG;
+import static org.example.service.SortRequest.DATA_TYPE_STRING;
+import static org.example.service.SortRequest.OUTPUT_FORMAT_BINARY;
+import static org.example.service.SortRequest.OUTPUT_FORMAT_TEXT;
+import static org.example.service.SortRequest.SORT_TYPE_ASCENDING;
+import static org.example.service.SortRequest.SORT_TYPE_DESCENDING;
+import static org.example.service.SortRequest.STRING_ORDER_LENGTH;
+import static org.example.service.SortRequest.STRING_ORDER_LEXICOGRAPHIC;
+
+/**
+ * Запуск задачи сортировки. Состояния запуска в полях нет: всё, что относится к задаче, лежит в SortRequest
+ * и локальных переменных, поэтому один экземпляр сервиса выполняет несколько задач параллельно (--batch)
+ */
 public class SortItServiceImpl implements SortItService {
-    private static final String SORT_TYPE_ASCENDING = "-a";
-    private static final String SORT_TYPE_DESCENDING = "-d";
-    private static final String DATA_TYPE_STRING = "-s";
-    private static final String DATA_TYPE_INT = "-i";
-    private static final String MSG_INVALID_ARGUMENTS = "Введены некорректные аргументы!";
-    private static final String MSG_OUTPUT_FILE_NOT_FOUND = "Выходной файл не найден! Путь: %s";
-    private static final String MSG_EMPTY_ARGUMENTS = "Список аргументов пуст!";
     private static final String MSG_OPERATION_SUCCESS = "Операция завершена успешно!";
-    private static final String MSG_NO_FILES_PROVIDED = "В аргументах не указаны выходной и входные файлы!";
-    private static final String MSG_NO_DATA_TYPE_PROVIDED = "В аргументах не указан тип входных данных";
-    private static final String MSG_NO_INPUT_FILES_PROVIDED = "Не указаны входящие файлы!";
-
-    private String sortType = SORT_TYPE_ASCENDING;
-    private String dataType;
-    private File outputFile;
-    private List<String> argsList;
+    private static final String MSG_AUTO_DETECTED = "Определено по началу и концу файлов: тип данных %s, сортировка %s%n";
+    private static final String MSG_STRING_ORDER_DETECTED = "Определено по началу и концу файлов: порядок строк %s%n";
+    private static final String MSG_STRING_ORDER_UNKNOWN = "Порядок строк не определить по началу и концу файлов, укажите --string-order";
+    private static final String MSG_UNIQUE_NOT_SUPPORTED = "Опция --unique для строк поддерживается только с --string-order=lex, порядок строк: %s%n";
+    private static final String MSG_FILE_REVERSED = "Файл отсортирован в обратном порядке и будет прочитан с конца: %s%n";
+    private static final String MSG_PARALLEL_MERGE_NOT_SUPPORTED = "Опция --parallel-merge не поддерживается для типа данных %s, файлы сливаются последовательно%n";
+    private static final String MSG_METRICS_NOT_WRITTEN = "Не удалось записать метрики в файл: %s%n";
+    private static final String MSG_CHECKPOINT_REVERSED = "Опция --checkpoint не поддерживается для файлов, прочитанных с конца: %s%n";
+    private static final String MSG_CHECKPOINT_SEQUENTIAL = "С опцией --checkpoint файлы сливаются последовательно, --parallel-merge не используется";
+    private static final String MSG_CHECKPOINT_INVALID = "Не удалось прочитать журнал контрольной точки: %s%n";
+    private static final String MSG_CHECKPOINT_MISMATCH = "Журнал контрольной точки %s записан для других аргументов или входных файлов, удалите его, чтобы начать заново%n";
+    private static final String MSG_BINARY_NOT_SUPPORTED = "Двоичный формат поддерживается только для типов данных -i и -l, тип данных: %s%n";
+    private static final String MSG_PARALLEL_MERGE_BINARY = "Опция --parallel-merge не поддерживается для двоичных входных файлов, файлы сливаются последовательно";
+    private static final String MSG_PARALLEL_MERGE_COMPRESSED = "Опция --parallel-merge не поддерживается для сжатых входных файлов, файлы сливаются последовательно";
+    private static final String MSG_COMPRESSED_BINARY_OUTPUT = "Двоичный результат не сжимается, укажите выходной файл без расширения .gz: %s%n";
+    private static final String MSG_COMPRESSED_REVERSED = "Сжатый файл отсортирован в обратном порядке, а с конца он не читается: %s%n";
+    private static final String MSG_ELEMENTS_COUNTED = "Элементов в результате: %d%n";
+    private static final String MSG_CHECKPOINT_RESUMED = "Слияние продолжается с контрольной точки, уже записано байт: %d%n";
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
 
-    private final SortManager sortManager;
+    private final ExternalSortManager externalSortManager;
+    private final ParallelMergeManager parallelMergeManager;
+    private final PresortedMergeManager presortedMergeManager;
+    private final CheckpointMergeManager checkpointMergeManager;
     private final FileManager fileManager;
+    private final SortRequestParser parser;
 
 
-    public SortItServiceImpl(SortManager sortManager, FileManager fileManager) {
-        this.sortManager = sortManager;
+    public SortItServiceImpl(ExternalSortManager externalSortManager, ParallelMergeManager parallelMergeManager,
+                             PresortedMergeManager presortedMergeManager, CheckpointMergeManager checkpointMergeManager,
+                             FileManager fileManager) {
+        this.externalSortManager = externalSortManager;
+        this.parallelMergeManager = parallelMergeManager;
+        this.presortedMergeManager = presortedMergeManager;
+        this.checkpointMergeManager = checkpointMergeManager;
         this.fileManager = fileManager;
+        this.parser = new SortRequestParser(fileManager);
     }
 
     @Override
     public void start(String[] args) {
+        run(args);
+    }
 
-        if (!isArgsValid(args)) {
-            return;
-        }
-
-        var fileDirectories = fileManager.extractFileDirectoriesFromArgs(argsList);
-        List<String> result;
+    @Override
+    public RunMetrics run(String[] args) {
+        var request = parser.parse(args);
+        return request == null ? null : run(request);
+    }
 
-        if (dataType.equals(DATA_TYPE_INT)) {
-            result = sortInt(fileDirectories);
-        } else {
-            result = sortString(fileDirectories);
+    /**
+     * Готовит задачу по входным файлам (двоичные и сжатые файлы, --auto, --checkpoint) и сортирует
+     * @param request - разобранная задача
+     * @return RunMetrics итог запуска, null - задача не запускалась, причина уже напечатана
+     */
+    private RunMetrics run(SortRequest request) {
+        var binaryHeaders = detectBinaryInput(request);
+        request = request.withReadOptions(request.getReadOptions().withBinaryFiles(binaryHeaders.keySet()));
+        if (request.isAutoDetected() && (request = detectInput(request, binaryHeaders)) == null) {
+            return null;
+        }
+        if (!isUniqueSupported(request)) {
+            return null;
+        }
+        request = prepareBinaryFormat(request, binaryHeaders);
+        if (request == null || (request = prepareCompression(request)) == null) {
+            return null;
+        }
+        if (request.getCheckpointFile() != null && (request = prepareCheckpoint(request)) == null) {
+            return null;
         }
 
-        fileManager.writeOutputFile(outputFile.getPath(), result);
+        var metrics = new RunMetrics(); //счётчики копятся всегда, выводятся только по --progress и --metrics
+        var writeOptions = request.getWriteOptions().withMetrics(metrics);
+        try (var rejections = new RejectionReporter(request.getRejectSamples(), request.getRejectsFile())) { //закрывается последним: итог после всех элементов
+            var progress = request.isProgressReported() ? new ProgressReporter(metrics, PROGRESS_INTERVAL_SECONDS) : null;
+            try (var heapSampler = new HeapSampler(metrics, HeapSampler.DEFAULT_INTERVAL_MILLIS);
+                 var sink = fileManager.openOutputSink(request.getOutputFile().getPath(), writeOptions)) {
+                request = request.withReadOptions(request.getReadOptions().withMetrics(metrics).withRejections(rejections));
+                switch (request.getDataType()) {
+                    case DATA_TYPE_INT:
+                        sortInt(request, sink);
+                        break;
+                    case DATA_TYPE_LONG:
+                        sortLong(request, sink);
+                        break;
+                    case DATA_TYPE_BIG_INTEGER:
+                    case DATA_TYPE_DECIMAL:
+                        sortDecimal(request, sink);
+                        break;
+                    default:
+                        sortString(request, sink);
+                }
+            } finally {
+                if (progress != null) { //последний отчёт - после того, как приёмник дописал файл
+                    progress.close();
+                }
+            }
+        }
+        metrics.finish();
+        if (request.getMetricsFile() != null) {
+            writeMetrics(request.getMetricsFile(), metrics);
+        }
+        if (writeOptions.isCountOnly()) {
+            System.out.printf(MSG_ELEMENTS_COUNTED, metrics.getElementsWritten());
+        }
         System.out.println(MSG_OPERATION_SUCCESS);
+        return metrics;
     }
 
     /**
-     * Валидирует и устанавливает тип сортировки, тип входных/выходных данных, выходной файл
-     * @param args - аргументы запуска
-     * @return Boolean true - аргументы вылидны, false - невалидны
+     * Пишет итог запуска в JSON файл из опции --metrics
      */
-    private Boolean isArgsValid(String[] args) {
+    private static void writeMetrics(Path metricsFile, RunMetrics metrics) {
+        try {
+            Files.writeString(metricsFile, metrics.toJson(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.printf(MSG_METRICS_NOT_WRITTEN, metricsFile);
+        }
+    }
 
-        if (args.length == 0) {
-            System.out.println(MSG_EMPTY_ARGUMENTS);
-            return Boolean.FALSE;
+    /**
+     * Находит среди входных файлов двоичные (по сигнатуре заголовка), они читаются записями, а не строками
+     * @param request - задача с входными файлами
+     * @return Map<String, BinaryHeader> заголовки двоичных файлов в порядке входных файлов
+     */
+    private Map<String, BinaryHeader> detectBinaryInput(SortRequest request) {
+        var binaryHeaders = new LinkedHashMap<String, BinaryHeader>();
+        for (String file : request.getInputFiles()) {
+            var header = fileManager.readBinaryHeader(file);
+            if (header != null) {
+                binaryHeaders.put(file, header);
+            }
         }
+        return binaryHeaders;
+    }
 
-        argsList = new ArrayList<>(Arrays.asList(args));
+    /**
+     * --unique убирает повторы, идущие подряд. Для строк по длине или по полю-ключу равные по порядку строки
+     * могут быть разными и идут в порядке файлов, так что повторы разделяются другими строками той же длины
+     * или того же ключа и остались бы в результате. Убирать их внутри группы равных ключей - значит держать
+     * в памяти все разные строки группы, а группа по длине может быть почти всем файлом,
+     * поэтому --unique для строк поддерживается только в порядке lex, где равные строки всегда рядом
+     * @return false - --unique не поддерживается для порядка строк, причина напечатана
+     */
+    private static boolean isUniqueSupported(SortRequest request) {
+        if (!request.getWriteOptions().isUnique() || !request.getDataType().equals(DATA_TYPE_STRING)
+                || request.getStringOrderName().equals(STRING_ORDER_LEXICOGRAPHIC)) {
+            return true;
+        }
+        System.out.printf(MSG_UNIQUE_NOT_SUPPORTED, request.getStringOrderName());
+        return false;
+    }
 
-        if (argsList.get(0).equals(SORT_TYPE_DESCENDING) || argsList.get(0).equals(SORT_TYPE_ASCENDING)) { //если есть режим сортировки в аргументах
-            sortType = argsList.get(0);
-            argsList.remove(0); //тип сортировки достали, больше он тут не нужен
+    /**
+     * Проверяет, что двоичные входные файлы и --output-format=binary используются с числами -i/-l,
+     * и задаёт заголовок двоичного выходного файла
+     * @return SortRequest задача с заголовком результата, null - форматы не подходят к типу данных
+     */
+    private static SortRequest prepareBinaryFormat(SortRequest request, Map<String, BinaryHeader> binaryHeaders) {
+        if (binaryHeaders.isEmpty() && !request.isBinaryOutput()) {
+            return request;
+        }
+        var dataType = request.getDataType();
+        if (!dataType.equals(DATA_TYPE_INT) && !dataType.equals(DATA_TYPE_LONG)) {
+            System.out.printf(MSG_BINARY_NOT_SUPPORTED, dataType);
+            return null;
+        }
+        if (request.isParallelMerge() && !binaryHeaders.isEmpty()) { //части делятся по строкам текста
+            System.out.println(MSG_PARALLEL_MERGE_BINARY);
+            request = request.withParallelMerge(false);
+        }
+        if (request.isBinaryOutput()) { //результат всегда отсортирован, число записей приёмник проставит при закрытии
+            var type = dataType.equals(DATA_TYPE_INT) ? BinaryHeader.TYPE_INT : BinaryHeader.TYPE_LONG;
+            request = request.withWriteOptions(request.getWriteOptions().withBinaryHeader(
+                    new BinaryHeader(type, request.isDescending(), true, -1)));
+        }
+        return request;
+    }
 
-            if (argsList.isEmpty()) { //если после режима сортировки нет типа данных
-                System.out.println(MSG_NO_DATA_TYPE_PROVIDED);
-                return Boolean.FALSE;
+    /**
+     * Сжатые входные файлы читаются с распаковкой только с начала: части для --parallel-merge по ним
+     * не найти, слияние идёт последовательно. Двоичный результат в gzip не пишется - число записей
+     * проставляется в заголовок уже записанного файла
+     * @return SortRequest задача, null - сжатие не подходит к формату результата
+     */
+    private SortRequest prepareCompression(SortRequest request) {
+        var outputFile = request.getOutputFile();
+        if (request.isBinaryOutput() && fileManager.isCompressed(outputFile.getPath())) {
+            System.out.printf(MSG_COMPRESSED_BINARY_OUTPUT, outputFile);
+            return null;
+        }
+        if (request.isParallelMerge() && request.getInputFiles().stream().anyMatch(fileManager::isCompressed)) {
+            System.out.println(MSG_PARALLEL_MERGE_COMPRESSED);
+            request = request.withParallelMerge(false);
+        }
+        return request;
+    }
+
+    /**
+     * Определяет тип данных и порядок сортировки, не указанные в аргументах, по строкам из начала и конца файлов.
+     * Тип - int, если почти все строки выборки во всех файлах числа. Порядок - тот, в котором отсортировано
+     * больше файлов. Файлы, отсортированные в обратную сторону, читаются с конца, а не отбрасываются поэлементно.
+     * Порядок строк (--string-order) - тот из length и lex, в котором отсортированы все файлы.
+     * Для неотсортированных файлов (--unsorted) определяется только тип
+     * @param request - задача с входными файлами
+     * @param binaryHeaders - заголовки двоичных входных файлов
+     * @return SortRequest задача с типом данных, порядком и файлами, которые читаются с конца,
+     *         null - порядок строк не определить, причина уже напечатана
+     */
+    private SortRequest detectInput(SortRequest request, Map<String, BinaryHeader> binaryHeaders) {
+        var samples = new LinkedHashMap<String, InputSample>();
+        for (String file : request.getInputFiles()) {
+            if (binaryHeaders.containsKey(file)) { //тип и порядок двоичного файла записаны в заголовке
+                continue;
             }
+            var sample = fileManager.sampleInput(file);
+            if (sample != null && !sample.isEmpty()) {
+                samples.put(file, sample);
+            }
+        }
+        if (request.getDataType() == null) {
+            var numeric = (!samples.isEmpty() || !binaryHeaders.isEmpty())
+                    && samples.values().stream().allMatch(InputSample::isNumeric);
+            var longRecords = binaryHeaders.values().stream()
+                    .anyMatch(header -> header.getType() == BinaryHeader.TYPE_LONG);
+            request = request.withDataType(!numeric ? DATA_TYPE_STRING : longRecords ? DATA_TYPE_LONG : DATA_TYPE_INT);
+        }
+        if (request.isUnsorted()) {
+            System.out.printf(MSG_AUTO_DETECTED, request.getDataType(), request.getSortType());
+            return request;
+        }
 
-            if (argsList.get(0).equals(DATA_TYPE_INT) || argsList.get(0).equals(DATA_TYPE_STRING)) {
-                dataType = argsList.get(0);
-                argsList.remove(0);
-            } else {
-                System.out.println(MSG_INVALID_ARGUMENTS);
-                return Boolean.FALSE;
+        var numeric = !request.getDataType().equals(DATA_TYPE_STRING); //порядок чисел любого типа определяется по целым строкам
+        if (!numeric && !request.isStringOrderProvided() && !samples.isEmpty()) {
+            var stringOrder = detectStringOrder(samples.values());
+            if (stringOrder == null) {
+                System.out.println(MSG_STRING_ORDER_UNKNOWN);
+                return null;
+            }
+            request = request.withStringOrder(stringOrder, false);
+            System.out.printf(MSG_STRING_ORDER_DETECTED, stringOrder);
+        }
+        var orders = new LinkedHashMap<String, Integer>();
+        var stringComparator = request.getStringOrder().comparator();
+        samples.forEach((file, sample) ->
+                orders.put(file, numeric ? sample.getOrder(true) : sample.getOrder(stringComparator)));
+        binaryHeaders.forEach((file, header) -> { //только голосуют: двоичный файл с конца не читается
+            if (header.isSorted()) {
+                orders.put(file, header.isDescending() ? -1 : 1);
             }
-            if (argsList.isEmpty()) { //если после типа сортировки и типа данных ничего нет, значит нет файлов, с которыми мы работаем
-                System.out.println(MSG_NO_FILES_PROVIDED);
-                return Boolean.FALSE;
+        });
+        if (!request.isSortTypeProvided()) {
+            var balance = orders.values().stream().mapToInt(Integer::intValue).sum();
+            request = request.withSortType(balance < 0 ? SORT_TYPE_DESCENDING : SORT_TYPE_ASCENDING, false);
+        }
+        var reversedOrder = request.isDescending() ? 1 : -1;
+        var reversedFiles = new LinkedHashSet<String>();
+        orders.forEach((file, order) -> {
+            if (order != reversedOrder || binaryHeaders.containsKey(file)) {
+                return;
             }
+            if (fileManager.isCompressed(file)) {
+                System.out.printf(MSG_COMPRESSED_REVERSED, file);
+            } else {
+                reversedFiles.add(file);
+            }
+        });
+        request = request.withReadOptions(request.getReadOptions().withReversedFiles(reversedFiles));
+
+        System.out.printf(MSG_AUTO_DETECTED, request.getDataType(), request.getSortType());
+        reversedFiles.forEach(file -> System.out.printf(MSG_FILE_REVERSED, file));
+        return request;
+    }
 
-        } else if (argsList.get(0).equals(DATA_TYPE_INT) || argsList.get(0).equals(DATA_TYPE_STRING)) { //если нет режима сортировки в аргументах
-            dataType = argsList.get(0);
-            argsList.remove(0);
-        } else { // если введены некорректные аргументы
-            System.out.println(MSG_INVALID_ARGUMENTS);
-            return Boolean.FALSE;
+    /**
+     * Порядок строк, в котором отсортированы все файлы выборки. По полю-ключу порядок не определяется:
+     * номер поля и разделитель по строкам не угадать
+     * @return String length или lex, null - ни один из них не подходит ко всем файлам или подходят оба
+     */
+    private static String detectStringOrder(Collection<InputSample> samples) {
+        String detected = null;
+        for (String name : List.of(STRING_ORDER_LENGTH, STRING_ORDER_LEXICOGRAPHIC)) {
+            var comparator = (name.equals(STRING_ORDER_LENGTH) ? StringOrder.LENGTH : StringOrder.BYTES).comparator();
+            var visible = false;
+            var matches = true;
+            for (InputSample sample : samples) {
+                var match = sample.matchOrder(comparator);
+                visible |= match > 0;
+                matches &= match >= 0;
+            }
+            if (visible && matches) {
+                if (detected != null) { //например, строки по возрастанию и длины, и байт: порядок неоднозначен
+                    return null;
+                }
+                detected = name;
+            }
         }
+        return detected;
+    }
 
-        outputFile = new File(argsList.get(0)); //выходной файл
-        argsList.remove(0);
+    /**
+     * Сверяет запуск с журналом --checkpoint. Если журнал есть и записан для тех же аргументов и тех же
+     * входных файлов, выходной файл дописывается с длины из журнала, иначе запуск останавливается,
+     * чтобы не затереть результат чужого прерванного слияния
+     * @param request - задача с журналом контрольных точек
+     * @return SortRequest задача с настройками слияния, с начала или с контрольной точки, null - сливать нельзя
+     */
+    private static SortRequest prepareCheckpoint(SortRequest request) {
+        for (String file : request.getInputFiles()) {
+            if (request.getReadOptions().isReversed(file)) { //файл с конца читается только целиком, смещений строк у него нет
+                System.out.printf(MSG_CHECKPOINT_REVERSED, file);
+                return null;
+            }
+        }
+        if (request.isParallelMerge()) {
+            System.out.println(MSG_CHECKPOINT_SEQUENTIAL);
+            request = request.withParallelMerge(false);
+        }
 
-        if(argsList.isEmpty()) { //отсутствуют входящие файлы
-            System.out.println(MSG_NO_INPUT_FILES_PROVIDED);
-            return Boolean.FALSE;
+        var checkpointFile = request.getCheckpointFile();
+        var checkpointOptions = new CheckpointOptions(checkpointFile, checkpointJob(request))
+                .withIntervalSeconds(request.getCheckpointInterval());
+        CheckpointJournal journal;
+        try {
+            journal = CheckpointJournal.read(checkpointFile);
+        } catch (IOException e) {
+            System.out.printf(MSG_CHECKPOINT_INVALID, checkpointFile);
+            return null;
         }
+        if (journal == null) {
+            return request.withCheckpointOptions(checkpointOptions);
+        }
+        if (!journal.getJob().equals(checkpointOptions.getJob())
+                || request.getOutputFile().length() < journal.getOutputLength()) {
+            System.out.printf(MSG_CHECKPOINT_MISMATCH, checkpointFile);
+            return null;
+        }
+        System.out.printf(MSG_CHECKPOINT_RESUMED, journal.getOutputLength());
+        return request.withCheckpointOptions(checkpointOptions.withResumedJournal(journal))
+                .withWriteOptions(request.getWriteOptions().withResumeOffset(journal.getOutputLength()));
+    }
 
-        if (!outputFile.isFile()) {
-            System.out.printf(MSG_OUTPUT_FILE_NOT_FOUND, outputFile);
-            return Boolean.FALSE;
+    /**
+     * @return описание задачи для журнала: тип данных, порядок, выходной файл, входные файлы с размерами.
+     *         Изменившийся размер входного файла значит, что смещения из журнала к нему уже не относятся
+     */
+    private static String checkpointJob(SortRequest request) {
+        var dataType = request.getDataType();
+        var job = new StringBuilder()
+                .append(dataType).append(' ').append(request.getSortType())
+                .append(' ').append(request.isBinaryOutput() ? OUTPUT_FORMAT_BINARY : OUTPUT_FORMAT_TEXT);
+        if (dataType.equals(DATA_TYPE_STRING)) {
+            job.append(' ').append(request.getStringOrderName()).append(' ').append(request.getKeyField())
+                    .append(' ').append(request.getKeyDelimiter());
+        }
+        job.append('\n').append(request.getOutputFile().getAbsoluteFile().toPath().normalize());
+        for (String file : request.getInputFiles()) {
+            var path = Path.of(file).toAbsolutePath().normalize();
+            job.append('\n').append(path.toFile().length()).append(' ').append(path);
         }
-        return Boolean.TRUE;
+        return job.toString();
     }
 
     /**
-     * Вызывает все необходимые методы для сортировки int данных
-     * @param fileDirectories - файлы, данные которых отсортируются
-     * @return List<String> - отсортированные данные
+     * Вызывает все необходимые методы для сортировки int данных.
+     * По каждому файлу открывается курсор, элементы сливаются и пишутся в выходной файл по одному,
+     * так что в памяти держится только по одному элементу на файл. Файлы, которые не пересекаются
+     * с другими по диапазону элементов, дописываются в выходной файл целиком, без слияния
+     * @param request - задача, файлы которой отсортируются
+     * @param sink - приёмник отсортированных данных
      */
-    private List<String> sortInt(List<String> fileDirectories) {
-        var filesWithElements = new HashMap<
-                String, //Файл
-                List<Integer> //Элементы файла
-                >();
-        for (String file : fileDirectories) { //разделяем на файлы и их данные
-            var elements = fileManager.getIntElementsFromFile(file, sortType);
-            if (!elements.isEmpty()) {
-                filesWithElements.put(file, elements);
-            }
+    private void sortInt(SortRequest request, OutputSink sink) {
+        var fileDirectories = request.getInputFiles();
+        var descending = request.isDescending();
+        var readOptions = request.getReadOptions();
+
+        if (request.isUnsorted()) {
+            externalSortManager.externalSortInt(fileDirectories, descending, readOptions, sink,
+                    request.getExternalSortOptions());
+            return;
+        }
+        if (request.getCheckpointOptions() != null) {
+            checkpointMergeManager.checkpointMergeInt(fileDirectories, descending, readOptions,
+                    request.getCheckpointOptions(), sink);
+            return;
+        }
+        if (request.isParallelMerge()) {
+            parallelMergeManager.parallelMergeInt(fileDirectories, descending, readOptions, sink,
+                    request.getExternalSortOptions());
+            return;
         }
 
-        if (sortType.equals(SORT_TYPE_ASCENDING)) {
-            return sortManager.ascendingMergeSortInt(filesWithElements);
-        } else {
-            return sortManager.descendingMergeSortInt(filesWithElements);
+        presortedMergeManager.presortedMergeInt(fileDirectories, descending, readOptions, sink);
+    }
+
+    /**
+     * Вызывает все необходимые методы для сортировки long данных, так же, как для int.
+     * Параллельного слияния для long нет, файлы сливаются последовательно
+     * @param request - задача, файлы которой отсортируются
+     * @param sink - приёмник отсортированных данных
+     */
+    private void sortLong(SortRequest request, OutputSink sink) {
+        var fileDirectories = request.getInputFiles();
+        var descending = request.isDescending();
+        var readOptions = request.getReadOptions();
+
+        if (request.isUnsorted()) {
+            externalSortManager.externalSortLong(fileDirectories, descending, readOptions, sink,
+                    request.getExternalSortOptions());
+            return;
         }
+        if (request.getCheckpointOptions() != null) {
+            checkpointMergeManager.checkpointMergeLong(fileDirectories, descending, readOptions,
+                    request.getCheckpointOptions(), sink);
+            return;
+        }
+        if (request.isParallelMerge()) {
+            System.out.printf(MSG_PARALLEL_MERGE_NOT_SUPPORTED, request.getDataType());
+        }
+
+        presortedMergeManager.presortedMergeLong(fileDirectories, descending, readOptions, sink);
     }
 
     /**
-     * Вызывает все необходимые методы для сортировки String данных
-     * @param fileDirectories - файлы, данные которых отсортируются
-     * @return List<String> - отсортированные данные
+     * Вызывает все необходимые методы для сортировки чисел произвольной точности: целых (-b) или десятичных дробей (-n).
+     * Числа сравниваются в каноническом виде, без BigInteger/BigDecimal, и пишутся в выходной файл в этом же виде
+     * @param request - задача, файлы которой отсортируются
+     * @param sink - приёмник отсортированных данных
      */
-    private List<String> sortString(List<String> fileDirectories) {
-        var filesWithElements = new HashMap<
-                String,
-                List<String>
-                >();
-        for (String file : fileDirectories) {
-            var elements = fileManager.getStringElementsFromFile(file, sortType);
-            if (!elements.isEmpty()) {
-                filesWithElements.put(file, elements);
-            }
+    private void sortDecimal(SortRequest request, OutputSink sink) {
+        var fileDirectories = request.getInputFiles();
+        var descending = request.isDescending();
+        var fractional = request.getDataType().equals(DATA_TYPE_DECIMAL);
+        var readOptions = request.getReadOptions();
+        if (request.getCheckpointOptions() != null) {
+            checkpointMergeManager.checkpointMergeDecimal(fileDirectories, descending, fractional, readOptions,
+                    request.getCheckpointOptions(), sink);
+            return;
         }
+        if (request.isParallelMerge()) {
+            System.out.printf(MSG_PARALLEL_MERGE_NOT_SUPPORTED, request.getDataType());
+        }
+
+        presortedMergeManager.presortedMergeDecimal(fileDirectories, descending, fractional, readOptions, sink);
+    }
+
+    /**
+     * Вызывает все необходимые методы для сортировки String данных.
+     * Слияние, внешняя сортировка и параллельное слияние сравнивают строки в байтах, без декодирования в String
+     * @param request - задача, файлы которой отсортируются
+     * @param sink - приёмник отсортированных данных
+     */
+    private void sortString(SortRequest request, OutputSink sink) {
+        var fileDirectories = request.getInputFiles();
+        var order = request.getStringOrder();
+        var descending = request.isDescending();
+        var readOptions = request.getReadOptions();
 
-        if (sortType.equals(SORT_TYPE_ASCENDING)) {
-            return sortManager.ascendingMergeSortString(filesWithElements);
-        } else {
-            return sortManager.descendingMergeSortString(filesWithElements);
+        if (request.isUnsorted()) {
+            externalSortManager.externalSortString(fileDirectories, order, descending, readOptions, sink,
+                    request.getExternalSortOptions());
+            return;
+        }
+        if (request.getCheckpointOptions() != null) {
+            checkpointMergeManager.checkpointMergeString(fileDirectories, order, descending, readOptions,
+                    request.getCheckpointOptions(), sink);
+            return;
         }
+        if (request.isParallelMerge()) {
+            parallelMergeManager.parallelMergeString(fileDirectories, order, descending, readOptions, sink,
+                    request.getExternalSortOptions());
+            return;
+        }
+
+        presortedMergeManager.presortedMergeString(fileDirectories, order, descending, readOptions, sink);
     }
 }
@@ -0,0 +1,429 @@
+package org.example.service;
+
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.RejectionReporter;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+import org.example.sortmanager.CheckpointOptions;
+import org.example.sortmanager.ExternalSortOptions;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Задача сортировки одного запуска: тип данных, порядок, выходной и входные файлы и все опции.
+ * Разбирается из аргументов SortRequestParser, а сервис по ходу подготовки (--auto, двоичные и сжатые файлы,
+ * --checkpoint) получает из неё уточнённые копии. Объект неизменяемый: поля final, with возвращает новый запрос.
+ * Поэтому сервис не хранит состояния запуска в полях, и несколько задач выполняются в одной JVM параллельно
+ */
+public class SortRequest {
+
+    public static final String SORT_TYPE_ASCENDING = "-a";
+    public static final String SORT_TYPE_DESCENDING = "-d";
+    public static final String DATA_TYPE_STRING = "-s";
+    public static final String DATA_TYPE_INT = "-i";
+    public static final String DATA_TYPE_LONG = "-l";
+    public static final String DATA_TYPE_BIG_INTEGER = "-b";
+    public static final String DATA_TYPE_DECIMAL = "-n";
+    public static final String OUTPUT_FORMAT_TEXT = "text";
+    public static final String OUTPUT_FORMAT_BINARY = "binary";
+    public static final String STRING_ORDER_LENGTH = "length";
+    public static final String STRING_ORDER_LEXICOGRAPHIC = "lex";
+    public static final String STRING_ORDER_KEY = "key";
+    public static final SortRequest DEFAULT = new Builder().build();
+
+    private final String dataType;
+    private final String sortType;
+    private final boolean sortTypeProvided;
+    private final File outputFile;
+    private final List<String> inputFiles;
+    private final ReadOptions readOptions;
+    private final WriteOptions writeOptions;
+    private final ExternalSortOptions externalSortOptions;
+    private final boolean unsorted;
+    private final boolean parallelMerge;
+    private final boolean progressReported;
+    private final boolean autoDetected;
+    private final boolean binaryOutput;
+    private final Path metricsFile;
+    private final int rejectSamples;
+    private final Path rejectsFile;
+    private final String stringOrder;
+    private final boolean stringOrderProvided;
+    private final int keyField;
+    private final char keyDelimiter;
+    private final Path checkpointFile;
+    private final long checkpointInterval;
+    private final CheckpointOptions checkpointOptions;
+
+    private SortRequest(Builder builder) {
+        this.dataType = builder.dataType;
+        this.sortType = builder.sortType;
+        this.sortTypeProvided = builder.sortTypeProvided;
+        this.outputFile = builder.outputFile;
+        this.inputFiles = builder.inputFiles;
+        this.readOptions = builder.readOptions;
+        this.writeOptions = builder.writeOptions;
+        this.externalSortOptions = builder.externalSortOptions;
+        this.unsorted = builder.unsorted;
+        this.parallelMerge = builder.parallelMerge;
+        this.progressReported = builder.progressReported;
+        this.autoDetected = builder.autoDetected;
+        this.binaryOutput = builder.binaryOutput;
+        this.metricsFile = builder.metricsFile;
+        this.rejectSamples = builder.rejectSamples;
+        this.rejectsFile = builder.rejectsFile;
+        this.stringOrder = builder.stringOrder;
+        this.stringOrderProvided = builder.stringOrderProvided;
+        this.keyField = builder.keyField;
+        this.keyDelimiter = builder.keyDelimiter;
+        this.checkpointFile = builder.checkpointFile;
+        this.checkpointInterval = builder.checkpointInterval;
+        this.checkpointOptions = builder.checkpointOptions;
+    }
+
+    /**
+     * @return тип данных (-i, -l, -b, -n, -s), null - не указан и определится по файлам (--auto)
+     */
+    public String getDataType() {
+        return dataType;
+    }
+
+    /**
+     * @return режим сортировки, -a или -d
+     */
+    public String getSortType() {
+        return sortType;
+    }
+
+    /**
+     * @return true - режим сортировки указан в аргументах, а не взят по умолчанию
+     */
+    public boolean isSortTypeProvided() {
+        return sortTypeProvided;
+    }
+
+    public boolean isDescending() {
+        return sortType.equals(SORT_TYPE_DESCENDING);
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * @return List<String> входные файлы, которые нашлись на диске, в порядке аргументов
+     */
+    public List<String> getInputFiles() {
+        return inputFiles;
+    }
+
+    public ReadOptions getReadOptions() {
+        return readOptions;
+    }
+
+    public WriteOptions getWriteOptions() {
+        return writeOptions;
+    }
+
+    public ExternalSortOptions getExternalSortOptions() {
+        return externalSortOptions;
+    }
+
+    /**
+     * @return true - входные файлы не отсортированы, внешняя сортировка (--unsorted)
+     */
+    public boolean isUnsorted() {
+        return unsorted;
+    }
+
+    /**
+     * @return true - файлы сливаются параллельно по частям диапазона (--parallel-merge)
+     */
+    public boolean isParallelMerge() {
+        return parallelMerge;
+    }
+
+    public boolean isProgressReported() {
+        return progressReported;
+    }
+
+    /**
+     * @return true - тип данных и порядок, не указанные в аргументах, определяются по файлам (--auto)
+     */
+    public boolean isAutoDetected() {
+        return autoDetected;
+    }
+
+    /**
+     * @return true - результат пишется в двоичном формате (--output-format=binary)
+     */
+    public boolean isBinaryOutput() {
+        return binaryOutput;
+    }
+
+    /**
+     * @return файл для итога запуска в JSON (--metrics), null - итог не пишется
+     */
+    public Path getMetricsFile() {
+        return metricsFile;
+    }
+
+    public int getRejectSamples() {
+        return rejectSamples;
+    }
+
+    /**
+     * @return файл для всех невалидных элементов (--rejects-file), null - они только печатаются
+     */
+    public Path getRejectsFile() {
+        return rejectsFile;
+    }
+
+    /**
+     * @return название порядка строк из --string-order: length, lex или key
+     */
+    public String getStringOrderName() {
+        return stringOrder;
+    }
+
+    /**
+     * @return true - порядок строк указан в аргументах, а не взят по умолчанию
+     */
+    public boolean isStringOrderProvided() {
+        return stringOrderProvided;
+    }
+
+    public int getKeyField() {
+        return keyField;
+    }
+
+    public char getKeyDelimiter() {
+        return keyDelimiter;
+    }
+
+    /**
+     * @return StringOrder порядок строк из --string-order, --key-field и --key-delimiter
+     */
+    public StringOrder getStringOrder() {
+        switch (stringOrder) {
+            case STRING_ORDER_LEXICOGRAPHIC:
+                return StringOrder.BYTES;
+            case STRING_ORDER_KEY:
+                return StringOrder.field(keyField, keyDelimiter);
+            default:
+                return StringOrder.LENGTH;
+        }
+    }
+
+    /**
+     * @return журнал контрольных точек (--checkpoint), null - слияние без контрольных точек
+     */
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * @return настройки слияния с контрольными точками, задаются при подготовке запуска по журналу,
+     *         null - журнал ещё не сверен или --checkpoint не указан
+     */
+    public CheckpointOptions getCheckpointOptions() {
+        return checkpointOptions;
+    }
+
+    public SortRequest withDataType(String dataType) {
+        var builder = new Builder(this);
+        builder.dataType = dataType;
+        return builder.build();
+    }
+
+    public SortRequest withSortType(String sortType, boolean provided) {
+        var builder = new Builder(this);
+        builder.sortType = sortType;
+        builder.sortTypeProvided = provided;
+        return builder.build();
+    }
+
+    public SortRequest withOutputFile(File outputFile) {
+        var builder = new Builder(this);
+        builder.outputFile = outputFile;
+        return builder.build();
+    }
+
+    public SortRequest withInputFiles(List<String> inputFiles) {
+        var builder = new Builder(this);
+        builder.inputFiles = List.copyOf(inputFiles);
+        return builder.build();
+    }
+
+    public SortRequest withReadOptions(ReadOptions readOptions) {
+        var builder = new Builder(this);
+        builder.readOptions = readOptions;
+        return builder.build();
+    }
+
+    public SortRequest withWriteOptions(WriteOptions writeOptions) {
+        var builder = new Builder(this);
+        builder.writeOptions = writeOptions;
+        return builder.build();
+    }
+
+    public SortRequest withExternalSortOptions(ExternalSortOptions externalSortOptions) {
+        var builder = new Builder(this);
+        builder.externalSortOptions = externalSortOptions;
+        return builder.build();
+    }
+
+    public SortRequest withUnsorted(boolean unsorted) {
+        var builder = new Builder(this);
+        builder.unsorted = unsorted;
+        return builder.build();
+    }
+
+    public SortRequest withParallelMerge(boolean parallelMerge) {
+        var builder = new Builder(this);
+        builder.parallelMerge = parallelMerge;
+        return builder.build();
+    }
+
+    public SortRequest withProgressReported(boolean progressReported) {
+        var builder = new Builder(this);
+        builder.progressReported = progressReported;
+        return builder.build();
+    }
+
+    public SortRequest withAutoDetected(boolean autoDetected) {
+        var builder = new Builder(this);
+        builder.autoDetected = autoDetected;
+        return builder.build();
+    }
+
+    public SortRequest withBinaryOutput(boolean binaryOutput) {
+        var builder = new Builder(this);
+        builder.binaryOutput = binaryOutput;
+        return builder.build();
+    }
+
+    public SortRequest withMetricsFile(Path metricsFile) {
+        var builder = new Builder(this);
+        builder.metricsFile = metricsFile;
+        return builder.build();
+    }
+
+    public SortRequest withRejectSamples(int rejectSamples) {
+        var builder = new Builder(this);
+        builder.rejectSamples = rejectSamples;
+        return builder.build();
+    }
+
+    public SortRequest withRejectsFile(Path rejectsFile) {
+        var builder = new Builder(this);
+        builder.rejectsFile = rejectsFile;
+        return builder.build();
+    }
+
+    public SortRequest withStringOrder(String stringOrder, boolean provided) {
+        var builder = new Builder(this);
+        builder.stringOrder = stringOrder;
+        builder.stringOrderProvided = provided;
+        return builder.build();
+    }
+
+    public SortRequest withKeyField(int keyField) {
+        var builder = new Builder(this);
+        builder.keyField = keyField;
+        return builder.build();
+    }
+
+    public SortRequest withKeyDelimiter(char keyDelimiter) {
+        var builder = new Builder(this);
+        builder.keyDelimiter = keyDelimiter;
+        return builder.build();
+    }
+
+    public SortRequest withCheckpointFile(Path checkpointFile) {
+        var builder = new Builder(this);
+        builder.checkpointFile = checkpointFile;
+        return builder.build();
+    }
+
+    public SortRequest withCheckpointInterval(long checkpointInterval) {
+        var builder = new Builder(this);
+        builder.checkpointInterval = checkpointInterval;
+        return builder.build();
+    }
+
+    public SortRequest withCheckpointOptions(CheckpointOptions checkpointOptions) {
+        var builder = new Builder(this);
+        builder.checkpointOptions = checkpointOptions;
+        return builder.build();
+    }
+
+    /**
+     * Изменяемая заготовка запроса: with копирует в неё поля запроса, меняет одно и собирает новый запрос.
+     * Наружу не отдаётся, так что у самого запроса поля final и он безопасно передаётся между потоками
+     */
+    private static class Builder {
+        private String dataType;
+        private String sortType = SORT_TYPE_ASCENDING;
+        private boolean sortTypeProvided;
+        private File outputFile;
+        private List<String> inputFiles = List.of();
+        private ReadOptions readOptions = ReadOptions.DEFAULT;
+        private WriteOptions writeOptions = WriteOptions.DEFAULT;
+        private ExternalSortOptions externalSortOptions = ExternalSortOptions.DEFAULT;
+        private boolean unsorted;
+        private boolean parallelMerge;
+        private boolean progressReported;
+        private boolean autoDetected;
+        private boolean binaryOutput;
+        private Path metricsFile;
+        private int rejectSamples = RejectionReporter.DEFAULT_SAMPLE_LIMIT;
+        private Path rejectsFile;
+        private String stringOrder = STRING_ORDER_LENGTH;
+        private boolean stringOrderProvided;
+        private int keyField = 1;
+        private char keyDelimiter = ',';
+        private Path checkpointFile;
+        private long checkpointInterval = CheckpointOptions.DEFAULT_INTERVAL_SECONDS;
+        private CheckpointOptions checkpointOptions;
+
+        Builder() {
+        }
+
+        Builder(SortRequest request) {
+            dataType = request.dataType;
+            sortType = request.sortType;
+            sortTypeProvided = request.sortTypeProvided;
+            outputFile = request.outputFile;
+            inputFiles = request.inputFiles;
+            readOptions = request.readOptions;
+            writeOptions = request.writeOptions;
+            externalSortOptions = request.externalSortOptions;
+            unsorted = request.unsorted;
+            parallelMerge = request.parallelMerge;
+            progressReported = request.progressReported;
+            autoDetected = request.autoDetected;
+            binaryOutput = request.binaryOutput;
+            metricsFile = request.metricsFile;
+            rejectSamples = request.rejectSamples;
+            rejectsFile = request.rejectsFile;
+            stringOrder = request.stringOrder;
+            stringOrderProvided = request.stringOrderProvided;
+            keyField = request.keyField;
+            keyDelimiter = request.keyDelimiter;
+            checkpointFile = request.checkpointFile;
+            checkpointInterval = request.checkpointInterval;
+            checkpointOptions = request.checkpointOptions;
+        }
+
+        SortRequest build() {
+            return new SortRequest(this);
+        }
+    }
+}
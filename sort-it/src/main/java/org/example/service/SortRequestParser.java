@@ -0,0 +1,404 @@
+package org.example.service;
+
+import org.example.filemanager.FileManager;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.example.service.SortRequest.DATA_TYPE_BIG_INTEGER;
+import static org.example.service.SortRequest.DATA_TYPE_DECIMAL;
+import static org.example.service.SortRequest.DATA_TYPE_INT;
+import static org.example.service.SortRequest.DATA_TYPE_LONG;
+import static org.example.service.SortRequest.DATA_TYPE_STRING;
+import static org.example.service.SortRequest.OUTPUT_FORMAT_BINARY;
+import static org.example.service.SortRequest.OUTPUT_FORMAT_TEXT;
+import static org.example.service.SortRequest.SORT_TYPE_ASCENDING;
+import static org.example.service.SortRequest.SORT_TYPE_DESCENDING;
+import static org.example.service.SortRequest.STRING_ORDER_KEY;
+import static org.example.service.SortRequest.STRING_ORDER_LENGTH;
+import static org.example.service.SortRequest.STRING_ORDER_LEXICOGRAPHIC;
+
+/**
+ * Разбирает аргументы запуска в SortRequest. Состояния не хранит: разбор идёт в локальных переменных,
+ * так что один парсер обслуживает задачи из разных потоков
+ */
+class SortRequestParser {
+    private static final Set<String> DATA_TYPES = Set.of(
+            DATA_TYPE_INT,
+            DATA_TYPE_LONG,
+            DATA_TYPE_BIG_INTEGER,
+            DATA_TYPE_DECIMAL,
+            DATA_TYPE_STRING
+    );
+    private static final String MSG_INVALID_ARGUMENTS = "Введены некорректные аргументы!";
+    private static final String MSG_OUTPUT_FILE_NOT_FOUND = "Выходной файл не найден! Путь: %s";
+    private static final String MSG_EMPTY_ARGUMENTS = "Список аргументов пуст!";
+    private static final String MSG_NO_FILES_PROVIDED = "В аргументах не указаны выходной и входные файлы!";
+    private static final String MSG_NO_DATA_TYPE_PROVIDED = "В аргументах не указан тип входных данных";
+    private static final String MSG_NO_INPUT_FILES_PROVIDED = "Не указаны входящие файлы!";
+    private static final String MSG_UNKNOWN_OPTION = "Неизвестная опция: %s%n";
+    private static final String MSG_INVALID_OPTION_VALUE = "Некорректное значение опции: %s%n";
+    private static final String MSG_UNSORTED_NOT_SUPPORTED = "Опция --unsorted не поддерживается для типа данных %s%n";
+    private static final String MSG_CHECKPOINT_NOT_SUPPORTED = "Опция --checkpoint не поддерживается вместе с %s%n";
+    private static final String MSG_PARALLEL_MERGE_FILTERED = "Опция --parallel-merge не поддерживается вместе с %s, файлы сливаются последовательно%n";
+    private static final String OPTION_PREFIX = "--";
+    private static final String OPTION_VALUE_SEPARATOR = "=";
+    private static final String OPTION_MMAP = "--mmap";
+    private static final String OPTION_PREFETCH = "--prefetch";
+    private static final String OPTION_OUTPUT_BUFFER = "--out-buffer";
+    private static final String OPTION_FSYNC = "--fsync";
+    private static final String OPTION_UNSORTED = "--unsorted";
+    private static final String OPTION_MEMORY = "--memory";
+    private static final String OPTION_FAN_IN = "--fan-in";
+    private static final String OPTION_TEMP_DIRECTORY = "--tmp-dir";
+    private static final String OPTION_THREADS = "--threads";
+    private static final String OPTION_PARALLEL_MERGE = "--parallel-merge";
+    private static final String OPTION_PROGRESS = "--progress";
+    private static final String OPTION_METRICS = "--metrics";
+    private static final String OPTION_REJECT_SAMPLES = "--reject-samples";
+    private static final String OPTION_REJECTS_FILE = "--rejects-file";
+    private static final String OPTION_AUTO = "--auto";
+    private static final String OPTION_STRING_ORDER = "--string-order";
+    private static final String OPTION_KEY_FIELD = "--key-field";
+    private static final String OPTION_KEY_DELIMITER = "--key-delimiter";
+    private static final String OPTION_CHECKPOINT = "--checkpoint";
+    private static final String OPTION_CHECKPOINT_INTERVAL = "--checkpoint-interval";
+    private static final String OPTION_OUTPUT_FORMAT = "--output-format";
+    private static final String OPTION_GZIP_LEVEL = "--gzip-level";
+    private static final String OPTION_UNIQUE = "--unique";
+    private static final String OPTION_LIMIT = "--limit";
+    private static final String OPTION_COUNT_ONLY = "--count-only";
+    private static final Set<String> OPTIONS_WITH_VALUE = Set.of(
+            OPTION_OUTPUT_BUFFER,
+            OPTION_METRICS,
+            OPTION_REJECT_SAMPLES,
+            OPTION_REJECTS_FILE,
+            OPTION_STRING_ORDER,
+            OPTION_KEY_FIELD,
+            OPTION_KEY_DELIMITER,
+            OPTION_CHECKPOINT,
+            OPTION_CHECKPOINT_INTERVAL,
+            OPTION_OUTPUT_FORMAT,
+            OPTION_GZIP_LEVEL,
+            OPTION_LIMIT,
+            OPTION_MEMORY,
+            OPTION_FAN_IN,
+            OPTION_TEMP_DIRECTORY,
+            OPTION_THREADS
+    );
+
+    private final FileManager fileManager;
+
+    SortRequestParser(FileManager fileManager) {
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Валидирует и устанавливает тип сортировки, тип входных/выходных данных, выходной и входные файлы
+     * @param args - аргументы запуска
+     * @return SortRequest задача, null - аргументы невалидны, причина уже напечатана
+     */
+    SortRequest parse(String[] args) {
+
+        if (args.length == 0) {
+            System.out.println(MSG_EMPTY_ARGUMENTS);
+            return null;
+        }
+
+        var argsList = new ArrayList<>(Arrays.asList(args));
+
+        var request = extractOptions(argsList);
+        if (request == null) {
+            return null;
+        }
+        if (argsList.isEmpty()) { //были только опции
+            System.out.println(MSG_INVALID_ARGUMENTS);
+            return null;
+        }
+
+        if (argsList.get(0).equals(SORT_TYPE_DESCENDING) || argsList.get(0).equals(SORT_TYPE_ASCENDING)) { //если есть режим сортировки в аргументах
+            request = request.withSortType(argsList.get(0), true);
+            argsList.remove(0); //тип сортировки достали, больше он тут не нужен
+
+            if (argsList.isEmpty()) { //если после режима сортировки нет типа данных
+                System.out.println(request.isAutoDetected() ? MSG_NO_FILES_PROVIDED : MSG_NO_DATA_TYPE_PROVIDED);
+                return null;
+            }
+
+            if (DATA_TYPES.contains(argsList.get(0))) {
+                request = request.withDataType(argsList.get(0));
+                argsList.remove(0);
+            } else if (!request.isAutoDetected()) { //с --auto тип данных определится по файлам
+                System.out.println(MSG_INVALID_ARGUMENTS);
+                return null;
+            }
+            if (argsList.isEmpty()) { //если после типа сортировки и типа данных ничего нет, значит нет файлов, с которыми мы работаем
+                System.out.println(MSG_NO_FILES_PROVIDED);
+                return null;
+            }
+
+        } else if (DATA_TYPES.contains(argsList.get(0))) { //если нет режима сортировки в аргументах
+            request = request.withDataType(argsList.get(0));
+            argsList.remove(0);
+        } else if (!request.isAutoDetected()) { // если введены некорректные аргументы
+            System.out.println(MSG_INVALID_ARGUMENTS);
+            return null;
+        }
+
+        var outputFile = new File(argsList.get(0)); //выходной файл
+        argsList.remove(0);
+
+        if(argsList.isEmpty()) { //отсутствуют входящие файлы
+            System.out.println(MSG_NO_INPUT_FILES_PROVIDED);
+            return null;
+        }
+
+        if (!outputFile.isFile()) {
+            System.out.printf(MSG_OUTPUT_FILE_NOT_FOUND, outputFile);
+            return null;
+        }
+        request = request.withOutputFile(outputFile);
+        var dataType = request.getDataType();
+        if (request.isUnsorted() && (DATA_TYPE_BIG_INTEGER.equals(dataType) || DATA_TYPE_DECIMAL.equals(dataType))) {
+            System.out.printf(MSG_UNSORTED_NOT_SUPPORTED, dataType);
+            return null;
+        }
+        if (request.isUnsorted() && request.getCheckpointFile() != null) { //внешняя сортировка пишет результат только в конце, точек в ней нет
+            System.out.printf(MSG_CHECKPOINT_NOT_SUPPORTED, OPTION_UNSORTED);
+            return null;
+        }
+        var filteringOption = filteringOption(request);
+        if (filteringOption != null && request.getCheckpointFile() != null) { //повторы и счётчик не переживают перезапуск
+            System.out.printf(MSG_CHECKPOINT_NOT_SUPPORTED, filteringOption);
+            return null;
+        }
+        if (filteringOption != null && request.isParallelMerge()) { //части сливаются в файлы целиком, до фильтра
+            System.out.printf(MSG_PARALLEL_MERGE_FILTERED, filteringOption);
+            request = request.withParallelMerge(false);
+        }
+        return request.withInputFiles(fileManager.extractFileDirectoriesFromArgs(argsList));
+    }
+
+    /**
+     * @return String опция, из-за которой в результат попадают не все элементы, null - попадают все
+     */
+    private static String filteringOption(SortRequest request) {
+        var writeOptions = request.getWriteOptions();
+        if (writeOptions.isCountOnly()) {
+            return OPTION_COUNT_ONLY;
+        }
+        if (writeOptions.getLimit() >= 0) {
+            return OPTION_LIMIT;
+        }
+        return writeOptions.isUnique() ? OPTION_UNIQUE : null;
+    }
+
+    /**
+     * Достаёт из аргументов опции (начинаются с "--"), оставшиеся аргументы разбираются по порядку, как раньше.
+     * Значение опции указывается через "=" или следующим аргументом: --out-buffer=8m или --out-buffer 8m
+     * @param argsList - аргументы, опции из него удаляются
+     * @return SortRequest задача с опциями, null - есть неизвестная или некорректная опция
+     */
+    private SortRequest extractOptions(List<String> argsList) {
+        var request = SortRequest.DEFAULT;
+        var iterator = argsList.iterator();
+        while (iterator.hasNext()) {
+            var option = iterator.next();
+            if (!option.startsWith(OPTION_PREFIX)) {
+                continue;
+            }
+            iterator.remove();
+
+            String value = null;
+            var separatorIndex = option.indexOf(OPTION_VALUE_SEPARATOR);
+            if (separatorIndex >= 0) {
+                value = option.substring(separatorIndex + 1);
+                option = option.substring(0, separatorIndex);
+            } else if (OPTIONS_WITH_VALUE.contains(option) && iterator.hasNext()) {
+                value = iterator.next();
+                iterator.remove();
+            }
+            if (OPTIONS_WITH_VALUE.contains(option) == (value == null)) { //значение есть у опции без значения или наоборот
+                System.out.printf(MSG_INVALID_OPTION_VALUE, option);
+                return null;
+            }
+
+            request = applyOption(request, option, value);
+            if (request == null) {
+                return null;
+            }
+        }
+        return request;
+    }
+
+    /**
+     * @param request - задача с уже разобранными опциями
+     * @param option - название опции
+     * @param value - значение опции, null - у опции нет значения
+     * @return SortRequest задача с этой опцией, null - опция неизвестна или значение некорректно
+     */
+    private SortRequest applyOption(SortRequest request, String option, String value) {
+        var readOptions = request.getReadOptions();
+        var writeOptions = request.getWriteOptions();
+        var externalSortOptions = request.getExternalSortOptions();
+        switch (option) {
+            case OPTION_MMAP: //входные файлы отображаются в память
+                return request.withReadOptions(readOptions.withMapped(true));
+            case OPTION_PREFETCH: //каждый входной файл заранее читается своим потоком
+                return request.withReadOptions(readOptions.withPrefetched(true));
+            case OPTION_OUTPUT_BUFFER:
+                var bufferSize = parseSize(value);
+                if (bufferSize <= 0 || bufferSize > Integer.MAX_VALUE) {
+                    break;
+                }
+                return request.withWriteOptions(writeOptions.withBufferSize((int) bufferSize));
+            case OPTION_FSYNC: //после записи выходной файл сбрасывается на диск
+                return request.withWriteOptions(writeOptions.withFsync(true));
+            case OPTION_UNSORTED: //входные файлы не отсортированы - внешняя сортировка
+                return request.withUnsorted(true);
+            case OPTION_MEMORY:
+                var memoryBudget = parseSize(value);
+                if (memoryBudget <= 0) {
+                    break;
+                }
+                return request.withExternalSortOptions(externalSortOptions.withMemoryBudget(memoryBudget));
+            case OPTION_FAN_IN:
+                var fanIn = parsePositiveInt(value);
+                if (fanIn < 2) {
+                    break;
+                }
+                return request.withExternalSortOptions(externalSortOptions.withFanIn(fanIn));
+            case OPTION_TEMP_DIRECTORY:
+                var tempDirectory = new File(value.replace("\\", "/"));
+                if (!tempDirectory.isDirectory()) {
+                    break;
+                }
+                return request.withExternalSortOptions(externalSortOptions.withTempDirectory(tempDirectory.toPath()));
+            case OPTION_THREADS:
+                var threads = parsePositiveInt(value);
+                if (threads <= 0) {
+                    break;
+                }
+                return request.withExternalSortOptions(externalSortOptions.withThreads(threads));
+            case OPTION_PARALLEL_MERGE: //диапазон ключей делится на части, которые сливаются параллельно
+                return request.withParallelMerge(true);
+            case OPTION_PROGRESS: //прогресс периодически печатается в stderr
+                return request.withProgressReported(true);
+            case OPTION_METRICS: //итог запуска пишется в JSON файл
+                return request.withMetricsFile(Path.of(value.replace("\\", "/")));
+            case OPTION_AUTO: //тип данных и порядок, не указанные в аргументах, определяются по файлам
+                return request.withAutoDetected(true);
+            case OPTION_REJECT_SAMPLES: //сколько невалидных элементов напечатать, остальные только считаются
+                var samples = "0".equals(value) ? 0 : parsePositiveInt(value);
+                if (samples < 0) {
+                    break;
+                }
+                return request.withRejectSamples(samples);
+            case OPTION_REJECTS_FILE: //все невалидные элементы пишутся в отдельный файл
+                return request.withRejectsFile(Path.of(value.replace("\\", "/")));
+            case OPTION_STRING_ORDER: //порядок строк -s: по длине, по байтам, по полю-ключу
+                if (!value.equals(STRING_ORDER_LENGTH) && !value.equals(STRING_ORDER_LEXICOGRAPHIC)
+                        && !value.equals(STRING_ORDER_KEY)) {
+                    break;
+                }
+                return request.withStringOrder(value, true);
+            case OPTION_KEY_FIELD: //номер поля-ключа для --string-order=key, с 1
+                var field = parsePositiveInt(value);
+                if (field <= 0) {
+                    break;
+                }
+                return request.withKeyField(field);
+            case OPTION_KEY_DELIMITER: //разделитель полей, один ASCII символ, пробел в строках невалиден
+                if (value.length() != 1 || value.charAt(0) >= 0x80 || value.charAt(0) == ' ') {
+                    break;
+                }
+                return request.withKeyDelimiter(value.charAt(0));
+            case OPTION_CHECKPOINT: //журнал контрольных точек, по нему прерванное слияние продолжается с места остановки
+                return request.withCheckpointFile(Path.of(value.replace("\\", "/")));
+            case OPTION_OUTPUT_FORMAT: //text - числа текстом по строке, binary - записи фиксированной длины (BinaryHeader)
+                if (!value.equals(OUTPUT_FORMAT_TEXT) && !value.equals(OUTPUT_FORMAT_BINARY)) {
+                    break;
+                }
+                return request.withBinaryOutput(value.equals(OUTPUT_FORMAT_BINARY));
+            case OPTION_UNIQUE: //повторы подряд (в отсортированном результате - все повторы) не пишутся
+                return request.withWriteOptions(writeOptions.withUnique(true));
+            case OPTION_LIMIT: //записать только первые N элементов и не дочитывать входные файлы
+                var limit = parsePositiveLong(value);
+                if (limit <= 0) {
+                    break;
+                }
+                return request.withWriteOptions(writeOptions.withLimit(limit));
+            case OPTION_COUNT_ONLY: //результат не пишется, печатается только число его элементов
+                return request.withWriteOptions(writeOptions.withCountOnly(true));
+            case OPTION_GZIP_LEVEL: //уровень сжатия выходного файла *.gz: 1 - быстрее, 9 - меньше
+                if (value.length() != 1 || !Character.isDigit(value.charAt(0))) {
+                    break;
+                }
+                return request.withWriteOptions(writeOptions.withCompressionLevel(value.charAt(0) - '0'));
+            case OPTION_CHECKPOINT_INTERVAL: //раз в сколько секунд записывается контрольная точка
+                var interval = parsePositiveInt(value);
+                if (interval <= 0) {
+                    break;
+                }
+                return request.withCheckpointInterval(interval);
+            default:
+                System.out.printf(MSG_UNKNOWN_OPTION, option);
+                return null;
+        }
+        System.out.printf(MSG_INVALID_OPTION_VALUE, option); //сюда доходят только опции с некорректным значением
+        return null;
+    }
+
+    /**
+     * @param value - целое положительное число
+     * @return int число, -1 - если число некорректно
+     */
+    static int parsePositiveInt(String value) {
+        try {
+            var number = Integer.parseInt(value);
+            return number > 0 ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param value - целое положительное число
+     * @return long число, -1 - если число некорректно
+     */
+    private static long parsePositiveLong(String value) {
+        try {
+            var number = Long.parseLong(value);
+            return number > 0 ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Разбирает размер в байтах, допускаются суффиксы k, m, g: 64k, 8m, 1g
+     * @param value - размер
+     * @return long размер в байтах, -1 - если размер некорректен
+     */
+    private static long parseSize(String value) {
+        var multiplier = 1L;
+        var lastChar = value.isEmpty() ? ' ' : Character.toLowerCase(value.charAt(value.length() - 1));
+        if (lastChar == 'k') {
+            multiplier = 1024L;
+        } else if (lastChar == 'm') {
+            multiplier = 1024L * 1024;
+        } else if (lastChar == 'g') {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        var digits = multiplier == 1 ? value : value.substring(0, value.length() - 1);
+        try {
+            return Math.multiplyExact(Long.parseLong(digits), multiplier);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+
+import java.util.List;
+
+public interface CheckpointMergeManager {
+    void checkpointMergeInt(List<String> files, boolean descending, ReadOptions readOptions,
+                            CheckpointOptions checkpoint, OutputSink sink);
+
+    void checkpointMergeLong(List<String> files, boolean descending, ReadOptions readOptions,
+                             CheckpointOptions checkpoint, OutputSink sink);
+
+    void checkpointMergeDecimal(List<String> files, boolean descending, boolean fractional, ReadOptions readOptions,
+                                CheckpointOptions checkpoint, OutputSink sink);
+
+    void checkpointMergeString(List<String> files, StringOrder order, boolean descending, ReadOptions readOptions,
+                               CheckpointOptions checkpoint, OutputSink sink);
+}
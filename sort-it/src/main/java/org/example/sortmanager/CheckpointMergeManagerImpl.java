@@ -0,0 +1,152 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.CheckpointJournal;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.InputCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Последовательное слияние отсортированных файлов с контрольными точками для многочасовых запусков.
+ * Раз в интервал выходной файл сбрасывается на диск (fsync), и в журнал записываются его длина
+ * и смещения строк, на которых стоят курсоры входных файлов. Перезапуск с тем же журналом открывает
+ * курсоры с этих смещений, а выходной файл обрезает до записанной длины и дописывает, так что
+ * результат совпадает с непрерывным слиянием байт в байт.
+ *
+ * Файлы сливаются курсорами целиком, без копирования непересекающихся файлов (PresortedMergeManager):
+ * контрольная точка внутри transferTo смещений курсоров не имеет. Журнал удаляется, когда весь результат
+ * на диске
+ */
+public class CheckpointMergeManagerImpl implements CheckpointMergeManager {
+
+    private static final String MSG_JOURNAL_NOT_WRITTEN = "Не удалось записать журнал контрольной точки: %s%n";
+    private static final String MSG_JOURNAL_NOT_DELETED = "Не удалось удалить журнал контрольной точки: %s%n";
+
+    private final SortManager sortManager;
+    private final FileManager fileManager;
+
+    public CheckpointMergeManagerImpl(SortManager sortManager, FileManager fileManager) {
+        this.sortManager = sortManager;
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * @param files - входные файлы, отсортированные в порядке descending
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов, чтение с конца не поддерживается
+     * @param checkpoint - журнал, интервал контрольных точек и журнал прерванного запуска
+     * @param sink - приёмник результата, при продолжении уже открыт на длине из журнала
+     */
+    @Override
+    public void checkpointMergeInt(List<String> files, boolean descending, ReadOptions readOptions,
+                                   CheckpointOptions checkpoint, OutputSink sink) {
+        checkpointMerge(files, checkpoint, sink,
+                (file, start) -> fileManager.openIntCursor(file, start, Long.MAX_VALUE, descending, readOptions),
+                (cursors, checkpointSink) -> sortManager.streamingMergeSortInt(cursors, descending, checkpointSink));
+    }
+
+    @Override
+    public void checkpointMergeLong(List<String> files, boolean descending, ReadOptions readOptions,
+                                    CheckpointOptions checkpoint, OutputSink sink) {
+        checkpointMerge(files, checkpoint, sink,
+                (file, start) -> fileManager.openLongCursor(file, start, Long.MAX_VALUE, descending, readOptions),
+                (cursors, checkpointSink) -> sortManager.streamingMergeSortLong(cursors, descending, checkpointSink));
+    }
+
+    @Override
+    public void checkpointMergeDecimal(List<String> files, boolean descending, boolean fractional,
+                                       ReadOptions readOptions, CheckpointOptions checkpoint, OutputSink sink) {
+        checkpointMerge(files, checkpoint, sink,
+                (file, start) -> fileManager.openDecimalCursor(file, start, Long.MAX_VALUE, descending, fractional,
+                        readOptions),
+                (cursors, checkpointSink) -> sortManager.streamingMergeSortDecimal(cursors, descending, checkpointSink));
+    }
+
+    @Override
+    public void checkpointMergeString(List<String> files, StringOrder order, boolean descending,
+                                      ReadOptions readOptions, CheckpointOptions checkpoint, OutputSink sink) {
+        checkpointMerge(files, checkpoint, sink,
+                (file, start) -> fileManager.openByteLineCursor(file, start, Long.MAX_VALUE, order, descending,
+                        readOptions),
+                (cursors, checkpointSink) ->
+                        sortManager.streamingMergeSortByteLines(cursors, order, descending, checkpointSink));
+    }
+
+    /**
+     * Открывает курсоры с начала файлов или со смещений из журнала прерванного запуска, слитые целиком файлы
+     * пропускает. Порядок курсоров остаётся порядком файлов, так что равные элементы выходят в том же порядке,
+     * что и без перезапуска
+     */
+    private <C extends InputCursor> void checkpointMerge(List<String> files, CheckpointOptions checkpoint,
+                                                         OutputSink sink, CursorOpener<C> opener,
+                                                         CursorMerger<C> merger) {
+        var resumed = checkpoint.getResumedJournal();
+        var offsets = resumed != null ? resumed.getInputOffsets() : new long[files.size()];
+        var cursors = new ArrayList<C>();
+        var starts = new ArrayList<Long>();
+        var indexes = new ArrayList<Integer>();
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                if (offsets[i] < 0) { //файл слит целиком до перезапуска
+                    continue;
+                }
+                cursors.add(opener.open(files.get(i), offsets[i]));
+                starts.add(offsets[i]);
+                indexes.add(i);
+            }
+
+            var checkpointSink = new CheckpointSink(sink, checkpoint.getIntervalSeconds(), outputLength -> {
+                var inputOffsets = new long[files.size()];
+                Arrays.fill(inputOffsets, -1);
+                for (int i = 0; i < cursors.size(); i++) {
+                    var cursor = cursors.get(i);
+                    if (cursor.hasElement()) {
+                        inputOffsets[indexes.get(i)] = starts.get(i) + cursor.getElementOffset();
+                    }
+                }
+                writeJournal(checkpoint, new CheckpointJournal(checkpoint.getJob(), outputLength, inputOffsets));
+            });
+            checkpointSink.checkpoint(); //журнал есть с самого начала: перезапуск не затрёт уже записанное
+            merger.merge(cursors, checkpointSink);
+            if (sink.checkpoint() < 0) { //результат не дошёл до диска, журнал остаётся для перезапуска
+                return;
+            }
+        } finally {
+            cursors.forEach(InputCursor::close);
+        }
+
+        try {
+            CheckpointJournal.delete(checkpoint.getJournalFile());
+        } catch (IOException e) {
+            System.out.printf(MSG_JOURNAL_NOT_DELETED, checkpoint.getJournalFile());
+        }
+    }
+
+    private static void writeJournal(CheckpointOptions checkpoint, CheckpointJournal journal) {
+        try {
+            journal.write(checkpoint.getJournalFile());
+        } catch (IOException e) {
+            System.out.printf(MSG_JOURNAL_NOT_WRITTEN, checkpoint.getJournalFile());
+        }
+    }
+
+    /**
+     * Открывает курсор по файлу с заданного смещения
+     */
+    private interface CursorOpener<C> {
+        C open(String file, long start);
+    }
+
+    /**
+     * Сливает курсоры в приёмник с контрольными точками
+     */
+    private interface CursorMerger<C> {
+        void merge(List<C> cursors, OutputSink sink);
+    }
+}
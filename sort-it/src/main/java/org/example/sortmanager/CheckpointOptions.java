@@ -0,0 +1,69 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.CheckpointJournal;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки слияния с контрольными точками
+ */
+public class CheckpointOptions {
+
+    public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    private final Path journalFile;
+    private final String job;
+    private final long intervalSeconds;
+    private final CheckpointJournal resumedJournal;
+
+    /**
+     * @param journalFile - файл журнала контрольных точек
+     * @param job - описание задачи, по нему перезапуск сверяется с журналом
+     */
+    public CheckpointOptions(Path journalFile, String job) {
+        this(journalFile, job, DEFAULT_INTERVAL_SECONDS, null);
+    }
+
+    private CheckpointOptions(Path journalFile, String job, long intervalSeconds, CheckpointJournal resumedJournal) {
+        this.journalFile = journalFile;
+        this.job = job;
+        this.intervalSeconds = intervalSeconds;
+        this.resumedJournal = resumedJournal;
+    }
+
+    /**
+     * @return файл журнала контрольных точек
+     */
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * @return описание задачи, записывается в журнал
+     */
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * @return раз в сколько секунд записывается контрольная точка
+     */
+    public long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    /**
+     * @return журнал прерванного запуска, с которого продолжается слияние, null - слияние с начала
+     */
+    public CheckpointJournal getResumedJournal() {
+        return resumedJournal;
+    }
+
+    public CheckpointOptions withIntervalSeconds(long intervalSeconds) {
+        return new CheckpointOptions(journalFile, job, intervalSeconds, resumedJournal);
+    }
+
+    public CheckpointOptions withResumedJournal(CheckpointJournal resumedJournal) {
+        return new CheckpointOptions(journalFile, job, intervalSeconds, resumedJournal);
+    }
+}
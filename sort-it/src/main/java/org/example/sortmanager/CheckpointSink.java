@@ -0,0 +1,94 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.OutputSink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Приёмник, который раз в интервал делает контрольную точку выходного файла перед записью очередного элемента.
+ * Слияние пишет элемент до того, как сдвинуть его курсор, поэтому в момент контрольной точки
+ * все курсоры стоят на первых ещё не записанных элементах, а выходной файл содержит ровно всё, что до них.
+ * Время проверяется не на каждый элемент, а раз в CHECK_MASK + 1 элементов
+ */
+class CheckpointSink implements OutputSink {
+
+    private static final int CHECK_MASK = 4096 - 1;
+
+    private final OutputSink sink;
+    private final long intervalNanos;
+    private final LongConsumer listener;
+    private long writtenCount;
+    private long nextCheckpoint;
+
+    /**
+     * @param sink - приёмник результата
+     * @param intervalSeconds - раз в сколько секунд делается контрольная точка
+     * @param listener - получает длину результата на диске после каждой контрольной точки
+     */
+    CheckpointSink(OutputSink sink, long intervalSeconds, LongConsumer listener) {
+        this.sink = sink;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.listener = listener;
+        this.nextCheckpoint = System.nanoTime() + intervalNanos;
+    }
+
+    @Override
+    public void write(String element) {
+        beforeWrite();
+        sink.write(element);
+    }
+
+    @Override
+    public void writeInt(int element) {
+        beforeWrite();
+        sink.writeInt(element);
+    }
+
+    @Override
+    public void writeLong(long element) {
+        beforeWrite();
+        sink.writeLong(element);
+    }
+
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        beforeWrite();
+        sink.writeBytes(bytes, offset, length);
+    }
+
+    @Override
+    public void writeFile(Path file) throws IOException {
+        sink.writeFile(file);
+    }
+
+    private void beforeWrite() {
+        if ((++writtenCount & CHECK_MASK) == 0 && System.nanoTime() - nextCheckpoint >= 0) {
+            checkpoint();
+        }
+    }
+
+    @Override
+    public long checkpoint() {
+        var length = sink.checkpoint();
+        if (length >= 0) {
+            listener.accept(length);
+        }
+        nextCheckpoint = System.nanoTime() + intervalNanos;
+        return length;
+    }
+
+    @Override
+    public boolean isFailed() {
+        return sink.isFailed();
+    }
+
+    /**
+     * Приёмник результата закрывает тот, кто его открыл
+     */
+    @Override
+    public void close() {
+    }
+}
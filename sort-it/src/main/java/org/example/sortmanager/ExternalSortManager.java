@@ -0,0 +1,18 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+
+import java.util.List;
+
+public interface ExternalSortManager {
+    void externalSortInt(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink,
+                         ExternalSortOptions options);
+
+    void externalSortLong(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink,
+                          ExternalSortOptions options);
+
+    void externalSortString(List<String> files, StringOrder order, boolean descending, ReadOptions readOptions,
+                            OutputSink sink, ExternalSortOptions options);
+}
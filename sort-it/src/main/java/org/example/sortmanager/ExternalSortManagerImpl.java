@@ -0,0 +1,487 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.ByteLine;
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.LongCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Внешняя сортировка неотсортированных файлов.
+ * Файлы читаются порциями, которые помещаются в заданный бюджет памяти, каждая порция сортируется в памяти
+ * и сбрасывается во временный файл (run). Затем run'ы сливаются не больше чем по fanIn за проход,
+ * пока их не останется столько, чтобы слить в выходной файл за один проход.
+ * Если все данные уместились в одну порцию, временные файлы не создаются.
+ * Порции сортируются и сбрасываются в ForkJoinPool на заданное количество потоков параллельно с чтением
+ */
+public class ExternalSortManagerImpl implements ExternalSortManager {
+
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, externalSort";
+    private static final String RUN_FILE_PREFIX = "sort-it-run";
+    private static final String RUN_FILE_SUFFIX = ".tmp";
+    private static final String MSG_INTERRUPTED = "Ошибка! Сортировка прервана";
+    private static final String MSG_RUN_NOT_WRITTEN = "Временный файл записан не целиком: %s";
+    private static final String PHASE_SORT = "sort";
+    private static final String PHASE_MERGE = "merge";
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int LINE_OVERHEAD = 64; //заголовки ByteLine и byte[], поля ключа и ссылка в списке, байт
+    private static final ReadOptions RUN_READ_OPTIONS = ReadOptions.DEFAULT.withOrderValidated(false); //run'ы отсортированы нами же
+
+    private final SortManager sortManager;
+    private final FileManager fileManager;
+
+    public ExternalSortManagerImpl(SortManager sortManager, FileManager fileManager) {
+        this.sortManager = sortManager;
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Внешняя сортировка Integer данных, порция - это int[], сортируемый Arrays.parallelSort.
+     * Порций в памяти две: пока одна сортируется и сбрасывается на диск в пуле потоков,
+     * текущий поток заполняет другую, так что чтение, сортировка и запись идут одновременно
+     *
+     * @param files - входные файлы, не обязаны быть отсортированы
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов, порядок в них не проверяется
+     * @param sink - приёмник результата
+     * @param options - бюджет памяти, fanIn, количество потоков и папка для временных файлов
+     */
+    @Override
+    public void externalSortInt(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink,
+                                ExternalSortOptions options) {
+        var inputReadOptions = readOptions.withOrderValidated(false);
+        startPhase(readOptions, PHASE_SORT);
+        var runs = new ArrayList<Path>();
+        var spills = new ArrayList<Future<Path>>();
+        var pool = new ForkJoinPool(options.getThreads());
+        try {
+            var chunkCapacity = (int) Math.max(MIN_CHUNK_SIZE,
+                    Math.min(options.getMemoryBudget() / Integer.BYTES / 2, MAX_ARRAY_SIZE)); //бюджет делится на две порции
+            var chunk = new int[chunkCapacity];
+            int[] previousChunk = null;
+            Future<Path> previousSpill = null;
+            var size = 0;
+            for (String file : files) {
+                try (var cursor = fileManager.openIntCursor(file, descending, inputReadOptions)) {
+                    for (; cursor.hasElement(); cursor.next()) {
+                        if (size == chunk.length) { //порция заполнена - сортируется и уходит во временный файл в пуле
+                            var fullChunk = chunk;
+                            var spill = pool.submit(intSpill(fullChunk, fullChunk.length, descending, options));
+                            spills.add(spill);
+                            if (previousSpill != null) {
+                                previousSpill.get(); //ждём, пока освободится порция, сброшенная в прошлый раз
+                            }
+                            chunk = previousChunk != null ? previousChunk : new int[chunkCapacity];
+                            previousChunk = fullChunk;
+                            previousSpill = spill;
+                            size = 0;
+                        }
+                        chunk[size++] = cursor.getElement();
+                    }
+                }
+            }
+
+            if (spills.isEmpty()) { //всё уместилось в память, run'ы не нужны
+                var sortedChunk = chunk;
+                var sortedSize = size;
+                pool.submit(() -> Arrays.parallelSort(sortedChunk, 0, sortedSize)).get();
+                writeIntChunk(sortedChunk, sortedSize, descending, sink);
+                return;
+            }
+            spills.add(pool.submit(intSpill(chunk, size, descending, options)));
+            if (!awaitSpills(spills, runs)) {
+                System.out.println(MSG_IO_EXCEPTION);
+                return;
+            }
+            chunk = null; //порции больше не нужны, память отдаётся буферам слияния
+            previousChunk = null;
+
+            startPhase(readOptions, PHASE_MERGE);
+            mergeRuns(runs, options, sink, (group, groupSink) -> {
+                var cursors = new ArrayList<IntCursor>();
+                try {
+                    for (Path run : group) {
+                        cursors.add(fileManager.openIntCursor(run.toString(), descending, RUN_READ_OPTIONS));
+                    }
+                    sortManager.streamingMergeSortInt(cursors, descending, groupSink);
+                } finally {
+                    cursors.forEach(IntCursor::close);
+                }
+            });
+        } catch (IOException | ExecutionException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(MSG_INTERRUPTED);
+        } finally {
+            awaitSpills(spills, runs);
+            pool.shutdown();
+            deleteRuns(runs);
+        }
+    }
+
+    /**
+     * Внешняя сортировка Long данных, устроена так же, как для Integer, порция - это long[]
+     *
+     * @param files - входные файлы, не обязаны быть отсортированы
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов, порядок в них не проверяется
+     * @param sink - приёмник результата
+     * @param options - бюджет памяти, fanIn, количество потоков и папка для временных файлов
+     */
+    @Override
+    public void externalSortLong(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink,
+                                ExternalSortOptions options) {
+        var inputReadOptions = readOptions.withOrderValidated(false);
+        startPhase(readOptions, PHASE_SORT);
+        var runs = new ArrayList<Path>();
+        var spills = new ArrayList<Future<Path>>();
+        var pool = new ForkJoinPool(options.getThreads());
+        try {
+            var chunkCapacity = (int) Math.max(MIN_CHUNK_SIZE,
+                    Math.min(options.getMemoryBudget() / Long.BYTES / 2, MAX_ARRAY_SIZE)); //бюджет делится на две порции
+            var chunk = new long[chunkCapacity];
+            long[] previousChunk = null;
+            Future<Path> previousSpill = null;
+            var size = 0;
+            for (String file : files) {
+                try (var cursor = fileManager.openLongCursor(file, descending, inputReadOptions)) {
+                    for (; cursor.hasElement(); cursor.next()) {
+                        if (size == chunk.length) { //порция заполнена - сортируется и уходит во временный файл в пуле
+                            var fullChunk = chunk;
+                            var spill = pool.submit(longSpill(fullChunk, fullChunk.length, descending, options));
+                            spills.add(spill);
+                            if (previousSpill != null) {
+                                previousSpill.get(); //ждём, пока освободится порция, сброшенная в прошлый раз
+                            }
+                            chunk = previousChunk != null ? previousChunk : new long[chunkCapacity];
+                            previousChunk = fullChunk;
+                            previousSpill = spill;
+                            size = 0;
+                        }
+                        chunk[size++] = cursor.getElement();
+                    }
+                }
+            }
+
+            if (spills.isEmpty()) { //всё уместилось в память, run'ы не нужны
+                var sortedChunk = chunk;
+                var sortedSize = size;
+                pool.submit(() -> Arrays.parallelSort(sortedChunk, 0, sortedSize)).get();
+                writeLongChunk(sortedChunk, sortedSize, descending, sink);
+                return;
+            }
+            spills.add(pool.submit(longSpill(chunk, size, descending, options)));
+            if (!awaitSpills(spills, runs)) {
+                System.out.println(MSG_IO_EXCEPTION);
+                return;
+            }
+            chunk = null; //порции больше не нужны, память отдаётся буферам слияния
+            previousChunk = null;
+
+            startPhase(readOptions, PHASE_MERGE);
+            mergeRuns(runs, options, sink, (group, groupSink) -> {
+                var cursors = new ArrayList<LongCursor>();
+                try {
+                    for (Path run : group) {
+                        cursors.add(fileManager.openLongCursor(run.toString(), descending, RUN_READ_OPTIONS));
+                    }
+                    sortManager.streamingMergeSortLong(cursors, descending, groupSink);
+                } finally {
+                    cursors.forEach(LongCursor::close);
+                }
+            });
+        } catch (IOException | ExecutionException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(MSG_INTERRUPTED);
+        } finally {
+            awaitSpills(spills, runs);
+            pool.shutdown();
+            deleteRuns(runs);
+        }
+    }
+
+    /**
+     * Внешняя сортировка String данных без декодирования строк: порция - это список копий ByteLine
+     * с посчитанными ключами StringOrder, размер порции оценивается по длине строк в байтах.
+     * Порция сортируется устойчивым Arrays.parallelSort, так что равные по порядку строки идут в порядке входных файлов,
+     * run'ы сливаются по ключам в байтах, как отсортированные файлы.
+     * Как и для Integer, одна порция заполняется, пока предыдущая сортируется и сбрасывается в пуле потоков
+     *
+     * @param files - входные файлы, не обязаны быть отсортированы
+     * @param order - порядок строк
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов, порядок в них не проверяется
+     * @param sink - приёмник результата
+     * @param options - бюджет памяти, fanIn, количество потоков и папка для временных файлов
+     */
+    @Override
+    public void externalSortString(List<String> files, StringOrder order, boolean descending, ReadOptions readOptions,
+                                   OutputSink sink, ExternalSortOptions options) {
+        var inputReadOptions = readOptions.withOrderValidated(false);
+        var comparator = order.lineComparator(descending);
+        startPhase(readOptions, PHASE_SORT);
+        var runs = new ArrayList<Path>();
+        var spills = new ArrayList<Future<Path>>();
+        var pool = new ForkJoinPool(options.getThreads());
+        try {
+            var chunkBudget = options.getMemoryBudget() / 2; //бюджет делится на две порции
+            var chunk = new ArrayList<ByteLine>();
+            var chunkBytes = 0L;
+            Future<Path> previousSpill = null;
+            for (String file : files) {
+                try (var cursor = fileManager.openByteLineCursor(file, order, descending, inputReadOptions)) {
+                    for (; cursor.hasElement(); cursor.next()) {
+                        var element = cursor.getElement();
+                        var elementBytes = LINE_OVERHEAD + element.getLength();
+                        if (!chunk.isEmpty() && chunkBytes + elementBytes > chunkBudget) {
+                            var spill = pool.submit(stringSpill(chunk, comparator, options));
+                            spills.add(spill);
+                            if (previousSpill != null) {
+                                previousSpill.get();
+                            }
+                            previousSpill = spill;
+                            chunk = new ArrayList<>();
+                            chunkBytes = 0;
+                        }
+                        chunk.add(element.copy()); //курсор переиспользует свой ByteLine
+                        chunkBytes += elementBytes;
+                    }
+                }
+            }
+
+            if (spills.isEmpty()) {
+                var sortedChunk = chunk;
+                var sorted = pool.submit(() -> sortStringChunk(sortedChunk, comparator)).get();
+                writeStringChunk(sorted, sink);
+                return;
+            }
+            spills.add(pool.submit(stringSpill(chunk, comparator, options)));
+            if (!awaitSpills(spills, runs)) {
+                System.out.println(MSG_IO_EXCEPTION);
+                return;
+            }
+            chunk = null;
+
+            startPhase(readOptions, PHASE_MERGE);
+            mergeRuns(runs, options, sink, (group, groupSink) -> {
+                var cursors = new ArrayList<ByteLineCursor>();
+                try {
+                    for (Path run : group) {
+                        cursors.add(fileManager.openByteLineCursor(run.toString(), order, descending,
+                                RUN_READ_OPTIONS));
+                    }
+                    sortManager.streamingMergeSortByteLines(cursors, order, descending, groupSink);
+                } finally {
+                    cursors.forEach(ByteLineCursor::close);
+                }
+            });
+        } catch (IOException | ExecutionException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(MSG_INTERRUPTED);
+        } finally {
+            awaitSpills(spills, runs);
+            pool.shutdown();
+            deleteRuns(runs);
+        }
+    }
+
+    /**
+     * Дожидается всех сбросов порций и собирает их run'ы в порядке порций, упавшие сбросы пропускаются
+     * @return false - хотя бы один сброс не удался
+     */
+    private static boolean awaitSpills(List<Future<Path>> spills, List<Path> runs) {
+        var success = true;
+        for (Future<Path> spill : spills) {
+            try {
+                runs.add(spill.get());
+            } catch (ExecutionException e) {
+                success = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                success = false;
+            }
+        }
+        spills.clear();
+        return success;
+    }
+
+    /**
+     * Слияние run'ов в несколько проходов: пока run'ов больше fanIn, соседние группы по fanIn
+     * сливаются в новые run'ы, последний проход пишет прямо в выходной файл.
+     * Run'ы идут в порядке чтения входных данных, поэтому при равных элементах порядок сохраняется
+     *
+     * @param runs - временные файлы с отсортированными порциями, по мере слияния группы заменяются слитыми run'ами
+     */
+    private void mergeRuns(List<Path> runs, ExternalSortOptions options, OutputSink sink, RunMerger merger)
+            throws IOException {
+        var fanIn = Math.max(2, options.getFanIn());
+        while (runs.size() > fanIn) {
+            for (int from = 0; from < runs.size(); from++) { //группа из fanIn run'ов заменяется в списке одним слитым
+                var to = Math.min(from + fanIn, runs.size());
+                if (to - from == 1) {
+                    continue;
+                }
+                var group = new ArrayList<>(runs.subList(from, to));
+                var mergedRun = writeRun(options, runSink -> merger.merge(group, runSink));
+                runs.subList(from, to).clear();
+                runs.add(from, mergedRun);
+                deleteRuns(group);
+            }
+        }
+        merger.merge(runs, sink);
+    }
+
+    /**
+     * Задача для пула: отсортировать порцию и сбросить её во временный файл.
+     * Выполняется в пуле потоков, поэтому Arrays.parallelSort делит сортировку между потоками этого пула
+     */
+    private Callable<Path> intSpill(int[] chunk, int size, boolean descending, ExternalSortOptions options) {
+        return () -> spillIntChunk(chunk, size, descending, options);
+    }
+
+    private Callable<Path> longSpill(long[] chunk, int size, boolean descending, ExternalSortOptions options) {
+        return () -> spillLongChunk(chunk, size, descending, options);
+    }
+
+    private Callable<Path> stringSpill(List<ByteLine> chunk, Comparator<ByteLine> order,
+                                       ExternalSortOptions options) {
+        return () -> spillStringChunk(chunk, order, options);
+    }
+
+    private Path spillIntChunk(int[] chunk, int size, boolean descending, ExternalSortOptions options)
+            throws IOException {
+        Arrays.parallelSort(chunk, 0, size);
+        return writeRun(options, runSink -> writeIntChunk(chunk, size, descending, runSink));
+    }
+
+    private Path spillLongChunk(long[] chunk, int size, boolean descending, ExternalSortOptions options)
+            throws IOException {
+        Arrays.parallelSort(chunk, 0, size);
+        return writeRun(options, runSink -> writeLongChunk(chunk, size, descending, runSink));
+    }
+
+    private Path spillStringChunk(List<ByteLine> chunk, Comparator<ByteLine> order, ExternalSortOptions options)
+            throws IOException {
+        var sorted = sortStringChunk(chunk, order);
+        return writeRun(options, runSink -> writeStringChunk(sorted, runSink));
+    }
+
+    private static ByteLine[] sortStringChunk(List<ByteLine> chunk, Comparator<ByteLine> order) {
+        var sorted = chunk.toArray(new ByteLine[0]);
+        Arrays.parallelSort(sorted, order); //сортировка слиянием, устойчивая
+        return sorted;
+    }
+
+    /**
+     * Пишет строки теми же байтами, что были во входном файле
+     */
+    private static void writeStringChunk(ByteLine[] sorted, OutputSink sink) {
+        for (ByteLine element : sorted) {
+            sink.writeBytes(element.getBytes(), 0, element.getLength());
+        }
+    }
+
+    /**
+     * Пишет отсортированную по возрастанию порцию, при сортировке по убыванию - с конца
+     */
+    private static void writeIntChunk(int[] chunk, int size, boolean descending, OutputSink sink) {
+        if (descending) {
+            for (int i = size - 1; i >= 0; i--) {
+                sink.writeInt(chunk[i]);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                sink.writeInt(chunk[i]);
+            }
+        }
+    }
+
+    private static void writeLongChunk(long[] chunk, int size, boolean descending, OutputSink sink) {
+        if (descending) {
+            for (int i = size - 1; i >= 0; i--) {
+                sink.writeLong(chunk[i]);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                sink.writeLong(chunk[i]);
+            }
+        }
+    }
+
+    private static void startPhase(ReadOptions readOptions, String phase) {
+        var metrics = readOptions.getMetrics();
+        if (metrics != null) {
+            metrics.startPhase(phase);
+        }
+    }
+
+    /**
+     * Пишет новый run и проверяет, что он записан целиком. Приёмник после ошибки записи (например, кончилось
+     * место в --tmp-dir) только закрывается, и укороченный run молча потерял бы элементы результата
+     * @param writer - пишет элементы run'а в приёмник
+     * @return Path записанный run
+     * @throws IOException - run не записан, временный файл удалён
+     */
+    private Path writeRun(ExternalSortOptions options, Consumer<OutputSink> writer) throws IOException {
+        var run = createRun(options);
+        try {
+            var runSink = fileManager.openOutputSink(run.toString(), WriteOptions.DEFAULT);
+            try {
+                writer.accept(runSink);
+            } finally {
+                runSink.close();
+            }
+            if (runSink.isFailed()) {
+                throw new IOException(String.format(MSG_RUN_NOT_WRITTEN, run));
+            }
+            return run;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(run);
+            throw e;
+        }
+    }
+
+    private static Path createRun(ExternalSortOptions options) throws IOException {
+        return Files.createTempFile(options.getTempDirectory(), RUN_FILE_PREFIX, RUN_FILE_SUFFIX);
+    }
+
+    private static void deleteRuns(List<Path> runs) {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                System.out.println(MSG_IO_EXCEPTION);
+            }
+        }
+    }
+
+    /**
+     * Слияние группы run'ов в приёмник, своё для каждого типа данных
+     */
+    private interface RunMerger {
+        void merge(List<Path> group, OutputSink sink);
+    }
+}
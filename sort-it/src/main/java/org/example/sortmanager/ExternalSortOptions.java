@@ -0,0 +1,71 @@
+package org.example.sortmanager;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки внешней сортировки неотсортированных файлов
+ */
+public class ExternalSortOptions {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    public static final int DEFAULT_FAN_IN = 64;
+    public static final ExternalSortOptions DEFAULT = new ExternalSortOptions(
+            DEFAULT_MEMORY_BUDGET, DEFAULT_FAN_IN, Path.of(System.getProperty("java.io.tmpdir")),
+            Runtime.getRuntime().availableProcessors());
+
+    private final long memoryBudget;
+    private final int fanIn;
+    private final Path tempDirectory;
+    private final int threads;
+
+    private ExternalSortOptions(long memoryBudget, int fanIn, Path tempDirectory, int threads) {
+        this.memoryBudget = memoryBudget;
+        this.fanIn = fanIn;
+        this.tempDirectory = tempDirectory;
+        this.threads = threads;
+    }
+
+    /**
+     * @return сколько байт можно занять под сортируемую в памяти порцию данных
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return сколько отсортированных порций сливается за один проход
+     */
+    public int getFanIn() {
+        return fanIn;
+    }
+
+    /**
+     * @return папка для временных файлов с отсортированными порциями
+     */
+    public Path getTempDirectory() {
+        return tempDirectory;
+    }
+
+    /**
+     * @return сколько потоков сортирует порции
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public ExternalSortOptions withMemoryBudget(long memoryBudget) {
+        return new ExternalSortOptions(memoryBudget, fanIn, tempDirectory, threads);
+    }
+
+    public ExternalSortOptions withFanIn(int fanIn) {
+        return new ExternalSortOptions(memoryBudget, fanIn, tempDirectory, threads);
+    }
+
+    public ExternalSortOptions withTempDirectory(Path tempDirectory) {
+        return new ExternalSortOptions(memoryBudget, fanIn, tempDirectory, threads);
+    }
+
+    public ExternalSortOptions withThreads(int threads) {
+        return new ExternalSortOptions(memoryBudget, fanIn, tempDirectory, threads);
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.DecimalCursor;
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.LongCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.StringOrder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Слияние через двоичную кучу курсоров: на вершине кучи курсор с первым по порядку головным элементом.
+ * После записи элемента курсор сдвигается и просеивается вниз, так что на элемент результата уходит O(log k)
+ * сравнений вместо O(k) при переборе.
+ * При равных элементах первым идёт курсор, стоящий раньше в списке, так что результат детерминирован
+ */
+public class HeapMergeEngine implements MergeEngine {
+
+    @Override
+    public <T> void merge(List<? extends ElementCursor<T>> sourceCursors, Comparator<? super T> order, OutputSink sink) {
+        var cursors = new ArrayList<ElementCursor<T>>(sourceCursors); //доступ по индексу за O(1)
+        var heap = new int[cursors.size()]; //куча хранит номера курсоров
+        var size = 0;
+        for (int i = 0; i < cursors.size(); i++) {
+            if (cursors.get(i).hasElement()) {
+                heap[size++] = i;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, size, i, cursors, order);
+        }
+
+        while (size > 0 && !sink.isFull()) {
+            var cursor = cursors.get(heap[0]);
+            sink.write(String.valueOf(cursor.getElement()));
+            cursor.next();
+
+            if (!cursor.hasElement()) { //файл закончился - на вершину ставится последний элемент кучи
+                heap[0] = heap[--size];
+            }
+            if (size > 0) {
+                siftDown(heap, size, 0, cursors, order);
+            }
+        }
+    }
+
+    /**
+     * Та же куча, но головные элементы курсоров копируются в int[] - сравнение идёт по массиву
+     * примитивов, без упаковки и без обращения к курсору. При слиянии по убыванию ключи хранятся
+     * инвертированными (~x), так что куча всегда минимальная и порядок равных элементов сохраняется
+     */
+    @Override
+    public void mergeInt(List<? extends IntCursor> sourceCursors, boolean descending, OutputSink sink) {
+        var cursors = new ArrayList<IntCursor>(sourceCursors);
+        var keys = new int[cursors.size()]; //головной элемент по номеру курсора
+        var heap = new int[cursors.size()];
+        var size = 0;
+        for (int i = 0; i < cursors.size(); i++) {
+            var cursor = cursors.get(i);
+            if (cursor.hasElement()) {
+                keys[i] = descending ? ~cursor.getElement() : cursor.getElement();
+                heap[size++] = i;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDownInt(heap, size, i, keys);
+        }
+
+        while (size > 0 && !sink.isFull()) {
+            var cursorIndex = heap[0];
+            var cursor = cursors.get(cursorIndex);
+            sink.writeInt(cursor.getElement());
+            cursor.next();
+
+            if (cursor.hasElement()) {
+                keys[cursorIndex] = descending ? ~cursor.getElement() : cursor.getElement();
+            } else {
+                heap[0] = heap[--size];
+            }
+            if (size > 0) {
+                siftDownInt(heap, size, 0, keys);
+            }
+        }
+    }
+
+    /**
+     * Как mergeInt, только ключи - long[]
+     */
+    @Override
+    public void mergeLong(List<? extends LongCursor> sourceCursors, boolean descending, OutputSink sink) {
+        var cursors = new ArrayList<LongCursor>(sourceCursors);
+        var keys = new long[cursors.size()];
+        var heap = new int[cursors.size()];
+        var size = 0;
+        for (int i = 0; i < cursors.size(); i++) {
+            var cursor = cursors.get(i);
+            if (cursor.hasElement()) {
+                keys[i] = descending ? ~cursor.getElement() : cursor.getElement();
+                heap[size++] = i;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDownLong(heap, size, i, keys);
+        }
+
+        while (size > 0 && !sink.isFull()) {
+            var cursorIndex = heap[0];
+            var cursor = cursors.get(cursorIndex);
+            sink.writeLong(cursor.getElement());
+            cursor.next();
+
+            if (cursor.hasElement()) {
+                keys[cursorIndex] = descending ? ~cursor.getElement() : cursor.getElement();
+            } else {
+                heap[0] = heap[--size];
+            }
+            if (size > 0) {
+                siftDownLong(heap, size, 0, keys);
+            }
+        }
+    }
+
+    /**
+     * Головные элементы сравниваются прямо в курсорах по каноническим байтам (DecimalNumber.compareTo),
+     * элемент пишется в приёмник теми же байтами
+     */
+    @Override
+    public void mergeDecimal(List<? extends DecimalCursor> sourceCursors, boolean descending, OutputSink sink) {
+        var cursors = new ArrayList<DecimalCursor>(sourceCursors);
+        var heap = new int[cursors.size()];
+        var size = 0;
+        for (int i = 0; i < cursors.size(); i++) {
+            if (cursors.get(i).hasElement()) {
+                heap[size++] = i;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDownDecimal(heap, size, i, cursors, descending);
+        }
+
+        while (size > 0 && !sink.isFull()) {
+            var cursor = cursors.get(heap[0]);
+            var element = cursor.getElement();
+            sink.writeBytes(element.getText(), 0, element.getLength());
+            cursor.next();
+
+            if (!cursor.hasElement()) {
+                heap[0] = heap[--size];
+            }
+            if (size > 0) {
+                siftDownDecimal(heap, size, 0, cursors, descending);
+            }
+        }
+    }
+
+    /**
+     * Ключи строк (StringOrder.key: длина или первые 8 байт) копируются в long[], как в mergeLong,
+     * и сравниваются как long без знака. Байты строк сравниваются, только если ключи равны
+     */
+    @Override
+    public void mergeByteLines(List<? extends ByteLineCursor> sourceCursors, StringOrder order, boolean descending,
+                               OutputSink sink) {
+        var cursors = new ArrayList<ByteLineCursor>(sourceCursors);
+        var keys = new long[cursors.size()];
+        var heap = new int[cursors.size()];
+        var size = 0;
+        for (int i = 0; i < cursors.size(); i++) {
+            var cursor = cursors.get(i);
+            if (cursor.hasElement()) {
+                var key = order.key(cursor.getElement());
+                keys[i] = descending ? ~key : key;
+                heap[size++] = i;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDownByteLine(heap, size, i, keys, cursors, order, descending);
+        }
+
+        while (size > 0 && !sink.isFull()) {
+            var cursorIndex = heap[0];
+            var cursor = cursors.get(cursorIndex);
+            var element = cursor.getElement();
+            sink.writeBytes(element.getBytes(), 0, element.getLength());
+            cursor.next();
+
+            if (cursor.hasElement()) {
+                var key = order.key(cursor.getElement());
+                keys[cursorIndex] = descending ? ~key : key;
+            } else {
+                heap[0] = heap[--size];
+            }
+            if (size > 0) {
+                siftDownByteLine(heap, size, 0, keys, cursors, order, descending);
+            }
+        }
+    }
+
+    private static void siftDownInt(int[] heap, int size, int position, int[] keys) {
+        var cursorIndex = heap[position];
+        var key = keys[cursorIndex];
+        var half = size >>> 1;
+        while (position < half) {
+            var child = 2 * position + 1;
+            var right = child + 1;
+            if (right < size && (keys[heap[right]] < keys[heap[child]]
+                    || (keys[heap[right]] == keys[heap[child]] && heap[right] < heap[child]))) {
+                child = right;
+            }
+            var childIndex = heap[child];
+            if (keys[childIndex] > key || (keys[childIndex] == key && childIndex > cursorIndex)) {
+                break;
+            }
+            heap[position] = childIndex;
+            position = child;
+        }
+        heap[position] = cursorIndex;
+    }
+
+    private static void siftDownLong(int[] heap, int size, int position, long[] keys) {
+        var cursorIndex = heap[position];
+        var key = keys[cursorIndex];
+        var half = size >>> 1;
+        while (position < half) {
+            var child = 2 * position + 1;
+            var right = child + 1;
+            if (right < size && (keys[heap[right]] < keys[heap[child]]
+                    || (keys[heap[right]] == keys[heap[child]] && heap[right] < heap[child]))) {
+                child = right;
+            }
+            var childIndex = heap[child];
+            if (keys[childIndex] > key || (keys[childIndex] == key && childIndex > cursorIndex)) {
+                break;
+            }
+            heap[position] = childIndex;
+            position = child;
+        }
+        heap[position] = cursorIndex;
+    }
+
+    private static void siftDownDecimal(int[] heap, int size, int position, List<DecimalCursor> cursors,
+                                        boolean descending) {
+        var cursorIndex = heap[position];
+        var half = size >>> 1;
+        while (position < half) {
+            var child = 2 * position + 1;
+            var right = child + 1;
+            if (right < size && isBeforeDecimal(heap[right], heap[child], cursors, descending)) {
+                child = right;
+            }
+            var childIndex = heap[child];
+            if (!isBeforeDecimal(childIndex, cursorIndex, cursors, descending)) {
+                break;
+            }
+            heap[position] = childIndex;
+            position = child;
+        }
+        heap[position] = cursorIndex;
+    }
+
+    private static boolean isBeforeDecimal(int first, int second, List<DecimalCursor> cursors, boolean descending) {
+        var compare = cursors.get(first).getElement().compareTo(cursors.get(second).getElement());
+        if (descending) {
+            compare = -compare;
+        }
+        return compare < 0 || (compare == 0 && first < second);
+    }
+
+    private static void siftDownByteLine(int[] heap, int size, int position, long[] keys,
+                                         List<ByteLineCursor> cursors, StringOrder order, boolean descending) {
+        var cursorIndex = heap[position];
+        var half = size >>> 1;
+        while (position < half) {
+            var child = 2 * position + 1;
+            var right = child + 1;
+            if (right < size && isBeforeByteLine(heap[right], heap[child], keys, cursors, order, descending)) {
+                child = right;
+            }
+            var childIndex = heap[child];
+            if (!isBeforeByteLine(childIndex, cursorIndex, keys, cursors, order, descending)) {
+                break;
+            }
+            heap[position] = childIndex;
+            position = child;
+        }
+        heap[position] = cursorIndex;
+    }
+
+    private static boolean isBeforeByteLine(int first, int second, long[] keys, List<ByteLineCursor> cursors,
+                                            StringOrder order, boolean descending) {
+        var compare = Long.compareUnsigned(keys[first], keys[second]);
+        if (compare == 0) {
+            compare = order.compare(cursors.get(first).getElement(), cursors.get(second).getElement());
+            if (descending) {
+                compare = -compare;
+            }
+        }
+        return compare < 0 || (compare == 0 && first < second);
+    }
+
+    private static <T> void siftDown(int[] heap, int size, int position,
+                                     List<? extends ElementCursor<T>> cursors, Comparator<? super T> order) {
+        var cursorIndex = heap[position];
+        var element = cursors.get(cursorIndex).getElement();
+        var half = size >>> 1;
+        while (position < half) {
+            var child = 2 * position + 1;
+            var right = child + 1;
+            if (right < size && isBefore(heap[right], heap[child], cursors, order)) {
+                child = right;
+            }
+            var childIndex = heap[child];
+            var compare = order.compare(cursors.get(childIndex).getElement(), element);
+            if (compare > 0 || (compare == 0 && childIndex > cursorIndex)) {
+                break;
+            }
+            heap[position] = childIndex;
+            position = child;
+        }
+        heap[position] = cursorIndex;
+    }
+
+    private static <T> boolean isBefore(int first, int second,
+                                        List<? extends ElementCursor<T>> cursors, Comparator<? super T> order) {
+        var compare = order.compare(cursors.get(first).getElement(), cursors.get(second).getElement());
+        return compare < 0 || (compare == 0 && first < second);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.DecimalCursor;
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.LongCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.StringOrder;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Алгоритм k-путевого слияния отсортированных курсоров.
+ * Слияние останавливается, когда курсоры закончились или приёмник полон (OutputSink.isFull)
+ */
+public interface MergeEngine {
+    /**
+     * @param cursors - курсоры по отсортированным данным
+     * @param order - порядок сортировки, по возрастанию/убыванию определяется компаратором
+     * @param sink - приёмник результата
+     */
+    <T> void merge(List<? extends ElementCursor<T>> cursors, Comparator<? super T> order, OutputSink sink);
+
+    /**
+     * Слияние Integer данных без упаковки элементов
+     * @param cursors - курсоры по отсортированным данным
+     * @param descending - true - слияние по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
+    void mergeInt(List<? extends IntCursor> cursors, boolean descending, OutputSink sink);
+
+    /**
+     * Слияние Long данных без упаковки элементов
+     * @param cursors - курсоры по отсортированным данным
+     * @param descending - true - слияние по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
+    void mergeLong(List<? extends LongCursor> cursors, boolean descending, OutputSink sink);
+
+    /**
+     * Слияние чисел произвольной точности: сравнение по каноническим байтам, запись байтами, без объектов на элемент
+     * @param cursors - курсоры по отсортированным данным
+     * @param descending - true - слияние по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
+    void mergeDecimal(List<? extends DecimalCursor> cursors, boolean descending, OutputSink sink);
+
+    /**
+     * Слияние строк в байтах UTF-8: сравнение по ключам StringOrder, запись байтами, без декодирования в String
+     * @param cursors - курсоры по отсортированным данным
+     * @param order - порядок строк
+     * @param descending - true - слияние по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
+    void mergeByteLines(List<? extends ByteLineCursor> cursors, StringOrder order, boolean descending, OutputSink sink);
+}
@@ -0,0 +1,15 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+
+import java.util.List;
+
+public interface ParallelMergeManager {
+    void parallelMergeInt(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink,
+                          ExternalSortOptions options);
+
+    void parallelMergeString(List<String> files, StringOrder order, boolean descending, ReadOptions readOptions,
+                             OutputSink sink, ExternalSortOptions options);
+}
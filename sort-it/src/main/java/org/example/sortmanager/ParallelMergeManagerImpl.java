@@ -0,0 +1,579 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.ByteLine;
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.LineProbe;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.RejectionReporter;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+import org.example.metrics.RunMetrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Слияние отсортированных файлов в несколько потоков.
+ * Диапазон ключей делится split-ключами, выбранными по выборке строк из файлов, для каждого ключа
+ * бинарным поиском по байтам находится, с какой строки файла начинаются элементы не меньше ключа.
+ * Каждая часть диапазона (partition) сливается своим потоком из соответствующих кусков всех файлов
+ * во временный файл, затем временные файлы дописываются в результат по порядку.
+ *
+ * Результат совпадает с последовательным слиянием байт в байт: равные элементы всегда попадают в одну
+ * часть, а внутри части слияние так же упорядочивает их по номеру файла. Это верно, только если файлы
+ * действительно отсортированы, поэтому каждая часть проверяет порядок своих элементов и их попадание
+ * в свой диапазон. При первом нарушении части останавливаются, временные файлы удаляются и файлы
+ * сливаются последовательно, с обычной проверкой порядка
+ */
+public class ParallelMergeManagerImpl implements ParallelMergeManager {
+
+    public static final long DEFAULT_MIN_PARALLEL_SIZE = 16L * 1024 * 1024;
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, parallelMerge";
+    private static final String MSG_INTERRUPTED = "Ошибка! Сортировка прервана";
+    private static final String PART_FILE_PREFIX = "sort-it-part";
+    private static final String PART_FILE_SUFFIX = ".tmp";
+    private static final String PHASE_PARTITION = "partition";
+    private static final String PHASE_MERGE = "merge";
+    private static final String PHASE_CONCAT = "concat";
+    private static final int SAMPLES_PER_FILE = 64;
+    private static final int PARTITIONS_PER_THREAD = 4; //частей больше, чем потоков, чтобы потоки не простаивали на неровных частях
+
+    private final SortManager sortManager;
+    private final FileManager fileManager;
+    private final long minParallelSize;
+
+    public ParallelMergeManagerImpl(SortManager sortManager, FileManager fileManager) {
+        this(sortManager, fileManager, DEFAULT_MIN_PARALLEL_SIZE);
+    }
+
+    /**
+     * @param minParallelSize - суммарный размер файлов в байтах, меньше которого файлы сливаются последовательно
+     */
+    public ParallelMergeManagerImpl(SortManager sortManager, FileManager fileManager, long minParallelSize) {
+        this.sortManager = sortManager;
+        this.fileManager = fileManager;
+        this.minParallelSize = minParallelSize;
+    }
+
+    /**
+     * @param files - входные файлы, отсортированные в порядке descending
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов
+     * @param sink - приёмник результата
+     * @param options - количество потоков и папка для временных файлов
+     */
+    @Override
+    public void parallelMergeInt(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink,
+                                 ExternalSortOptions options) {
+        Comparator<Integer> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        var partitionReadOptions = readOptions.withOrderValidated(false); //порядок проверяет PartitionIntCursor
+        PartitionMerger<Integer> merger = (partition, aborted, partitionSink) -> {
+            var cursors = new ArrayList<IntCursor>();
+            try {
+                for (int i = 0; i < files.size(); i++) {
+                    var cursor = fileManager.openIntCursor(files.get(i), partition.starts[i], partition.ends[i],
+                            descending, partitionReadOptions);
+                    cursors.add(new PartitionIntCursor(cursor, descending, partition.lower, partition.upper, aborted));
+                }
+                sortManager.streamingMergeSortInt(cursors, descending, partitionSink);
+            } finally {
+                cursors.forEach(IntCursor::close);
+            }
+        };
+        var metrics = readOptions.getMetrics();
+        if (!readOptions.hasReversedFiles() //файлы, читаемые с конца, на части по смещениям не делятся
+                && mergePartitions(files, order, ParallelMergeManagerImpl::parseInt, sink, options, metrics, merger)) {
+            return;
+        }
+        startSequentialMerge(metrics, readOptions.getRejections());
+
+        var cursors = new ArrayList<IntCursor>();
+        try {
+            for (String file : files) {
+                cursors.add(fileManager.openIntCursor(file, descending, readOptions));
+            }
+            sortManager.streamingMergeSortInt(cursors, descending, sink);
+        } finally {
+            cursors.forEach(IntCursor::close);
+        }
+    }
+
+    /**
+     * Строки сливаются в байтах (ByteLineCursor), split-ключи и границы частей ищутся по ByteLine
+     * с ключами того же StringOrder, так что строки нигде не декодируются в String
+     * @param files - входные файлы, отсортированные в порядке order
+     * @param order - порядок строк
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов
+     * @param sink - приёмник результата
+     * @param options - количество потоков и папка для временных файлов
+     */
+    @Override
+    public void parallelMergeString(List<String> files, StringOrder order, boolean descending,
+                                    ReadOptions readOptions, OutputSink sink, ExternalSortOptions options) {
+        var comparator = order.lineComparator(descending);
+        var partitionReadOptions = readOptions.withOrderValidated(false);
+        PartitionMerger<ByteLine> merger = (partition, aborted, partitionSink) -> {
+            var cursors = new ArrayList<ByteLineCursor>();
+            try {
+                for (int i = 0; i < files.size(); i++) {
+                    var cursor = fileManager.openByteLineCursor(files.get(i), partition.starts[i], partition.ends[i],
+                            order, descending, partitionReadOptions);
+                    cursors.add(new PartitionByteLineCursor(cursor, comparator, partition.lower, partition.upper,
+                            aborted));
+                }
+                sortManager.streamingMergeSortByteLines(cursors, order, descending, partitionSink);
+            } finally {
+                cursors.forEach(ByteLineCursor::close);
+            }
+        };
+        var metrics = readOptions.getMetrics();
+        if (!readOptions.hasReversedFiles()
+                && mergePartitions(files, comparator, order::parse, sink, options, metrics, merger)) {
+            return;
+        }
+        startSequentialMerge(metrics, readOptions.getRejections());
+
+        var cursors = new ArrayList<ByteLineCursor>();
+        try {
+            for (String file : files) {
+                cursors.add(fileManager.openByteLineCursor(file, order, descending, readOptions));
+            }
+            sortManager.streamingMergeSortByteLines(cursors, order, descending, sink);
+        } finally {
+            cursors.forEach(ByteLineCursor::close);
+        }
+    }
+
+    /**
+     * Делит файлы на части по ключам и сливает части параллельно
+     * @return false - в результат ничего не записано, файлы нужно слить последовательно:
+     * файлы слишком малы, не удалось их разбить или какая-то часть нашла нарушение порядка
+     */
+    private <T> boolean mergePartitions(List<String> files, Comparator<? super T> order, KeyParser<T> parser,
+                                        OutputSink sink, ExternalSortOptions options, RunMetrics metrics,
+                                        PartitionMerger<T> merger) {
+        if (options.getThreads() < 2 || files.isEmpty()) {
+            return false;
+        }
+        startPhase(metrics, PHASE_PARTITION);
+        var probes = new ArrayList<LineProbe>();
+        try {
+            var totalSize = 0L;
+            for (String file : files) {
+                var probe = fileManager.openLineProbe(file);
+                if (probe == null) {
+                    return false;
+                }
+                probes.add(probe);
+                totalSize += probe.size();
+            }
+            if (totalSize < minParallelSize) {
+                return false;
+            }
+
+            var splitKeys = sampleSplitKeys(probes, order, parser, options.getThreads() * PARTITIONS_PER_THREAD);
+            if (splitKeys.isEmpty()) {
+                return false;
+            }
+            var bounds = new long[probes.size()][];
+            for (int i = 0; i < probes.size(); i++) {
+                var probe = probes.get(i);
+                bounds[i] = new long[splitKeys.size() + 2];
+                for (int k = 0; k < splitKeys.size(); k++) {
+                    bounds[i][k + 1] = findBoundary(probe, splitKeys.get(k), order, parser);
+                }
+                bounds[i][splitKeys.size() + 1] = probe.size();
+                for (int k = 1; k < bounds[i].length; k++) {
+                    if (bounds[i][k] < bounds[i][k - 1]) { //границы не по порядку - файл не отсортирован
+                        return false;
+                    }
+                }
+            }
+
+            var partitions = new ArrayList<Partition<T>>();
+            for (int k = 0; k <= splitKeys.size(); k++) {
+                var partition = new Partition<T>(
+                        k == 0 ? null : splitKeys.get(k - 1),
+                        k == splitKeys.size() ? null : splitKeys.get(k),
+                        probes.size());
+                for (int i = 0; i < probes.size(); i++) {
+                    partition.starts[i] = bounds[i][k];
+                    partition.ends[i] = bounds[i][k + 1];
+                }
+                partitions.add(partition);
+            }
+            probes.forEach(LineProbe::close);
+            probes.clear();
+            return runPartitions(partitions, sink, options, metrics, merger);
+        } catch (IOException e) { //ошибку чтения покажет последовательное слияние
+            return false;
+        } finally {
+            probes.forEach(LineProbe::close);
+        }
+    }
+
+    /**
+     * Сливает части в пуле потоков и, если ни одна не нашла нарушений, дописывает их в результат по порядку
+     * @return false - в результат ничего не записано
+     */
+    private <T> boolean runPartitions(List<Partition<T>> partitions, OutputSink sink, ExternalSortOptions options,
+                                      RunMetrics metrics, PartitionMerger<T> merger) {
+        startPhase(metrics, PHASE_MERGE);
+        var partWriteOptions = WriteOptions.DEFAULT.withMetrics(metrics); //записанное считается в частях, а не при склейке
+        var aborted = new AtomicBoolean();
+        var parts = new ArrayList<Path>();
+        var merges = new ArrayList<Future<?>>();
+        var pool = new ForkJoinPool(options.getThreads());
+        try {
+            try {
+                for (Partition<T> partition : partitions) {
+                    var part = Files.createTempFile(options.getTempDirectory(), PART_FILE_PREFIX, PART_FILE_SUFFIX);
+                    parts.add(part);
+                    merges.add(pool.submit(() -> mergePart(partition, part, partWriteOptions, aborted, merger)));
+                }
+            } catch (IOException e) {
+                aborted.set(true);
+            }
+            if (!awaitMerges(merges) || aborted.get()) {
+                return false;
+            }
+
+            startPhase(metrics, PHASE_CONCAT);
+            for (Path part : parts) { //дальше результат уже пишется, последовательно сливать поздно
+                sink.writeFile(part);
+            }
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println(MSG_INTERRUPTED);
+        } finally {
+            pool.shutdown();
+            deleteParts(parts);
+        }
+        return true;
+    }
+
+    /**
+     * Сливает часть в её временный файл. Приёмник после ошибки записи (например, кончилось место в --tmp-dir)
+     * только закрывается, и укороченная часть молча потеряла бы элементы результата, поэтому часть,
+     * записанная не целиком, останавливает остальные, как и нарушение порядка: файлы сливаются последовательно
+     */
+    private <T> void mergePart(Partition<T> partition, Path part, WriteOptions partWriteOptions, AtomicBoolean aborted,
+                               PartitionMerger<T> merger) {
+        var partSink = fileManager.openOutputSink(part.toString(), partWriteOptions);
+        try {
+            merger.merge(partition, aborted, partSink);
+        } finally {
+            partSink.close();
+        }
+        if (partSink.isFailed()) {
+            aborted.set(true);
+        }
+    }
+
+    /**
+     * Части, слитые до отката, читали и писали данные и отбрасывали элементы,
+     * в итог идёт только последовательное слияние
+     */
+    private static void startSequentialMerge(RunMetrics metrics, RejectionReporter rejections) {
+        if (rejections != null) {
+            rejections.reset();
+        }
+        if (metrics != null) {
+            metrics.resetCounters();
+            metrics.startPhase(PHASE_MERGE);
+        }
+    }
+
+    private static void startPhase(RunMetrics metrics, String phase) {
+        if (metrics != null) {
+            metrics.startPhase(phase);
+        }
+    }
+
+    /**
+     * Дожидается всех частей, даже если какая-то упала: временные файлы удаляются только после этого
+     * @return false - хотя бы одна часть упала
+     */
+    private static boolean awaitMerges(List<Future<?>> merges) throws InterruptedException {
+        var success = true;
+        for (Future<?> merge : merges) {
+            try {
+                merge.get();
+            } catch (ExecutionException e) {
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Выбирает split-ключи: из каждого файла берутся элементы в равноотстоящих по байтам местах,
+     * выборка сортируется и делится на partitions равных долей
+     * @return List<T> возрастающие (в порядке order) ключи без повторов, не больше partitions - 1
+     */
+    private static <T> List<T> sampleSplitKeys(List<LineProbe> probes, Comparator<? super T> order,
+                                               KeyParser<T> parser, int partitions) throws IOException {
+        var samples = new ArrayList<T>();
+        for (LineProbe probe : probes) {
+            for (int i = 0; i < SAMPLES_PER_FILE; i++) {
+                var key = firstKeyAtOrAfter(probe, probe.size() * i / SAMPLES_PER_FILE, parser);
+                if (key != null) {
+                    samples.add(key);
+                }
+            }
+        }
+        samples.sort(order);
+
+        var splitKeys = new ArrayList<T>();
+        for (int i = 1; i < partitions && !samples.isEmpty(); i++) {
+            var key = samples.get(samples.size() * i / partitions);
+            if (order.compare(key, samples.get(0)) > 0
+                    && (splitKeys.isEmpty() || order.compare(key, splitKeys.get(splitKeys.size() - 1)) > 0)) {
+                splitKeys.add(key);
+            }
+        }
+        return splitKeys;
+    }
+
+    /**
+     * Бинарный поиск по байтам отсортированного файла
+     * @return long начало первой строки, с которой все валидные элементы не меньше key
+     */
+    private static <T> long findBoundary(LineProbe probe, T key, Comparator<? super T> order, KeyParser<T> parser)
+            throws IOException {
+        var low = 0L;
+        var high = probe.size();
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            var element = firstKeyAtOrAfter(probe, middle, parser);
+            if (element == null || order.compare(element, key) >= 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return probe.lineStartAtOrAfter(low);
+    }
+
+    /**
+     * @return T первый валидный элемент, строка которого начинается не раньше offset, null - таких нет
+     */
+    private static <T> T firstKeyAtOrAfter(LineProbe probe, long offset, KeyParser<T> parser) throws IOException {
+        var lineStart = probe.lineStartAtOrAfter(offset);
+        while (probe.readLine(lineStart)) {
+            var key = parser.parse(probe.getLine(), probe.getLineLength());
+            if (key != null) {
+                return key;
+            }
+            lineStart = probe.getNextLineStart();
+        }
+        return null;
+    }
+
+    /**
+     * Разбор строки так же, как в IntBlockCursor: необязательный знак и цифры в пределах int
+     */
+    private static Integer parseInt(byte[] line, int length) {
+        try {
+            return Integer.parseInt(new String(line, 0, length, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void deleteParts(List<Path> parts) {
+        for (Path part : parts) {
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException e) {
+                System.out.println(MSG_IO_EXCEPTION);
+            }
+        }
+    }
+
+    /**
+     * Часть диапазона ключей [lower, upper) и куски файлов [starts[i], ends[i]), в которых лежат её элементы
+     */
+    private static class Partition<T> {
+        private final T lower; //null - без нижней границы
+        private final T upper; //null - без верхней границы
+        private final long[] starts;
+        private final long[] ends;
+
+        private Partition(T lower, T upper, int files) {
+            this.lower = lower;
+            this.upper = upper;
+            this.starts = new long[files];
+            this.ends = new long[files];
+        }
+    }
+
+    /**
+     * Разбор ключа из байт строки, null - строка невалидна
+     */
+    private interface KeyParser<T> {
+        T parse(byte[] line, int length);
+    }
+
+    /**
+     * Слияние одной части в её временный файл, своё для каждого типа данных
+     */
+    private interface PartitionMerger<T> {
+        void merge(Partition<T> partition, AtomicBoolean aborted, OutputSink sink);
+    }
+
+    /**
+     * Курсор по куску файла, проверяющий, что элементы идут по порядку и лежат в диапазоне части.
+     * При нарушении выставляет общий флаг aborted и заканчивается, как и курсоры других частей, увидевшие флаг
+     */
+    private static class PartitionIntCursor implements IntCursor {
+        private final IntCursor source;
+        private final boolean descending;
+        private final boolean hasLower;
+        private final int lower;
+        private final boolean hasUpper;
+        private final int upper;
+        private final AtomicBoolean aborted;
+        private boolean hasElement;
+        private int element;
+
+        private PartitionIntCursor(IntCursor source, boolean descending, Integer lower, Integer upper,
+                                   AtomicBoolean aborted) {
+            this.source = source;
+            this.descending = descending;
+            this.hasLower = lower != null;
+            this.lower = hasLower ? lower : 0;
+            this.hasUpper = upper != null;
+            this.upper = hasUpper ? upper : 0;
+            this.aborted = aborted;
+            accept(false);
+        }
+
+        @Override
+        public boolean hasElement() {
+            return hasElement;
+        }
+
+        @Override
+        public int getElement() {
+            return element;
+        }
+
+        @Override
+        public void next() {
+            source.next();
+            accept(true);
+        }
+
+        private void accept(boolean hasPrevious) {
+            hasElement = false;
+            if (!source.hasElement() || aborted.get()) {
+                return;
+            }
+            var current = source.getElement();
+            if ((hasLower && compare(current, lower) < 0)
+                    || (hasUpper && compare(current, upper) >= 0)
+                    || (hasPrevious && compare(element, current) > 0)) {
+                aborted.set(true);
+                return;
+            }
+            element = current;
+            hasElement = true;
+        }
+
+        private int compare(int first, int second) {
+            return descending ? Integer.compare(second, first) : Integer.compare(first, second);
+        }
+
+        @Override
+        public String getFile() {
+            return source.getFile();
+        }
+
+        @Override
+        public void close() {
+            source.close();
+        }
+    }
+
+    /**
+     * Как PartitionIntCursor, но для строк в байтах. Курсор-источник переиспользует свои ByteLine,
+     * поэтому предыдущий элемент для проверки порядка копируется в свой буфер
+     */
+    private static class PartitionByteLineCursor implements ByteLineCursor {
+        private final ByteLineCursor source;
+        private final Comparator<ByteLine> order;
+        private final ByteLine lower;
+        private final ByteLine upper;
+        private final AtomicBoolean aborted;
+        private final ByteLine previous = new ByteLine();
+        private boolean hasElement;
+
+        private PartitionByteLineCursor(ByteLineCursor source, Comparator<ByteLine> order, ByteLine lower,
+                                        ByteLine upper, AtomicBoolean aborted) {
+            this.source = source;
+            this.order = order;
+            this.lower = lower;
+            this.upper = upper;
+            this.aborted = aborted;
+            accept(false);
+        }
+
+        @Override
+        public boolean hasElement() {
+            return hasElement;
+        }
+
+        @Override
+        public ByteLine getElement() {
+            return source.getElement();
+        }
+
+        @Override
+        public void next() {
+            previous.set(source.getElement());
+            source.next();
+            accept(true);
+        }
+
+        private void accept(boolean hasPrevious) {
+            hasElement = false;
+            if (!source.hasElement() || aborted.get()) {
+                return;
+            }
+            var current = source.getElement();
+            if ((lower != null && order.compare(current, lower) < 0)
+                    || (upper != null && order.compare(current, upper) >= 0)
+                    || (hasPrevious && order.compare(previous, current) > 0)) {
+                aborted.set(true);
+                return;
+            }
+            hasElement = true;
+        }
+
+        @Override
+        public String getFile() {
+            return source.getFile();
+        }
+
+        @Override
+        public void close() {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+
+import java.util.List;
+
+public interface PresortedMergeManager {
+    void presortedMergeInt(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink);
+
+    void presortedMergeLong(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink);
+
+    void presortedMergeDecimal(List<String> files, boolean descending, boolean fractional, ReadOptions readOptions,
+                               OutputSink sink);
+
+    void presortedMergeString(List<String> files, StringOrder order, boolean descending, ReadOptions readOptions,
+                              OutputSink sink);
+}
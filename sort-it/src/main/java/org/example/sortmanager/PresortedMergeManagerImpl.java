@@ -0,0 +1,371 @@
+package org.example.sortmanager;
+
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.DecimalCursor;
+import org.example.filemanager.DecimalNumber;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.InputRange;
+import org.example.filemanager.InputSample;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.LongCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+import org.example.metrics.RunMetrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Слияние отсортированных файлов, которые часто уже разбиты по диапазонам: последний элемент одного файла
+ * не больше первого элемента другого. Файлы группируются в отрезки по диапазонам [первый, последний] элемент:
+ * файлы одного отрезка пересекаются и сливаются как обычно, а файл, который ни с кем не пересекается,
+ * дописывается в результат байт в байт через FileChannel.transferTo, без разбора и сравнений.
+ *
+ * Диапазон файла определяется отдельным проходом без записи (InputRange): первый и последний элементы,
+ * которые принял бы курсор. Тот же проход проверяет, что файл можно копировать: в нём нет элементов,
+ * которые курсор бы отбросил, и приёмник записал бы элементы теми же байтами. Иначе файл сливается
+ * курсором, с обычными сообщениями о невалидных элементах. Чтобы не тратить этот проход на файлы,
+ * которые всё равно пересекаются, сначала диапазоны оцениваются по началу и концу файлов (InputSample),
+ * и точный проход делается только для файлов, которые по выборке ни с кем не пересекаются. Если таких нет,
+ * файлы сразу сливаются. Результат совпадает с обычным слиянием байт в байт; у файлов без точного прохода
+ * диапазон берётся по выборке, поэтому для них это верно, если нарушения порядка в их середине
+ * не поднимают элемент выше наибольшего в выборке
+ */
+public class PresortedMergeManagerImpl implements PresortedMergeManager {
+
+    private static final String MSG_IO_EXCEPTION = "Ошибка! InputOutputException, presortedMerge";
+    private static final String PHASE_PLAN = "plan";
+    private static final String PHASE_MERGE = "merge";
+
+    private final SortManager sortManager;
+    private final FileManager fileManager;
+
+    public PresortedMergeManagerImpl(SortManager sortManager, FileManager fileManager) {
+        this.sortManager = sortManager;
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * @param files - входные файлы, отсортированные в порядке descending
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов
+     * @param sink - приёмник результата
+     */
+    @Override
+    public void presortedMergeInt(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink) {
+        Comparator<Integer> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        SegmentMerger merger = segment -> {
+            var cursors = new ArrayList<IntCursor>();
+            try {
+                for (String file : segment) {
+                    cursors.add(fileManager.openIntCursor(file, descending, readOptions));
+                }
+                sortManager.streamingMergeSortInt(cursors, descending, sink);
+            } finally {
+                cursors.forEach(IntCursor::close);
+            }
+        };
+        mergeSegments(files, order, PresortedMergeManagerImpl::parseInt,
+                file -> fileManager.scanIntRange(file, descending), readOptions, sink, merger);
+    }
+
+    /**
+     * @param files - входные файлы, отсортированные в порядке descending
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов
+     * @param sink - приёмник результата
+     */
+    @Override
+    public void presortedMergeLong(List<String> files, boolean descending, ReadOptions readOptions, OutputSink sink) {
+        Comparator<Long> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        SegmentMerger merger = segment -> {
+            var cursors = new ArrayList<LongCursor>();
+            try {
+                for (String file : segment) {
+                    cursors.add(fileManager.openLongCursor(file, descending, readOptions));
+                }
+                sortManager.streamingMergeSortLong(cursors, descending, sink);
+            } finally {
+                cursors.forEach(LongCursor::close);
+            }
+        };
+        mergeSegments(files, order, PresortedMergeManagerImpl::parseLong,
+                file -> fileManager.scanLongRange(file, descending), readOptions, sink, merger);
+    }
+
+    /**
+     * @param files - входные файлы, отсортированные в порядке descending
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param fractional - true - десятичные дроби, иначе только целые числа
+     * @param readOptions - настройки чтения входных файлов
+     * @param sink - приёмник результата
+     */
+    @Override
+    public void presortedMergeDecimal(List<String> files, boolean descending, boolean fractional,
+                                      ReadOptions readOptions, OutputSink sink) {
+        Comparator<DecimalNumber> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        SegmentMerger merger = segment -> {
+            var cursors = new ArrayList<DecimalCursor>();
+            try {
+                for (String file : segment) {
+                    cursors.add(fileManager.openDecimalCursor(file, descending, fractional, readOptions));
+                }
+                sortManager.streamingMergeSortDecimal(cursors, descending, sink);
+            } finally {
+                cursors.forEach(DecimalCursor::close);
+            }
+        };
+        mergeSegments(files, order, line -> DecimalNumber.parse(line, fractional),
+                file -> fileManager.scanDecimalRange(file, descending, fractional), readOptions, sink, merger);
+    }
+
+    /**
+     * Строки сливаются в байтах (ByteLineCursor), без декодирования в String.
+     * Диапазоны файлов определяются по строкам в том же порядке StringOrder
+     * @param files - входные файлы, отсортированные в порядке order
+     * @param order - порядок строк
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param readOptions - настройки чтения входных файлов
+     * @param sink - приёмник результата
+     */
+    @Override
+    public void presortedMergeString(List<String> files, StringOrder order, boolean descending,
+                                     ReadOptions readOptions, OutputSink sink) {
+        var comparator = descending ? order.comparator().reversed() : order.comparator();
+        SegmentMerger merger = segment -> {
+            var cursors = new ArrayList<ByteLineCursor>();
+            try {
+                for (String file : segment) {
+                    cursors.add(fileManager.openByteLineCursor(file, order, descending, readOptions));
+                }
+                sortManager.streamingMergeSortByteLines(cursors, order, descending, sink);
+            } finally {
+                cursors.forEach(ByteLineCursor::close);
+            }
+        };
+        mergeSegments(files, comparator, line -> line.contains(" ") ? null : line,
+                file -> fileManager.scanStringRange(file, comparator), readOptions, sink, merger);
+    }
+
+    /**
+     * @param lineParser - разбор строки из InputSample в элемент, null - строка невалидна
+     * @param scanner - точный диапазон файла, null - файл не прочитать
+     */
+    private <T> void mergeSegments(List<String> files, Comparator<? super T> order, Function<String, T> lineParser,
+                                   Function<String, InputRange<T>> scanner,
+                                   ReadOptions readOptions, OutputSink sink, SegmentMerger merger) {
+        var metrics = readOptions.getMetrics();
+        //файлы, читаемые с конца, в исходном виде не отсортированы в нужном порядке и не копируются;
+        //в двоичных файлах нет строк для оценки диапазонов, а разбора и проверки порядка при их слиянии и так нет;
+        //сжатый файл нельзя скопировать байтами в результат и прочитать с конца;
+        //приёмнику, который пропускает не все элементы, файлы не копируются, а план читал бы их целиком зря
+        var sampled = readOptions.hasReversedFiles() || readOptions.hasBinaryFiles() || sink.isSelective()
+                || files.stream().anyMatch(fileManager::isCompressed)
+                ? null : sampleRanges(files, order, lineParser);
+        var candidates = sampled == null ? null : copyCandidates(files.size(), sampled, order);
+        if (candidates == null) {
+            startPhase(metrics, PHASE_MERGE);
+            merger.merge(files);
+            return;
+        }
+
+        startPhase(metrics, PHASE_PLAN);
+        var ranges = new ArrayList<Range<T>>();
+        var withoutElements = new ArrayList<String>(); //ни одного валидного элемента, только сообщения
+        for (Range<T> range : sampled) {
+            if (!candidates[range.index]) { //пересекается с другими по выборке и сольётся курсором, точный проход не нужен
+                ranges.add(range);
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (!candidates[i]) {
+                continue;
+            }
+            var range = scanner.apply(files.get(i));
+            if (range == null) {
+                startPhase(metrics, PHASE_MERGE);
+                merger.merge(files);
+                return;
+            }
+            if (range.getElements() > 0) {
+                ranges.add(new Range<>(range, i, range.getFirst(), range.getLast()));
+            } else if (!range.isCopyable()) {
+                withoutElements.add(files.get(i));
+            }
+        }
+
+        startPhase(metrics, PHASE_MERGE);
+        if (!withoutElements.isEmpty()) {
+            merger.merge(withoutElements);
+        }
+        for (List<Range<T>> segment : group(ranges, order)) {
+            if (segment.size() == 1 && segment.get(0).input != null && segment.get(0).input.isCopyable()) {
+                copy(segment.get(0).input, sink, metrics);
+                continue;
+            }
+            segment.sort(Comparator.comparingInt(range -> range.index)); //равные элементы - в порядке файлов
+            var segmentFiles = new ArrayList<String>();
+            segment.forEach(range -> segmentFiles.add(files.get(range.index)));
+            merger.merge(segmentFiles);
+        }
+    }
+
+    /**
+     * Оценивает диапазоны по началу и концу файлов. Первый элемент выборки - первый элемент файла,
+     * а последним берётся наибольший в порядке order: курсор принимает только элементы не меньше
+     * предыдущего принятого, так что последний принятый - наибольший в файле. Файл не длиннее выборки
+     * виден целиком, и его диапазон точный
+     * @return List<Range<T>> диапазоны файлов без InputRange, null - выборку прочитать не удалось.
+     *         Файла без валидных строк в выборке в списке нет
+     */
+    private <T> List<Range<T>> sampleRanges(List<String> files, Comparator<? super T> order,
+                                            Function<String, T> lineParser) {
+        var ranges = new ArrayList<Range<T>>();
+        for (int i = 0; i < files.size(); i++) {
+            InputSample sample = fileManager.sampleInput(files.get(i));
+            if (sample == null) {
+                return null;
+            }
+            T first = null;
+            T last = null;
+            for (String line : sample.getLines()) {
+                var element = lineParser.apply(line);
+                if (element != null) {
+                    first = first == null ? element : first;
+                    last = last == null || order.compare(element, last) >= 0 ? element : last;
+                }
+            }
+            if (first != null) {
+                ranges.add(new Range<>(null, i, first, last));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Файлы, которые по выборке ни с кем не пересекаются, и файлы, которые по выборке не оценить:
+     * только их диапазоны и возможность копирования проверяются точным проходом
+     * @return boolean[] по номеру файла - нужен ли ему точный проход, null - копировать, похоже, нечего
+     */
+    private static <T> boolean[] copyCandidates(int files, List<Range<T>> sampled, Comparator<? super T> order) {
+        var candidates = new boolean[files];
+        Arrays.fill(candidates, true);
+        sampled.forEach(range -> candidates[range.index] = false);
+        var found = false;
+        for (List<Range<T>> segment : group(sampled, order)) {
+            if (segment.size() == 1) {
+                candidates[segment.get(0).index] = true;
+                found = true;
+            }
+        }
+        return found ? candidates : null;
+    }
+
+    /**
+     * Делит файлы на отрезки: файлы, отсортированные по первому элементу, идут в один отрезок,
+     * пока первый элемент следующего файла не больше последнего элемента отрезка.
+     * Равные элементы разных файлов слияние пишет в порядке файлов, поэтому на границе отрезков равенство
+     * допустимо, только если все файлы отрезка с этим элементом идут в аргументах раньше следующего файла
+     */
+    private static <T> List<List<Range<T>>> group(List<Range<T>> ranges, Comparator<? super T> order) {
+        var sorted = new ArrayList<>(ranges);
+        sorted.sort((a, b) -> {
+            var compared = order.compare(a.first, b.first);
+            return compared != 0 ? compared : Integer.compare(a.index, b.index);
+        });
+
+        var segments = new ArrayList<List<Range<T>>>();
+        List<Range<T>> segment = null;
+        T last = null;
+        var lastIndex = -1; //наибольший номер файла, в котором отрезок заканчивается элементом last
+        for (Range<T> range : sorted) {
+            if (segment != null) {
+                var compared = order.compare(range.first, last);
+                if (compared > 0 || (compared == 0 && lastIndex < range.index)) {
+                    segment = null;
+                }
+            }
+            if (segment == null) {
+                segment = new ArrayList<>();
+                segments.add(segment);
+                last = range.last;
+                lastIndex = range.index;
+            } else {
+                var compared = order.compare(range.last, last);
+                if (compared > 0) {
+                    last = range.last;
+                    lastIndex = range.index;
+                } else if (compared == 0) {
+                    lastIndex = Math.max(lastIndex, range.index);
+                }
+            }
+            segment.add(range);
+        }
+        return segments;
+    }
+
+    private static Integer parseInt(String line) {
+        try {
+            return Integer.valueOf(line);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String line) {
+        try {
+            return Long.valueOf(line);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void copy(InputRange<?> input, OutputSink sink, RunMetrics metrics) {
+        try {
+            sink.writeFile(Path.of(input.getFile()));
+        } catch (IOException e) {
+            System.out.println(MSG_IO_EXCEPTION);
+            return;
+        }
+        if (metrics != null) { //файл не разбирался курсором, прочитанное и записанное считаются по проходу InputRange
+            metrics.file(input.getFile()).add(input.getSize(), 0, input.getElements(), 0);
+            metrics.addWrite(input.getElements(), input.getSize(), 0);
+        }
+    }
+
+    private static void startPhase(RunMetrics metrics, String phase) {
+        if (metrics != null) {
+            metrics.startPhase(phase);
+        }
+    }
+
+    /**
+     * Слияние файлов отрезка курсорами в общий приёмник
+     */
+    private interface SegmentMerger {
+        void merge(List<String> files);
+    }
+
+    /**
+     * Диапазон элементов файла и номер файла в аргументах
+     */
+    private static class Range<T> {
+        private final InputRange<T> input;
+        private final int index;
+        private final T first;
+        private final T last;
+
+        private Range(InputRange<T> input, int index, T first, T last) {
+            this.input = input;
+            this.index = index;
+            this.first = first;
+            this.last = last;
+        }
+    }
+}
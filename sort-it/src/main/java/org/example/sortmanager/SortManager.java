@@ -1,25 +1,33 @@
 package org.example.sortmanager;
 
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.DecimalCursor;
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.LongCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.StringOrder;
+
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
 public interface SortManager {
-    List<String> ascendingMergeSortInt(Map<
+    <T> List<String> mergeSort(Map<
             String, //Файл
-            List<Integer> //Элементы файла
-            > filesWithElements);
-
-    List<String> ascendingMergeSortString(Map<
-            String,
-            List<String>
-            > filesWithElements);
-    List<String> descendingMergeSortInt(Map<
-            String,
-            List<Integer>
-            > filesWithElements);
-
-    List<String> descendingMergeSortString(Map<
-            String,
-            List<String>
-            > filesWithElements);
+            List<T> //Элементы файла
+            > filesWithElements, Comparator<? super T> order);
+
+    <T> void streamingMergeSort(List<? extends ElementCursor<T>> cursors,
+                                Comparator<? super T> order,
+                                OutputSink sink);
+
+    void streamingMergeSortInt(List<? extends IntCursor> cursors, boolean descending, OutputSink sink);
+
+    void streamingMergeSortLong(List<? extends LongCursor> cursors, boolean descending, OutputSink sink);
+
+    void streamingMergeSortDecimal(List<? extends DecimalCursor> cursors, boolean descending, OutputSink sink);
+
+    void streamingMergeSortByteLines(List<? extends ByteLineCursor> cursors, StringOrder order, boolean descending,
+                                     OutputSink sink);
 }
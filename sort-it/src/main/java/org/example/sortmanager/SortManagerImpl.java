@@ -1,6 +1,16 @@
 package org.example.sortmanager;
 
+import org.example.filemanager.ByteLineCursor;
+import org.example.filemanager.DecimalCursor;
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.ListElementCursor;
+import org.example.filemanager.LongCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.StringOrder;
+
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -9,125 +19,119 @@ import java.util.Map;
  */
 public class SortManagerImpl implements SortManager {
 
+    private final MergeEngine mergeEngine;
+
+    public SortManagerImpl() {
+        this(new HeapMergeEngine());
+    }
+
+    /**
+     * @param mergeEngine - алгоритм k-путевого слияния
+     */
+    public SortManagerImpl(MergeEngine mergeEngine) {
+        this.mergeEngine = mergeEngine;
+    }
+
     /**
      * Алгоритм сортировки слиянием отсортированных массивов/файлов
-     * Берутся первые элементы файлов, сравниваются, наименьшее число попадает
-     * в результирующий массив, а из файла (в мапе, оригинал файла не трогается) это число удаляется
+     * Берутся первые элементы файлов, сравниваются, первый по порядку сортировки элемент попадает
+     * в результирующий массив, а индекс головного элемента этого файла сдвигается (оригинал файла не трогается)
      * операция проходит, пока все файлы не окажутся пустыми
      *
      * @param filesWithElements - key: название файла, value: элементы файла (предварительно отсортированы)
+     * @param order - порядок сортировки, по возрастанию/убыванию определяется компаратором
      * @return List<String> элементы, которые запишутся в выходной файл
      */
     @Override
-    public List<String> ascendingMergeSortInt(Map<
+    public <T> List<String> mergeSort(Map<
             String, //Файл
-            List<Integer> //Элементы файла
-            > filesWithElements) {
-        var result = new ArrayList<String>();
+            List<T> //Элементы файла
+            > filesWithElements, Comparator<? super T> order) {
+        var cursors = new ArrayList<ElementCursor<T>>();
+        filesWithElements.forEach((file, elements) -> cursors.add(new ListElementCursor<>(file, elements)));
 
-        while (!filesWithElements.isEmpty()) {
-            String fileWithSmallestNumber = "";
-            var smallestNumber = Integer.MAX_VALUE;
-            for (String file : filesWithElements.keySet()) {
-                int currentNumber = filesWithElements.get(file).get(0); //рассматриваем только первые элементы
-                if (currentNumber < smallestNumber) {
-                    fileWithSmallestNumber = file;
-                    smallestNumber = currentNumber;
-                }
+        var result = new ArrayList<String>();
+        mergeEngine.merge(cursors, order, new OutputSink() {
+            @Override
+            public void write(String element) {
+                result.add(element);
             }
-            result.add(String.valueOf(smallestNumber));
-            filesWithElements.get(fileWithSmallestNumber).remove(0); //удаляем наименьший элемент из файла
 
-            if (filesWithElements.get(fileWithSmallestNumber).isEmpty()) { //если файл после удаления элемента пуст - файл удаляется
-                filesWithElements.remove(fileWithSmallestNumber);
+            @Override
+            public void close() {
             }
-        }
+        });
         return result;
     }
 
+    /**
+     * Потоковый вариант сортировки слиянием: файлы не выгружаются в память целиком,
+     * по каждому файлу идёт курсор, в памяти только головные элементы курсоров.
+     * Первый по порядку сортировки головной элемент сразу пишется в выходной файл,
+     * а курсор этого файла сдвигается на следующий элемент
+     *
+     * @param cursors - курсоры по входным файлам (предварительно отсортированы)
+     * @param order - порядок сортировки
+     * @param sink - приёмник результата
+     */
     @Override
-    public List<String> ascendingMergeSortString(Map<
-            String, //Файл
-            List<String> //Элементы файла
-            > filesWithElements) {
-        var result = new ArrayList<String>();
-
-        while (!filesWithElements.isEmpty()) {
-            String smallestString = "";
-            String fileWithSmallestString = "";
-            var smallestStringSize = Integer.MAX_VALUE;
-            for (String file : filesWithElements.keySet()) {
-                var currentString = filesWithElements.get(file).get(0);
-                if (currentString.length() < smallestStringSize) {
-                    fileWithSmallestString = file;
-                    smallestString = currentString;
-                    smallestStringSize = currentString.length();
-                }
-            }
-            result.add(smallestString);
-            filesWithElements.get(fileWithSmallestString).remove(0);
-
-            if (filesWithElements.get(fileWithSmallestString).isEmpty()) {
-                filesWithElements.remove(fileWithSmallestString);
-            }
-        }
-        return result;
+    public <T> void streamingMergeSort(List<? extends ElementCursor<T>> cursors,
+                                       Comparator<? super T> order,
+                                       OutputSink sink) {
+        mergeEngine.merge(cursors, order, sink);
     }
 
+    /**
+     * Потоковая сортировка слиянием Integer данных: элементы не упаковываются в Integer
+     * и не превращаются в строки, цифры пишутся прямо в буфер приёмника
+     *
+     * @param cursors - курсоры по входным файлам (предварительно отсортированы)
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
     @Override
-    public List<String> descendingMergeSortInt(Map<
-            String, //Файл
-            List<Integer> //Элементы файла
-            > filesWithElements) {
-        var result = new ArrayList<String>();
-
-        while (!filesWithElements.isEmpty()) {
-            String fileWithBiggestNumber = "";
-            var biggestNumber = Integer.MIN_VALUE;
-            for (String file : filesWithElements.keySet()) {
-                int currentNumber = filesWithElements.get(file).get(0);
-                if (currentNumber > biggestNumber) {
-                    fileWithBiggestNumber = file;
-                    biggestNumber = currentNumber;
-                }
-            }
-            result.add(String.valueOf(biggestNumber));
-            filesWithElements.get(fileWithBiggestNumber).remove(0);
-
-            if (filesWithElements.get(fileWithBiggestNumber).isEmpty()) {
-                filesWithElements.remove(fileWithBiggestNumber);
-            }
-        }
-        return result;
+    public void streamingMergeSortInt(List<? extends IntCursor> cursors, boolean descending, OutputSink sink) {
+        mergeEngine.mergeInt(cursors, descending, sink);
     }
 
+    /**
+     * Потоковая сортировка слиянием Long данных, так же без упаковки и промежуточных строк
+     *
+     * @param cursors - курсоры по входным файлам (предварительно отсортированы)
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
     @Override
-    public List<String> descendingMergeSortString(Map<
-            String, //Файл
-            List<String> //Элементы файла
-            > filesWithElements) {
-        var result = new ArrayList<String>();
-
-        while (!filesWithElements.isEmpty()) {
-            String biggestString = "";
-            String fileWithBiggestString = "";
-            var biggestStringSize = Integer.MIN_VALUE;
-            for (String file : filesWithElements.keySet()) {
-                var currentString = filesWithElements.get(file).get(0);
-                if (currentString.length() > biggestStringSize) {
-                    fileWithBiggestString = file;
-                    biggestString = currentString;
-                    biggestStringSize = currentString.length();
-                }
-            }
+    public void streamingMergeSortLong(List<? extends LongCursor> cursors, boolean descending, OutputSink sink) {
+        mergeEngine.mergeLong(cursors, descending, sink);
+    }
 
-            result.add(biggestString);
-            filesWithElements.get(fileWithBiggestString).remove(0);
+    /**
+     * Потоковая сортировка слиянием чисел произвольной точности: числа сравниваются и пишутся
+     * в каноническом виде, без BigInteger/BigDecimal
+     *
+     * @param cursors - курсоры по входным файлам (предварительно отсортированы)
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
+    @Override
+    public void streamingMergeSortDecimal(List<? extends DecimalCursor> cursors, boolean descending,
+                                          OutputSink sink) {
+        mergeEngine.mergeDecimal(cursors, descending, sink);
+    }
 
-            if (filesWithElements.get(fileWithBiggestString).isEmpty()) {
-                filesWithElements.remove(fileWithBiggestString);
-            }
-        }
-        return result;
+    /**
+     * Потоковая сортировка слиянием строк без декодирования: строки сравниваются по ключам StringOrder
+     * и пишутся в выходной файл теми же байтами, что и во входном
+     *
+     * @param cursors - курсоры по входным файлам (предварительно отсортированы)
+     * @param order - порядок строк
+     * @param descending - true - по убыванию, иначе по возрастанию
+     * @param sink - приёмник результата
+     */
+    @Override
+    public void streamingMergeSortByteLines(List<? extends ByteLineCursor> cursors, StringOrder order,
+                                            boolean descending, OutputSink sink) {
+        mergeEngine.mergeByteLines(cursors, order, descending, sink);
     }
 }
@@ -0,0 +1,52 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Временные файлы теста: создаются во временном каталоге системы и удаляются в tearDown через deleteAll()
+ */
+public class TempFiles {
+    private static final String PREFIX = "sort-it-test";
+    private static final String TEXT_SUFFIX = ".txt";
+
+    private final List<Path> files = new ArrayList<>();
+
+    /**
+     * @return Path новый пустой текстовый файл
+     */
+    public Path create() throws IOException {
+        return create(TEXT_SUFFIX);
+    }
+
+    /**
+     * @param suffix - расширение файла: по нему FileManagerImpl определяет формат, например ".gz"
+     * @return Path новый пустой файл
+     */
+    public Path create(String suffix) throws IOException {
+        var file = Files.createTempFile(PREFIX, suffix);
+        files.add(file);
+        return file;
+    }
+
+    /**
+     * @param text - содержимое файла, пишется в UTF-8
+     * @return String путь к новому текстовому файлу, как его передают менеджерам
+     */
+    public String write(String text) throws IOException {
+        var file = create();
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    public void deleteAll() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        files.clear();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.filemanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Двоичный формат: приёмник пишет заголовок и записи, курсоры читают их обратно,
+ * в том числе когда запись разрезана границей блоков
+ */
+public class BinaryFormatTest extends TestCase {
+
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testRoundTrip() throws IOException {
+        var file = tempFiles.create(".bin");
+        var header = new BinaryHeader(BinaryHeader.TYPE_LONG, false, true, -1);
+        try (var sink = new BinaryOutputSink(file.toString(), WriteOptions.DEFAULT.withBinaryHeader(header))) {
+            sink.writeInt(Integer.MIN_VALUE);
+            sink.writeLong(-5);
+            sink.write("4000000000");
+            sink.writeLong(Long.MAX_VALUE);
+        }
+
+        var written = BinaryHeader.read(file.toString());
+        assertEquals(4, written.getCount());
+        assertTrue(written.isSortedIn(false));
+        assertEquals(BinaryHeader.LENGTH + 4 * Long.BYTES, Files.size(file));
+
+        //записи читаются блоками по 3 байта: каждая запись разрезана
+        var bytes = Files.readAllBytes(file);
+        var longs = new ArrayList<Long>();
+        var longCursor = new BinaryLongCursor(file.toString(), chunks(bytes, 3), written, 0, false, true, null, null);
+        while (longCursor.hasElement()) {
+            longs.add(longCursor.getElement());
+            longCursor.next();
+        }
+        assertEquals(List.of((long) Integer.MIN_VALUE, -5L, 4000000000L, Long.MAX_VALUE), longs);
+
+        //в int не помещаются 4000000000 и Long.MAX_VALUE
+        var ints = new ArrayList<Integer>();
+        var intCursor = new BinaryIntCursor(file.toString(), chunks(bytes, 5), written, 0, false, true, null, null);
+        while (intCursor.hasElement()) {
+            ints.add(intCursor.getElement());
+            intCursor.next();
+        }
+        assertEquals(List.of(Integer.MIN_VALUE, -5), ints);
+    }
+
+    public void testTextFileIsNotBinary() throws IOException {
+        var file = tempFiles.create(".bin");
+        Files.writeString(file, "1\n2\n");
+        assertNull(BinaryHeader.read(file.toString()));
+    }
+
+    /**
+     * @return BlockReader, отдающий записи файла (после заголовка) блоками по size байт
+     */
+    private static BlockReader chunks(byte[] bytes, int size) {
+        return new BlockReader() {
+            private int position = BinaryHeader.LENGTH;
+
+            @Override
+            public ByteBuffer read() {
+                if (position >= bytes.length) {
+                    return null;
+                }
+                var end = Math.min(position + size, bytes.length);
+                var block = ByteBuffer.wrap(Arrays.copyOfRange(bytes, position, end));
+                position = end;
+                return block;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
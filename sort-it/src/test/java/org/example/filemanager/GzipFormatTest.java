@@ -0,0 +1,71 @@
+package org.example.filemanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Сжатый результат: приёмник пишет gzip из нескольких членов, продолжение записи с контрольной точки
+ * даёт корректный gzip, курсоры читают его с распаковкой и с заданного смещения
+ */
+public class GzipFormatTest extends TestCase {
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testCheckpointAndResume() throws IOException {
+        var file = tempFiles.create(".gz");
+        long checkpoint;
+        try (var sink = fileManager.openOutputSink(file.toString(), WriteOptions.DEFAULT.withCompressionLevel(1))) {
+            sink.writeInt(1);
+            sink.writeInt(2);
+            sink.write("3");
+            checkpoint = sink.checkpoint();
+            sink.writeLong(4);
+            sink.writeLong(5);
+        }
+        assertTrue(checkpoint > 0);
+        assertEquals("1\n2\n3\n4\n5\n", decompress(file));
+
+        //хвост после контрольной точки отбрасывается, дописанное идёт новым членом gzip
+        try (var sink = fileManager.openOutputSink(file.toString(), WriteOptions.DEFAULT.withResumeOffset(checkpoint))) {
+            sink.writeInt(6);
+        }
+        assertEquals("1\n2\n3\n6\n", decompress(file));
+
+        //смещение считается в распакованных байтах
+        var longs = new ArrayList<Long>();
+        try (var cursor = fileManager.openLongCursor(file.toString(), 2, Long.MAX_VALUE, false, ReadOptions.DEFAULT)) {
+            while (cursor.hasElement()) {
+                longs.add(cursor.getElement());
+                cursor.next();
+            }
+        }
+        assertEquals(List.of(2L, 3L, 6L), longs);
+    }
+
+    public void testEmptyOutputIsValidGzip() throws IOException {
+        var file = tempFiles.create(".gz");
+        fileManager.openOutputSink(file.toString(), WriteOptions.DEFAULT).close();
+        assertEquals("", decompress(file));
+        assertTrue(fileManager.sampleInput(file.toString()).isEmpty());
+    }
+
+    private static String decompress(Path file) throws IOException {
+        try (var input = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.filemanager;
+
+import junit.framework.TestCase;
+import org.example.metrics.RunMetrics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор чисел прямо из байт в IntBlockCursor и LongBlockCursor: границы диапазона, знаки, пустые строки,
+ * переводы строк \r\n и посторонние байты. Невалидная строка отбрасывается и считается, без исключений.
+ * Каждый файл читается блоками разного размера, так что строка и \r\n попадают и на границу блоков
+ */
+public class NumberBlockCursorTest extends TestCase {
+
+    private static final String FILE = "numbers.txt";
+    private static final int[] BLOCK_SIZES = {1, 2, 3, 7, 64};
+
+    public void testIntBoundaries() {
+        assertInts("2147483647\n-2147483648\n0\n-0\n", List.of(2147483647L, -2147483648L, 0L, 0L), 0);
+        assertInts("2147483648\n-2147483649\n99999999999\n21474836470\n", List.of(), 4);
+        assertInts("002147483647\n-0000000000002147483648\n", List.of(2147483647L, -2147483648L), 0);
+    }
+
+    public void testLongBoundaries() {
+        assertLongs("9223372036854775807\n-9223372036854775808\n2147483648\n",
+                List.of(Long.MAX_VALUE, Long.MIN_VALUE, 2147483648L), 0);
+        assertLongs("9223372036854775808\n-9223372036854775809\n92233720368547758070\n", List.of(), 3);
+    }
+
+    public void testSigns() {
+        var text = "+5\n-5\n+0\n-\n+\n--1\n+-1\n1-\n5+\n- 1\n";
+        assertInts(text, List.of(5L, -5L, 0L), 7);
+        assertLongs(text, List.of(5L, -5L, 0L), 7);
+    }
+
+    public void testEmptyLinesAndLineEndings() {
+        var text = "1\r\n2\r\n\r\n3\r4\n\n5";
+        assertInts(text, List.of(1L, 2L, 3L, 4L, 5L), 2); //пустые строки невалидны
+        assertLongs(text, List.of(1L, 2L, 3L, 4L, 5L), 2);
+        assertInts("", List.of(), 0);
+        assertInts("\r\n", List.of(), 1);
+        assertInts("7\r", List.of(7L), 0);
+    }
+
+    public void testInvalidBytes() {
+        var bytes = new byte[]{'1', 'a', '\n', ' ', '2', '\n', '3', ' ', '\n', '0', 'x', '1', '\n',
+                (byte) 0xFF, '\n', (byte) 0xEF, (byte) 0xBC, (byte) 0x91, '\n', '4', 0, '\n', '1', '.', '5', '\n',
+                '8', '\n'};
+        assertElements(bytes, false, List.of(8L), 8);
+        assertElements(bytes, true, List.of(8L), 8);
+    }
+
+    public void testLongRejectedLineIsTruncatedInMessage() {
+        var text = "1".repeat(1000) + "\n9\n";
+        assertInts(text, List.of(9L), 1);
+    }
+
+    private static void assertInts(String text, List<Long> expected, long rejected) {
+        assertElements(text.getBytes(StandardCharsets.UTF_8), false, expected, rejected);
+    }
+
+    private static void assertLongs(String text, List<Long> expected, long rejected) {
+        assertElements(text.getBytes(StandardCharsets.UTF_8), true, expected, rejected);
+    }
+
+    private static void assertElements(byte[] bytes, boolean longs, List<Long> expected, long rejected) {
+        for (int blockSize : BLOCK_SIZES) {
+            var metrics = new RunMetrics();
+            var elements = new ArrayList<Long>();
+            try (var rejections = new RejectionReporter(0, null)) {
+                var reader = new ArrayBlockReader(bytes, blockSize);
+                if (longs) {
+                    try (var cursor = new LongBlockCursor(FILE, reader, false, false, metrics.file(FILE), rejections)) {
+                        for (; cursor.hasElement(); cursor.next()) {
+                            elements.add(cursor.getElement());
+                        }
+                    }
+                } else {
+                    try (var cursor = new IntBlockCursor(FILE, reader, false, false, metrics.file(FILE), rejections)) {
+                        for (; cursor.hasElement(); cursor.next()) {
+                            elements.add((long) cursor.getElement());
+                        }
+                    }
+                }
+            }
+            var message = (longs ? "long" : "int") + ", блок " + blockSize;
+            assertEquals(message, expected, elements);
+            assertEquals(message, rejected, metrics.file(FILE).getRejected());
+            assertEquals(message, expected.size(), metrics.file(FILE).getElements());
+            assertEquals(message, bytes.length, metrics.file(FILE).getBytes());
+        }
+    }
+
+    /**
+     * Отдаёт массив байт блоками заданного размера
+     */
+    static class ArrayBlockReader implements BlockReader {
+        private final byte[] bytes;
+        private final int blockSize;
+        private int position;
+
+        ArrayBlockReader(byte[] bytes, int blockSize) {
+            this.bytes = bytes;
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        public ByteBuffer read() {
+            if (position == bytes.length) {
+                return null;
+            }
+            var length = Math.min(blockSize, bytes.length - position);
+            var block = ByteBuffer.wrap(bytes, position, length).slice();
+            position += length;
+            return block;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.filemanager;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Предвыборка в отдельном потоке: те же байты, что у источника, конец файла, ошибка чтения из потока
+ * предвыборки и закрытие, пока поток ждёт. После закрытия поток завершён, а источник закрыт
+ */
+public class PrefetchingBlockReaderTest extends TestCase {
+
+    private static final String FILE = "prefetch.txt";
+    private static final int BLOCK_SIZE = 4;
+    private static final int DEPTH = 2;
+
+    public void testReadsSourceUntilEndOfFile() throws IOException {
+        var bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        for (int sourceBlockSize : new int[]{1, BLOCK_SIZE, 7, 1000}) { //блок источника больше буфера копируется частями
+            var source = new TrackingReader(new NumberBlockCursorTest.ArrayBlockReader(bytes, sourceBlockSize));
+            var reader = new PrefetchingBlockReader(FILE, source, BLOCK_SIZE, DEPTH);
+            var read = new ByteArrayOutputStream();
+            for (var block = reader.read(); block != null; block = reader.read()) {
+                assertTrue(block.remaining() <= BLOCK_SIZE);
+                while (block.hasRemaining()) {
+                    read.write(block.get());
+                }
+            }
+
+            assertNull(reader.read()); //после конца файла read так и отдаёт null
+            reader.close();
+            assertEquals(bytes.length, read.size());
+            assertTrue(Arrays.equals(bytes, read.toByteArray()));
+            assertTrue(source.closed);
+            assertNoPrefetchThread();
+        }
+    }
+
+    public void testEmptySource() throws IOException {
+        var source = new TrackingReader(new NumberBlockCursorTest.ArrayBlockReader(new byte[0], BLOCK_SIZE));
+        var reader = new PrefetchingBlockReader(FILE, source, BLOCK_SIZE, DEPTH);
+
+        assertNull(reader.read());
+        reader.close();
+        assertTrue(source.closed);
+        assertNoPrefetchThread();
+    }
+
+    /**
+     * Ошибка чтения в потоке предвыборки доходит до курсора после всех блоков, прочитанных до неё
+     */
+    public void testReadErrorIsPropagated() throws IOException {
+        var failure = new IOException("диск недоступен");
+        var source = new TrackingReader(new NumberBlockCursorTest.ArrayBlockReader(new byte[]{1, 2, 3, 4, 5}, 2)) {
+            @Override
+            public ByteBuffer read() throws IOException {
+                var block = super.read();
+                if (block == null) {
+                    throw failure;
+                }
+                return block;
+            }
+        };
+        var reader = new PrefetchingBlockReader(FILE, source, BLOCK_SIZE, DEPTH);
+
+        var read = 0;
+        try {
+            for (var block = reader.read(); block != null; block = reader.read()) {
+                read += block.remaining();
+            }
+            fail("ошибка чтения потеряна");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(5, read);
+        assertNull(reader.read());
+        reader.close();
+        assertTrue(source.closed);
+        assertNoPrefetchThread();
+    }
+
+    /**
+     * Курсор ничего не читает: поток заполнил все буферы и ждёт свободный
+     */
+    public void testCloseWhileWaitingForFreeBlock() throws InterruptedException {
+        var source = new TrackingReader(new NumberBlockCursorTest.ArrayBlockReader(new byte[1000], BLOCK_SIZE));
+        var reader = new PrefetchingBlockReader(FILE, source, BLOCK_SIZE, DEPTH);
+        while (source.blocksRead <= DEPTH + 1) { //все буферы заняты, следующий блок уже не скопировать
+            Thread.sleep(1);
+        }
+
+        reader.close();
+        assertTrue(source.closed);
+        assertNoPrefetchThread();
+    }
+
+    /**
+     * Поток ждёт данных от источника (медленный диск), а курсор закрывается
+     */
+    public void testCloseWhileSourceBlocks() throws InterruptedException {
+        var blocked = new CountDownLatch(1);
+        var source = new TrackingReader(new NumberBlockCursorTest.ArrayBlockReader(new byte[0], BLOCK_SIZE)) {
+            @Override
+            public ByteBuffer read() throws IOException {
+                blocked.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return null;
+            }
+        };
+        var reader = new PrefetchingBlockReader(FILE, source, BLOCK_SIZE, DEPTH);
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+        reader.close();
+        assertTrue(source.closed);
+        assertNoPrefetchThread();
+    }
+
+    private static void assertNoPrefetchThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName(), thread.getName().equals("sort-it-prefetch-" + FILE));
+        }
+    }
+
+    /**
+     * Источник, который считает отданные блоки и запоминает, что его закрыли
+     */
+    private static class TrackingReader implements BlockReader {
+        private final BlockReader source;
+        volatile int blocksRead;
+        volatile boolean closed;
+
+        TrackingReader(BlockReader source) {
+            this.source = source;
+        }
+
+        @Override
+        public ByteBuffer read() throws IOException {
+            var block = source.read();
+            if (block != null) {
+                blocksRead++;
+            }
+            return block;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.filemanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Невалидные элементы: в консоль не больше sampleLimit элементов и итог по файлам, если показаны не все,
+ * в файл отброшенных строк - все. После reset учитывается только новый проход
+ */
+public class RejectionReporterTest extends TestCase {
+
+    private static final String FIRST = "first.txt";
+    private static final String SECOND = "second.txt";
+    private static final String SAMPLE_PREFIX = "Невалидный элемент: ";
+
+    private final TempFiles tempFiles = new TempFiles();
+    private final ByteArrayOutputStream console = new ByteArrayOutputStream();
+    private PrintStream systemOut;
+
+    @Override
+    protected void setUp() {
+        systemOut = System.out;
+        System.setOut(new PrintStream(console, true, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        System.setOut(systemOut);
+        tempFiles.deleteAll();
+    }
+
+    public void testSampleLimit() {
+        try (var rejections = new RejectionReporter(3, null)) {
+            reject(rejections.forFile(FIRST), 10);
+            reject(rejections.forFile(SECOND), 2);
+            assertEquals(10, rejections.getRejected(FIRST));
+            assertEquals(2, rejections.getRejected(SECOND));
+        }
+
+        var lines = consoleLines();
+        assertEquals(List.of(
+                SAMPLE_PREFIX + "e0 в файле: " + FIRST + "!",
+                SAMPLE_PREFIX + "e1 в файле: " + FIRST + "!",
+                SAMPLE_PREFIX + "e2 в файле: " + FIRST + "!",
+                "Показаны первые 3 невалидных элементов",
+                "Всего невалидных элементов: 10 в файле: " + FIRST,
+                "Всего невалидных элементов: 2 в файле: " + SECOND), lines);
+    }
+
+    public void testNoSummaryWhenAllPrinted() {
+        try (var rejections = new RejectionReporter(3, null)) {
+            reject(rejections.forFile(FIRST), 3);
+        }
+
+        assertEquals(3, consoleLines().size());
+    }
+
+    public void testRejectsFileHasAllElements() throws IOException {
+        var rejectsFile = tempFiles.create();
+        try (var rejections = new RejectionReporter(0, rejectsFile)) {
+            reject(rejections.forFile(FIRST), 5);
+            reject(rejections.forFile(SECOND), 1);
+        }
+
+        assertEquals(List.of(FIRST + "\te0", FIRST + "\te1", FIRST + "\te2", FIRST + "\te3", FIRST + "\te4",
+                SECOND + "\te0"), Files.readAllLines(rejectsFile));
+        assertEquals(List.of(
+                "Показаны первые 0 невалидных элементов",
+                "Всего невалидных элементов: 5 в файле: " + FIRST,
+                "Всего невалидных элементов: 1 в файле: " + SECOND), consoleLines());
+    }
+
+    /**
+     * Параллельное слияние откатилось: файлы читаются заново теми же или новыми курсорами.
+     * Счётчики, файл отброшенных строк и лимит вывода считаются только по новому проходу
+     */
+    public void testResetStartsNewPass() throws IOException {
+        var rejectsFile = tempFiles.create();
+        try (var rejections = new RejectionReporter(2, rejectsFile)) {
+            var first = rejections.forFile(FIRST);
+            reject(first, 5);
+            reject(rejections.forFile(SECOND), 1);
+
+            rejections.reset();
+            assertEquals(0, rejections.getRejected(FIRST));
+            reject(first, 3); //счётчик, взятый до reset, продолжает работать
+            reject(rejections.forFile(FIRST), 1);
+            assertEquals(4, rejections.getRejected(FIRST));
+            assertEquals(0, rejections.getRejected(SECOND));
+        }
+
+        assertEquals(List.of(FIRST + "\te0", FIRST + "\te1", FIRST + "\te2", FIRST + "\te0"),
+                Files.readAllLines(rejectsFile));
+        var lines = consoleLines();
+        var summary = lines.subList(4, lines.size()); //по два элемента за каждый проход
+        assertEquals(List.of(
+                "Показаны первые 2 невалидных элементов",
+                "Всего невалидных элементов: 4 в файле: " + FIRST), summary);
+    }
+
+    public void testConcurrentCursors() throws InterruptedException {
+        var threads = new ArrayList<Thread>();
+        try (var rejections = new RejectionReporter(1, null)) {
+            for (int i = 0; i < 4; i++) {
+                var file = rejections.forFile(i % 2 == 0 ? FIRST : SECOND);
+                threads.add(new Thread(() -> reject(file, 10_000)));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(20_000, rejections.getRejected(FIRST));
+            assertEquals(20_000, rejections.getRejected(SECOND));
+        }
+
+        assertEquals(1, consoleLines().stream().filter(line -> line.startsWith(SAMPLE_PREFIX)).count());
+    }
+
+    private static void reject(RejectionReporter.FileRejections file, int count) {
+        for (int i = 0; i < count; i++) {
+            file.reject("e" + i);
+        }
+    }
+
+    private List<String> consoleLines() {
+        var text = console.toString(StandardCharsets.UTF_8);
+        return text.isEmpty() ? List.of() : List.of(text.split(System.lineSeparator()));
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.filemanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Файл, прочитанный с конца, должен отдавать те же строки в обратном порядке при любом размере блока
+ * и любых переводах строк, в том числе \r\n на границе блоков
+ */
+public class ReverseBlockReaderTest extends TestCase {
+
+    private static final String[] LINE_ENDINGS = {"\n", "\r\n", "\r"};
+    private static final int[] BUFFER_SIZES = {1, 2, 3, 7, 64, ReverseBlockReader.DEFAULT_BUFFER_SIZE};
+
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testLinesComeInReverseOrder() throws IOException {
+        var random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            var lines = new ArrayList<String>();
+            var text = new StringBuilder();
+            var count = random.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                var line = random.nextInt(10) == 0 ? "" : "строка" + random.nextInt(100_000);
+                lines.add(line);
+                text.append(line);
+                if (i < count - 1 || line.isEmpty() || random.nextBoolean()) { //последняя строка может быть без перевода строки
+                    var afterCarriageReturn = line.isEmpty() && text.length() > 0 && text.charAt(text.length() - 1) == '\r';
+                    //пустая строка между \r и \n дала бы один перевод строки \r\n
+                    text.append(afterCarriageReturn ? "\r" : LINE_ENDINGS[random.nextInt(LINE_ENDINGS.length)]);
+                }
+            }
+            var file = tempFiles.write(text.toString());
+            Collections.reverse(lines);
+            for (int bufferSize : BUFFER_SIZES) {
+                assertEquals("буфер " + bufferSize, lines, readAll(file, bufferSize));
+            }
+        }
+    }
+
+    public void testReversedDescendingFileIsAscending() throws IOException {
+        var file = tempFiles.write("30\r\n20\r\n-5\r\n");
+        var cursor = new IntBlockCursor(file, new ReverseBlockReader(file, 3), false, true);
+        var elements = new ArrayList<Integer>();
+        for (; cursor.hasElement(); cursor.next()) {
+            elements.add(cursor.getElement());
+        }
+        assertEquals(List.of(-5, 20, 30), elements);
+
+        var sample = new InputSample(file);
+        assertTrue(sample.isNumeric());
+        assertTrue(sample.getOrder(true) < 0);
+    }
+
+    private List<String> readAll(String file, int bufferSize) throws IOException {
+        var bytes = new StringBuilder();
+        try (var reader = new ReverseBlockReader(file, bufferSize)) {
+            for (var block = reader.read(); block != null; block = reader.read()) {
+                var chunk = new byte[block.remaining()];
+                block.get(chunk);
+                bytes.append(new String(chunk, StandardCharsets.ISO_8859_1));
+            }
+        }
+        var text = new String(bytes.toString().getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+        var lines = new ArrayList<String>();
+        if (text.isEmpty()) {
+            return lines;
+        }
+        assertTrue(text.endsWith("\n"));
+        Collections.addAll(lines, text.substring(0, text.length() - 1).split("\n", -1));
+        return lines;
+    }
+}
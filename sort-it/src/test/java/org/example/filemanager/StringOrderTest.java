@@ -0,0 +1,88 @@
+package org.example.filemanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.sortmanager.PresortedMergeManager;
+import org.example.sortmanager.PresortedMergeManagerImpl;
+import org.example.sortmanager.SortManagerImpl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Сравнение строк по байтам (ByteLine) должно совпадать со сравнением тех же строк как String,
+ * а слияние по байтам - давать строки в порядке StringOrder
+ */
+public class StringOrderTest extends TestCase {
+
+    private static final String ALPHABET = "ab,z;Яё�"; //символы BMP выше суррогатов
+    private static final String SUPPLEMENTARY = "😀"; //символ вне BMP, в String - суррогатная пара
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final PresortedMergeManager presortedMergeManager =
+            new PresortedMergeManagerImpl(new SortManagerImpl(), fileManager);
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testByteLineOrderMatchesStringOrder() {
+        var random = new Random(5);
+        var lines = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            var line = new StringBuilder();
+            var length = random.nextInt(12);
+            for (int k = 0; k < length; k++) {
+                if (random.nextInt(8) == 0) {
+                    line.append(SUPPLEMENTARY);
+                } else {
+                    line.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+            }
+            lines.add(line.toString());
+        }
+        for (StringOrder order : List.of(StringOrder.LENGTH, StringOrder.BYTES, StringOrder.field(2, ','))) {
+            var comparator = order.comparator();
+            for (String first : lines) {
+                var firstLine = byteLine(first, order);
+                for (String second : lines) {
+                    var expected = Integer.signum(comparator.compare(first, second));
+                    var actual = Integer.signum(order.compare(firstLine, byteLine(second, order)));
+                    assertEquals(first + " " + second, expected, actual);
+                }
+            }
+        }
+    }
+
+    public void testLexicographicAndKeyMerge() throws IOException {
+        var files = List.of(tempFiles.write("apple\nbanana\nяблоко\n"), tempFiles.write("apricot\nbanana\ncherry\n"));
+        assertEquals("apple\napricot\nbanana\nbanana\ncherry\nяблоко\n", merge(files, StringOrder.BYTES, false));
+
+        var records = List.of(tempFiles.write("3,a\n1,b\n2,d\n"), tempFiles.write("9,c\n0,e\n"));
+        assertEquals("3,a\n1,b\n9,c\n2,d\n0,e\n", merge(records, StringOrder.field(2, ','), false));
+        assertEquals("cc\nb\naaa\n", merge(List.of(tempFiles.write("cc\nb\naaa\n")), StringOrder.BYTES, true));
+    }
+
+    private static ByteLine byteLine(String text, StringOrder order) {
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        var line = new ByteLine();
+        line.append(ByteBuffer.wrap(bytes), 0, bytes.length);
+        order.index(line);
+        return line;
+    }
+
+    private String merge(List<String> files, StringOrder order, boolean descending) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            presortedMergeManager.presortedMergeString(files, order, descending, ReadOptions.DEFAULT, sink);
+        }
+        return Files.readString(output);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.service;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.sortmanager.CheckpointMergeManagerImpl;
+import org.example.sortmanager.ExternalSortManagerImpl;
+import org.example.sortmanager.ParallelMergeManagerImpl;
+import org.example.sortmanager.PresortedMergeManagerImpl;
+import org.example.sortmanager.SortManager;
+import org.example.sortmanager.SortManagerImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * --auto для строк определяет не только режим, но и порядок строк: по длине или по байтам.
+ * Если по выборке подходят оба порядка или ни один, задача не запускается, а не сливает файлы наугад
+ */
+public class AutoDetectTest extends TestCase {
+
+    private final SortManager sortManager = new SortManagerImpl();
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortItService service = new SortItServiceImpl(
+            new ExternalSortManagerImpl(sortManager, fileManager),
+            new ParallelMergeManagerImpl(sortManager, fileManager),
+            new PresortedMergeManagerImpl(sortManager, fileManager),
+            new CheckpointMergeManagerImpl(sortManager, fileManager),
+            fileManager
+    );
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testLengthOrder() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("z\nab\nyyy\nabcd\nzzzzz\n");
+        var second = tempFiles.write("b\nzz\naaa\nzzzz\n");
+
+        assertNotNull(service.run(new String[]{"--auto", output, first, second}));
+        assertEquals("z\nb\nab\nzz\nyyy\naaa\nabcd\nzzzz\nzzzzz\n", Files.readString(Path.of(output)));
+    }
+
+    public void testLexicographicOrder() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("aaaa\nab\nb\nzz\n");
+        var descending = tempFiles.write("yy\nx\nabc\n"); //читается с конца
+
+        assertNotNull(service.run(new String[]{"--auto", output, first, descending}));
+        assertEquals("aaaa\nab\nabc\nb\nx\nyy\nzz\n", Files.readString(Path.of(output)));
+    }
+
+    public void testLexicographicDescendingOrder() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("zz\nb\nab\naaaa\n");
+        var second = tempFiles.write("yy\nx\nabc\n");
+
+        assertNotNull(service.run(new String[]{"--auto", output, first, second}));
+        assertEquals("zz\nyy\nx\nb\nabc\nab\naaaa\n", Files.readString(Path.of(output)));
+    }
+
+    public void testAmbiguousOrderIsRejected() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("a\nbb\nccc\n"); //по возрастанию и длины, и байт
+        var second = tempFiles.write("b\ncc\n");
+
+        assertNull(service.run(new String[]{"--auto", output, first, second}));
+        assertEquals("", Files.readString(Path.of(output)));
+    }
+
+    public void testUnsortedOrderIsRejected() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("bb\na\nccc\naa\nb\ncccc\nab\n");
+
+        assertNull(service.run(new String[]{"--auto", output, first}));
+    }
+
+    public void testProvidedOrderIsKept() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("a\nbb\nccc\n");
+        var second = tempFiles.write("b\ncc\n");
+
+        assertNotNull(service.run(new String[]{"--auto", "--string-order=lex", output, first, second}));
+        assertEquals("a\nb\nbb\ncc\nccc\n", Files.readString(Path.of(output)));
+    }
+}
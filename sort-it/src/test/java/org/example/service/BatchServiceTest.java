@@ -0,0 +1,74 @@
+package org.example.service;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.sortmanager.CheckpointMergeManagerImpl;
+import org.example.sortmanager.ExternalSortManagerImpl;
+import org.example.sortmanager.ParallelMergeManagerImpl;
+import org.example.sortmanager.PresortedMergeManagerImpl;
+import org.example.sortmanager.SortManager;
+import org.example.sortmanager.SortManagerImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Пакетный запуск: задачи с разными типами данных и порядком выполняются одним сервисом одновременно
+ * и не мешают друг другу, задача с некорректными аргументами не останавливает остальные
+ */
+public class BatchServiceTest extends TestCase {
+
+    private final SortManager sortManager = new SortManagerImpl();
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortItService service = new SortItServiceImpl(
+            new ExternalSortManagerImpl(sortManager, fileManager),
+            new ParallelMergeManagerImpl(sortManager, fileManager),
+            new PresortedMergeManagerImpl(sortManager, fileManager),
+            new CheckpointMergeManagerImpl(sortManager, fileManager),
+            fileManager
+    );
+    private final BatchServiceImpl batchService = new BatchServiceImpl(service);
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testTokenize() {
+        assertEquals(List.of("-a", "-i", "out file.txt", "in.txt"),
+                BatchServiceImpl.tokenize("  -a\t-i \"out file.txt\"  in.txt "));
+        assertEquals(List.of("--tmp-dir=C:/My files", ""), BatchServiceImpl.tokenize("--tmp-dir=\"C:/My files\" \"\""));
+        assertTrue(BatchServiceImpl.tokenize("   ").isEmpty());
+    }
+
+    public void testConcurrentJobs() throws IOException {
+        var ints = tempFiles.write("1\n4\n9\n");
+        var moreInts = tempFiles.write("2\n3\n10\n");
+        var strings = tempFiles.write("aaa\nbb\nc\n");
+        var moreStrings = tempFiles.write("cc\nd\n");
+        var intOutput = tempFiles.write("");
+        var stringOutput = tempFiles.write("");
+        var uniqueOutput = tempFiles.write("");
+
+        var manifest = String.join("\n",
+                "# задачи разных типов, по нескольку раз",
+                "-i " + intOutput + " " + ints + " " + moreInts,
+                "",
+                "-d -s " + stringOutput + " " + strings + " " + moreStrings,
+                "-a -i --unique --limit=3 " + uniqueOutput + " " + ints + " " + ints,
+                "-x " + intOutput + " " + ints);
+        var succeeded = batchService.runJobs(new BufferedReader(new StringReader(manifest)), 2);
+
+        assertEquals(3, succeeded);
+        assertEquals("1\n2\n3\n4\n9\n10\n", Files.readString(Path.of(intOutput)));
+        assertEquals("aaa\nbb\ncc\nc\nd\n", Files.readString(Path.of(stringOutput)));
+        assertEquals("1\n4\n9\n", Files.readString(Path.of(uniqueOutput)));
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.service;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.sortmanager.CheckpointMergeManagerImpl;
+import org.example.sortmanager.ExternalSortManagerImpl;
+import org.example.sortmanager.ParallelMergeManagerImpl;
+import org.example.sortmanager.PresortedMergeManagerImpl;
+import org.example.sortmanager.SortManager;
+import org.example.sortmanager.SortManagerImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * --unique убирает только повторы подряд. Для строк по длине равные строки разделяются другими строками
+ * той же длины, поэтому --unique для строк запускается только в порядке lex, где повторы всегда рядом
+ */
+public class UniqueOptionTest extends TestCase {
+
+    private final SortManager sortManager = new SortManagerImpl();
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortItService service = new SortItServiceImpl(
+            new ExternalSortManagerImpl(sortManager, fileManager),
+            new ParallelMergeManagerImpl(sortManager, fileManager),
+            new PresortedMergeManagerImpl(sortManager, fileManager),
+            new CheckpointMergeManagerImpl(sortManager, fileManager),
+            fileManager
+    );
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    /**
+     * По длине результат был бы "ab cd ab": повтор ab отделён строкой cd той же длины
+     */
+    public void testLengthOrderIsRejected() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("ab\ncd\n");
+        var second = tempFiles.write("ab\n");
+
+        assertNull(service.run(new String[]{"--unique", "-s", output, first, second}));
+        assertNull(service.run(new String[]{"--unique", "--unsorted", "-s", output, first, second}));
+        assertNull(service.run(new String[]{"--unique", "--string-order=key", "-s", output, first, second}));
+        assertEquals("", Files.readString(Path.of(output)));
+    }
+
+    public void testLexicographicOrderRemovesAllRepeats() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("ab\ncd\n");
+        var second = tempFiles.write("ab\ncd\n");
+
+        assertNotNull(service.run(new String[]{"--unique", "--string-order=lex", "-s", output, first, second}));
+        assertEquals("ab\ncd\n", Files.readString(Path.of(output)));
+
+        var unsorted = tempFiles.write("cd\nab\ncd\nab\n");
+        assertNotNull(service.run(new String[]{"--unique", "--string-order=lex", "--unsorted", "-s", output,
+                unsorted}));
+        assertEquals("ab\ncd\n", Files.readString(Path.of(output)));
+    }
+
+    public void testNumbersAreNotAffected() throws IOException {
+        var output = tempFiles.write("");
+        var first = tempFiles.write("1\n2\n");
+        var second = tempFiles.write("1\n2\n");
+
+        assertNotNull(service.run(new String[]{"--unique", "-i", output, first, second}));
+        assertEquals("1\n2\n", Files.readString(Path.of(output)));
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.CheckpointJournal;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Курсоры сообщают смещения строк текущих элементов, и слияние, продолженное с контрольной точки,
+ * дописывает выходной файл так же, как непрерывное слияние
+ */
+public class CheckpointMergeTest extends TestCase {
+
+    private static final String JOB = "test";
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final CheckpointMergeManager checkpointMergeManager =
+            new CheckpointMergeManagerImpl(new SortManagerImpl(), fileManager);
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testElementOffsets() throws IOException {
+        var file = tempFiles.write("1\r\nx\n\n3\r\n5");
+        var cursor = fileManager.openIntCursor(file, false, ReadOptions.DEFAULT);
+        var offsets = new ArrayList<Long>();
+        while (cursor.hasElement()) {
+            offsets.add(cursor.getElementOffset());
+            cursor.next();
+        }
+        assertEquals(List.of(0L, 6L, 9L), offsets);
+
+        var tail = fileManager.openByteLineCursor(file, 6, Long.MAX_VALUE, StringOrder.BYTES, false,
+                ReadOptions.DEFAULT);
+        assertEquals("3", tail.getElement().toString());
+        tail.next();
+        assertEquals(3, tail.getElementOffset()); //смещение от начала читаемой части
+        tail.close();
+    }
+
+    public void testResumeFromJournal() throws IOException {
+        var files = List.of(tempFiles.write("1\n4\n7\n"), tempFiles.write("2\r\n5\r\n8\r\n"), tempFiles.write("3\n"));
+        var journalFile = tempFiles.create();
+        var output = tempFiles.create();
+
+        //прерванный запуск успел записать "1", "2", "3", но на диск дошёл ещё и недописанный хвост
+        Files.writeString(output, "1\n2\n3\n4\n5", StandardCharsets.UTF_8);
+        new CheckpointJournal(JOB, 6, new long[]{2, 3, -1}).write(journalFile);
+
+        var journal = CheckpointJournal.read(journalFile);
+        var checkpoint = new CheckpointOptions(journalFile, JOB).withResumedJournal(journal);
+        try (var sink = fileManager.openOutputSink(output.toString(),
+                WriteOptions.DEFAULT.withResumeOffset(journal.getOutputLength()))) {
+            checkpointMergeManager.checkpointMergeInt(files, false, ReadOptions.DEFAULT, checkpoint, sink);
+        }
+
+        assertEquals("1\n2\n3\n4\n5\n7\n8\n", Files.readString(output));
+        assertFalse(Files.exists(journalFile)); //слияние завершилось, журнал больше не нужен
+    }
+}
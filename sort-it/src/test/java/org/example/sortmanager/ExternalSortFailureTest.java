@@ -0,0 +1,151 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.WriteOptions;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Внешняя сортировка не должна сливать run, записанный не целиком: ошибка записи при сбросе порции
+ * или в промежуточном проходе слияния прерывает сортировку, временные файлы удаляются
+ */
+public class ExternalSortFailureTest extends TestCase {
+    private static final int ELEMENTS = 5_000; //при порции в 1024 элемента - пять run'ов
+    private static final int WRITTEN_BEFORE_FAILURE = 100;
+    private static final int SPILL_RUN = 3;
+    private static final int INTERMEDIATE_RUN = 6; //первый run промежуточного прохода при fanIn = 2
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final TempFiles tempFiles = new TempFiles();
+    private Path runDirectory;
+    private int runsOpened;
+
+    @Override
+    protected void setUp() throws IOException {
+        runDirectory = Files.createTempDirectory("sort-it-test");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+        Files.deleteIfExists(runDirectory);
+    }
+
+    public void testAllRunsWritten() throws IOException {
+        var output = sort(-1);
+
+        var expected = new StringBuilder();
+        for (int i = 0; i < ELEMENTS; i++) {
+            expected.append(i).append('\n');
+        }
+        assertEquals(expected.toString(), output);
+        assertTrue("Run'ов открыто: " + runsOpened, runsOpened > INTERMEDIATE_RUN);
+    }
+
+    public void testFailedSpillAbortsSort() throws IOException {
+        assertEquals("", sort(SPILL_RUN));
+        assertEquals(0, countRunFiles());
+    }
+
+    public void testFailedIntermediateMergeAbortsSort() throws IOException {
+        assertEquals("", sort(INTERMEDIATE_RUN));
+        assertEquals(0, countRunFiles());
+    }
+
+    /**
+     * @param failingRun - номер открытого run'а, запись в который обрывается, -1 - все run'ы пишутся
+     * @return String содержимое выходного файла
+     */
+    private String sort(int failingRun) throws IOException {
+        var input = new StringBuilder();
+        for (int i = ELEMENTS - 1; i >= 0; i--) {
+            input.append(i).append('\n');
+        }
+        var files = List.of(tempFiles.write(input.toString()));
+        var output = tempFiles.create();
+        var options = ExternalSortOptions.DEFAULT
+                .withMemoryBudget(1)
+                .withFanIn(2)
+                .withThreads(1)
+                .withTempDirectory(runDirectory);
+        var manager = new ExternalSortManagerImpl(new SortManagerImpl(), failingRuns(failingRun));
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            manager.externalSortInt(files, false, ReadOptions.DEFAULT, sink, options);
+        }
+        return Files.readString(output);
+    }
+
+    private long countRunFiles() throws IOException {
+        try (var runs = Files.list(runDirectory)) {
+            return runs.count();
+        }
+    }
+
+    /**
+     * @return FileManager как FileManagerImpl, но run номер failingRun во временной папке обрывается
+     * после WRITTEN_BEFORE_FAILURE элементов
+     */
+    private FileManager failingRuns(int failingRun) {
+        return (FileManager) Proxy.newProxyInstance(FileManager.class.getClassLoader(),
+                new Class<?>[]{FileManager.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(fileManager, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("openOutputSink")
+                            && Path.of((String) args[0]).startsWith(runDirectory)
+                            && ++runsOpened == failingRun) {
+                        return new FailingSink((OutputSink) result);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Приёмник, у которого после нескольких элементов "кончилось место": остальные элементы теряются
+     */
+    private static class FailingSink implements OutputSink {
+        private final OutputSink sink;
+        private int written;
+
+        FailingSink(OutputSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(String element) {
+            if (written++ < WRITTEN_BEFORE_FAILURE) {
+                sink.write(element);
+            }
+        }
+
+        @Override
+        public void writeInt(int element) {
+            if (written++ < WRITTEN_BEFORE_FAILURE) {
+                sink.writeInt(element);
+            }
+        }
+
+        @Override
+        public boolean isFailed() {
+            return written > WRITTEN_BEFORE_FAILURE;
+        }
+
+        @Override
+        public void close() {
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+import org.example.metrics.RunMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * --unique, --limit и --count-only: повторы убираются и на стыке файлов, слияние останавливается,
+ * набрав limit элементов, а при подсчёте выходной файл не пишется
+ */
+public class FilteredMergeTest extends TestCase {
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortManager sortManager = new SortManagerImpl();
+    private final PresortedMergeManager presortedMergeManager = new PresortedMergeManagerImpl(sortManager, fileManager);
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testUniqueAcrossFiles() throws IOException {
+        //файлы не пересекаются, но не копируются целиком: повторы внутри них тоже убираются
+        var files = List.of(tempFiles.write("1\n1\n2\n"), tempFiles.write("2\n5\n5\n6\n"), tempFiles.write("1\n6\n"));
+        assertEquals("1\n2\n5\n6\n", mergeInt(files, WriteOptions.DEFAULT.withUnique(true)));
+        assertEquals("1\n2\n", mergeInt(files, WriteOptions.DEFAULT.withUnique(true).withLimit(2)));
+    }
+
+    public void testLimitStopsReading() throws IOException {
+        var text = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            text.append(i).append('\n');
+        }
+        var files = List.of(tempFiles.write(text.toString()), tempFiles.write(text.toString()));
+        var metrics = new RunMetrics();
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT.withLimit(5))) {
+            presortedMergeManager.presortedMergeInt(files, false, ReadOptions.DEFAULT.withMetrics(metrics), sink);
+        }
+        assertEquals("0\n0\n1\n1\n2\n", Files.readString(output));
+        assertTrue(metrics.getElementsRead() < 200_000);
+    }
+
+    public void testCountOnly() throws IOException {
+        var files = List.of(tempFiles.write("a\nb\nb\n"), tempFiles.write("b\nc\n"));
+        var metrics = new RunMetrics();
+        var output = tempFiles.create();
+        var options = WriteOptions.DEFAULT.withMetrics(metrics).withCountOnly(true).withUnique(true);
+        try (var sink = fileManager.openOutputSink(output.toString(), options)) {
+            presortedMergeManager.presortedMergeString(files, StringOrder.BYTES, false,
+                    ReadOptions.DEFAULT, sink);
+        }
+        assertEquals(3, metrics.getElementsWritten());
+        assertEquals(0, Files.size(output));
+    }
+
+    private String mergeInt(List<String> files, WriteOptions options) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), options)) {
+            presortedMergeManager.presortedMergeInt(files, false, ReadOptions.DEFAULT, sink);
+        }
+        return Files.readString(output);
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+
+import java.util.AbstractList;
+import java.util.AbstractSequentialList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Регрессионный тест слияния в памяти: работа на элемент результата не должна зависеть от размера входных данных.
+ * При выгрузке головного элемента через ArrayList.remove(0) рост был квадратичным.
+ * Работа считается не по времени, а по числу сравнений и обращений к элементам, так что тест не зависит
+ * от загрузки машины; замеры времени - в MergeBenchmark (профиль jmh)
+ */
+public class MergeScalingTest extends TestCase {
+
+    private static final int FILES = 4;
+    private static final int SMALL_SIZE = 10_000;
+    private static final int SCALE = 4;
+    /**
+     * Сколько сравнений и обращений к элементам допускается на элемент результата. Куча делает не больше
+     * 2 * log2(FILES) сравнений, на сравнение два чтения головных элементов и одно на запись
+     */
+    private static final int MAX_WORK_PER_ELEMENT = 4 * FILES;
+
+    private final SortManager sortManager = new SortManagerImpl();
+
+    public void testMergeScalesLinearly() {
+        var smallWork = mergeWork(SMALL_SIZE);
+        var bigWork = mergeWork(SMALL_SIZE * SCALE);
+
+        assertTrue("Работа на элемент: " + smallWork, smallWork <= MAX_WORK_PER_ELEMENT);
+        assertTrue("Работа на элемент: " + bigWork, bigWork <= MAX_WORK_PER_ELEMENT);
+        assertTrue("Работа на элемент растёт с объёмом: " + smallWork + " -> " + bigWork, bigWork <= smallWork + 1);
+    }
+
+    public void testMergeResultIsSorted() {
+        var result = sortManager.mergeSort(generateFiles(1_000), Comparator.<Integer>naturalOrder());
+
+        assertSorted(FILES * 1_000, result);
+    }
+
+    public void testLinkedListInputIsNotQuadratic() {
+        var filesWithElements = new HashMap<String, List<Integer>>();
+        var lists = new ArrayList<SequentialOnlyList<Integer>>();
+        generateFiles(SMALL_SIZE).forEach((file, elements) -> {
+            var list = new SequentialOnlyList<>(new LinkedList<>(elements));
+            lists.add(list);
+            filesWithElements.put(file, list);
+        });
+
+        var result = sortManager.mergeSort(filesWithElements, Comparator.<Integer>naturalOrder());
+
+        assertSorted(FILES * SMALL_SIZE, result);
+        for (SequentialOnlyList<Integer> list : lists) { //список без доступа по индексу проходится один раз
+            assertEquals(1, list.traversals);
+        }
+    }
+
+    /**
+     * @return long сколько сравнений и обращений к элементам пришлось на элемент результата
+     */
+    private long mergeWork(int size) {
+        var comparisons = new long[1];
+        var lists = new ArrayList<AccessCountingList<Integer>>();
+        var filesWithElements = new HashMap<String, List<Integer>>();
+        generateFiles(size).forEach((file, elements) -> {
+            var list = new AccessCountingList<>(elements);
+            lists.add(list);
+            filesWithElements.put(file, list);
+        });
+        Comparator<Integer> order = (first, second) -> {
+            comparisons[0]++;
+            return Integer.compare(first, second);
+        };
+
+        var result = sortManager.mergeSort(filesWithElements, order);
+
+        assertSorted(FILES * size, result);
+        var work = comparisons[0];
+        for (AccessCountingList<Integer> list : lists) {
+            work += list.reads;
+        }
+        return work / result.size();
+    }
+
+    private static void assertSorted(int size, List<String> result) {
+        assertEquals(size, result.size());
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(Integer.parseInt(result.get(i - 1)) <= Integer.parseInt(result.get(i)));
+        }
+    }
+
+    private static Map<String, List<Integer>> generateFiles(int size) {
+        var filesWithElements = new HashMap<String, List<Integer>>();
+        for (int file = 0; file < FILES; file++) {
+            var elements = new ArrayList<Integer>(size);
+            for (int i = 0; i < size; i++) {
+                elements.add(i * FILES + file);
+            }
+            filesWithElements.put("file" + file, elements);
+        }
+        return filesWithElements;
+    }
+
+    /**
+     * Список с доступом по индексу, который считает чтения и не даёт удалять элементы
+     */
+    private static class AccessCountingList<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> elements;
+        private long reads;
+
+        AccessCountingList(List<T> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public T get(int index) {
+            reads++;
+            return elements.get(index);
+        }
+
+        @Override
+        public T remove(int index) {
+            throw new AssertionError("Слияние не должно удалять элементы из входного списка");
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+    }
+
+    /**
+     * Список без доступа по индексу: читается только итератором, проходы считаются
+     */
+    private static class SequentialOnlyList<T> extends AbstractSequentialList<T> {
+        private final LinkedList<T> elements;
+        private int traversals;
+
+        SequentialOnlyList(LinkedList<T> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public T get(int index) {
+            throw new AssertionError("У связного списка get(i) идёт перебором");
+        }
+
+        @Override
+        public T remove(int index) {
+            throw new AssertionError("Слияние не должно удалять элементы из входного списка");
+        }
+
+        @Override
+        public ListIterator<T> listIterator(int index) {
+            traversals++;
+            return elements.listIterator(index);
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Внешняя сортировка с маленьким бюджетом памяти: run'ов больше, чем fanIn, поэтому слияние идёт
+ * в несколько проходов через промежуточные run'ы. Результат сверяется с сортировкой в памяти,
+ * равные строки остаются в порядке входных файлов
+ */
+public class MultiPassExternalSortTest extends TestCase {
+    private static final int FAN_IN = 3;
+    private static final int NUMBERS = 10_000; //при порции в 1024 элемента - 10 run'ов
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int LINES = 3_000;
+    private static final long STRING_MEMORY_BUDGET = 16 * 1024; //порция в 8 КБ - около ста строк
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final TempFiles tempFiles = new TempFiles();
+    private final Random random = new Random(42);
+    private final AtomicInteger runsOpened = new AtomicInteger(); //run'ы пишутся потоками сортировки
+    private Path runDirectory;
+
+    @Override
+    protected void setUp() throws IOException {
+        runDirectory = Files.createTempDirectory("sort-it-test");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+        Files.deleteIfExists(runDirectory);
+    }
+
+    public void testInt() throws IOException {
+        var numbers = new ArrayList<Long>();
+        for (int i = 0; i < NUMBERS; i++) {
+            numbers.add((long) random.nextInt());
+        }
+        numbers.add((long) Integer.MIN_VALUE);
+        numbers.add((long) Integer.MAX_VALUE);
+
+        for (boolean descending : new boolean[]{false, true}) {
+            var files = writeNumbers(numbers);
+            var output = sort((manager, sink, options) ->
+                    manager.externalSortInt(files, descending, ReadOptions.DEFAULT, sink, options), 1);
+            assertEquals(expectedNumbers(numbers, descending), output);
+            assertMultiPass(NUMBERS / MIN_CHUNK_SIZE);
+        }
+    }
+
+    public void testLong() throws IOException {
+        var numbers = new ArrayList<Long>();
+        for (int i = 0; i < NUMBERS; i++) {
+            numbers.add(random.nextLong());
+        }
+        numbers.add(Long.MIN_VALUE);
+        numbers.add(Long.MAX_VALUE);
+
+        for (boolean descending : new boolean[]{false, true}) {
+            var files = writeNumbers(numbers);
+            var output = sort((manager, sink, options) ->
+                    manager.externalSortLong(files, descending, ReadOptions.DEFAULT, sink, options), 1);
+            assertEquals(expectedNumbers(numbers, descending), output);
+            assertMultiPass(NUMBERS / MIN_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Строк одной длины много, и по длине они должны выйти в порядке входных файлов:
+     * сначала все из первого файла, внутри файла - по порядку строк
+     */
+    public void testStringLengthIsStable() throws IOException {
+        for (boolean descending : new boolean[]{false, true}) {
+            var lines = randomLines();
+            var comparator = Comparator.comparingInt(String::length);
+            assertStrings(lines, StringOrder.LENGTH, descending, descending ? comparator.reversed() : comparator);
+        }
+    }
+
+    public void testStringBytes() throws IOException {
+        for (boolean descending : new boolean[]{false, true}) {
+            var lines = randomLines();
+            Comparator<String> comparator = Comparator.naturalOrder(); //строки ASCII: порядок байт и char совпадает
+            assertStrings(lines, StringOrder.BYTES, descending, descending ? comparator.reversed() : comparator);
+        }
+    }
+
+    private void assertStrings(List<String> lines, StringOrder order, boolean descending,
+                               Comparator<String> reference) throws IOException {
+        var half = lines.size() / 2;
+        var files = List.of(tempFiles.write(joinLines(lines.subList(0, half))),
+                tempFiles.write(joinLines(lines.subList(half, lines.size()))));
+        var output = sort((manager, sink, options) ->
+                manager.externalSortString(files, order, descending, ReadOptions.DEFAULT, sink, options),
+                STRING_MEMORY_BUDGET);
+
+        var expected = new ArrayList<>(lines);
+        expected.sort(reference); //List.sort устойчивая
+        assertEquals(joinLines(expected), output);
+        assertMultiPass(FAN_IN * FAN_IN);
+    }
+
+    /**
+     * @return List строки длиной 1..8 из нескольких букв, повторы и строки одной длины встречаются часто
+     */
+    private List<String> randomLines() {
+        var lines = new ArrayList<String>();
+        for (int i = 0; i < LINES; i++) {
+            var line = new StringBuilder();
+            var length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                line.append((char) ('a' + random.nextInt(4)));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private List<String> writeNumbers(List<Long> numbers) throws IOException {
+        var text = new StringBuilder();
+        for (Long number : numbers) {
+            text.append(number).append('\n');
+        }
+        return List.of(tempFiles.write(text.toString()));
+    }
+
+    private static String expectedNumbers(List<Long> numbers, boolean descending) {
+        var sorted = new ArrayList<>(numbers);
+        sorted.sort(descending ? Comparator.reverseOrder() : Comparator.naturalOrder());
+        var text = new StringBuilder();
+        for (Long number : sorted) {
+            text.append(number).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String joinLines(List<String> lines) {
+        var text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Порций больше, чем fanIn, значит кроме run'ов порций открывались промежуточные run'ы.
+     * После сортировки временных файлов не остаётся
+     * @param chunkRuns - сколько run'ов пишется порциями, не меньше
+     */
+    private void assertMultiPass(int chunkRuns) throws IOException {
+        assertTrue("Run'ов порций: " + chunkRuns, chunkRuns > FAN_IN);
+        assertTrue("Run'ов открыто: " + runsOpened, runsOpened.get() > chunkRuns);
+        try (var runs = Files.list(runDirectory)) {
+            assertEquals(0, runs.count());
+        }
+    }
+
+    /**
+     * @param memoryBudget - бюджет памяти внешней сортировки
+     * @return String содержимое выходного файла
+     */
+    private String sort(ExternalSort externalSort, long memoryBudget) throws IOException {
+        var output = tempFiles.create();
+        var options = ExternalSortOptions.DEFAULT
+                .withMemoryBudget(memoryBudget)
+                .withFanIn(FAN_IN)
+                .withThreads(2)
+                .withTempDirectory(runDirectory);
+        runsOpened.set(0);
+        var manager = new ExternalSortManagerImpl(new SortManagerImpl(), countingRuns());
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            externalSort.sort(manager, sink, options);
+        }
+        return Files.readString(output);
+    }
+
+    /**
+     * @return FileManager как FileManagerImpl, который считает открытые во временной папке run'ы
+     */
+    private FileManager countingRuns() {
+        return (FileManager) Proxy.newProxyInstance(FileManager.class.getClassLoader(),
+                new Class<?>[]{FileManager.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("openOutputSink")
+                            && Path.of((String) args[0]).startsWith(runDirectory)) {
+                        runsOpened.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(fileManager, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private interface ExternalSort {
+        void sort(ExternalSortManager manager, OutputSink sink, ExternalSortOptions options);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.DecimalNumber;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.WriteOptions;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Слияние long и чисел произвольной точности: значения за пределами int, канонический вид чисел
+ * и сравнение без BigDecimal должно совпадать со сравнением BigDecimal
+ */
+public class NumericMergeTest extends TestCase {
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortManager sortManager = new SortManagerImpl();
+    private final PresortedMergeManager presortedMergeManager = new PresortedMergeManagerImpl(sortManager, fileManager);
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testLongFiles() throws IOException {
+        var files = List.of(
+                tempFiles.write("-9223372036854775808\n-5\n1700000000000\n9223372036854775807\n"),
+                tempFiles.write("-3000000000\n0\n1700000000001\n"),
+                tempFiles.write("9223372036854775808\nabc\n4000000000\n")); //переполнение long невалидно
+
+        assertEquals("-9223372036854775808\n-3000000000\n-5\n0\n4000000000\n1700000000000\n"
+                + "1700000000001\n9223372036854775807\n", mergeLong(files, false));
+    }
+
+    public void testDecimalFilesAreCanonical() throws IOException {
+        var files = List.of(
+                tempFiles.write("-12.50\n-0\n+0.5\n3\n"),
+                tempFiles.write("-100\n0.25\n003.000\n123456789012345678901234567890\n"),
+                tempFiles.write("1e5\n.75\n5.\n"));
+
+        assertEquals("-100\n-12.5\n0\n0.25\n0.5\n0.75\n3\n3\n5\n123456789012345678901234567890\n",
+                mergeDecimal(files, false, true));
+        assertEquals("-100\n", mergeDecimal(List.of(tempFiles.write("-100\n0.25\n")), false, false)); //-b: дроби невалидны
+    }
+
+    public void testDecimalOrderMatchesBigDecimal() {
+        var random = new Random(17);
+        var numbers = new ArrayList<String>();
+        for (int i = 0; i < 300; i++) {
+            var number = new StringBuilder();
+            if (random.nextBoolean()) {
+                number.append('-');
+            }
+            number.append(random.nextInt(3) == 0 ? "0" : String.valueOf(random.nextInt(1000)));
+            if (random.nextBoolean()) {
+                number.append('.').append(random.nextInt(100)).append(random.nextBoolean() ? "0" : "");
+            }
+            numbers.add(number.toString());
+        }
+        for (String first : numbers) {
+            for (String second : numbers) {
+                var expected = Integer.signum(new BigDecimal(first).compareTo(new BigDecimal(second)));
+                var actual = Integer.signum(DecimalNumber.parse(first, true).compareTo(DecimalNumber.parse(second, true)));
+                assertEquals(first + " " + second, expected, actual);
+            }
+        }
+    }
+
+    private String mergeLong(List<String> files, boolean descending) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            presortedMergeManager.presortedMergeLong(files, descending, ReadOptions.DEFAULT, sink);
+        }
+        return Files.readString(output);
+    }
+
+    private String mergeDecimal(List<String> files, boolean descending, boolean fractional) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            presortedMergeManager.presortedMergeDecimal(files, descending, fractional, ReadOptions.DEFAULT, sink);
+        }
+        return Files.readString(output);
+    }
+}
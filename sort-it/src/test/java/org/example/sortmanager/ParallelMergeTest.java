@@ -0,0 +1,221 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.OutputSink;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Параллельное слияние по частям должно давать тот же файл, что и последовательное, байт в байт
+ */
+public class ParallelMergeTest extends TestCase {
+
+    private static final int FILES = 3;
+    private static final int SIZE = 20_000;
+    private static final String[] LINE_ENDINGS = {"\n", "\r\n", "\r"};
+    private static final ExternalSortOptions OPTIONS = ExternalSortOptions.DEFAULT.withThreads(4);
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortManager sortManager = new SortManagerImpl();
+    private final ParallelMergeManager parallelMergeManager = new ParallelMergeManagerImpl(sortManager, fileManager, 0);
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testSortedIntFiles() throws IOException {
+        var files = generateIntFiles(false);
+
+        assertEquals(sequentialInt(files), parallelInt(files));
+    }
+
+    public void testUnsortedIntFileFallsBack() throws IOException {
+        var files = generateIntFiles(true);
+
+        assertEquals(sequentialInt(files), parallelInt(files));
+    }
+
+    public void testSortedStringFiles() throws IOException {
+        var random = new Random(1);
+        var files = new ArrayList<String>();
+        for (int i = 0; i < FILES; i++) {
+            var elements = new String[SIZE];
+            for (int j = 0; j < SIZE; j++) {
+                elements[j] = "x".repeat(random.nextInt(50)) + (char) ('a' + random.nextInt(26));
+            }
+            Arrays.sort(elements, Comparator.comparingInt(String::length));
+            files.add(writeFile(Arrays.asList(elements), random));
+        }
+        var order = StringOrder.LENGTH;
+
+        var sequential = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(sequential.toString(), WriteOptions.DEFAULT)) {
+            sortManager.streamingMergeSortByteLines(List.of(
+                    fileManager.openByteLineCursor(files.get(0), order, false, ReadOptions.DEFAULT),
+                    fileManager.openByteLineCursor(files.get(1), order, false, ReadOptions.DEFAULT),
+                    fileManager.openByteLineCursor(files.get(2), order, false, ReadOptions.DEFAULT)),
+                    order, false, sink);
+        }
+        var parallel = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(parallel.toString(), WriteOptions.DEFAULT)) {
+            parallelMergeManager.parallelMergeString(files, order, false, ReadOptions.DEFAULT, sink, OPTIONS);
+        }
+
+        assertEquals(Files.readString(sequential), Files.readString(parallel));
+    }
+
+    /**
+     * Часть, запись которой оборвалась (кончилось место в --tmp-dir), не должна попасть в результат укороченной:
+     * файлы сливаются последовательно, временные файлы частей удаляются
+     */
+    public void testFailedPartFallsBack() throws IOException {
+        var files = generateIntFiles(false);
+        var partDirectory = Files.createTempDirectory("sort-it-test");
+        try {
+            var manager = new ParallelMergeManagerImpl(sortManager, failingParts(partDirectory), 0);
+            var output = tempFiles.create();
+            try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+                manager.parallelMergeInt(files, false, ReadOptions.DEFAULT, sink,
+                        OPTIONS.withTempDirectory(partDirectory));
+            }
+
+            assertEquals(sequentialInt(files), Files.readString(output));
+            try (var parts = Files.list(partDirectory)) {
+                assertEquals(0, parts.count());
+            }
+        } finally {
+            Files.deleteIfExists(partDirectory);
+        }
+    }
+
+    private String sequentialInt(List<String> files) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            var cursors = new ArrayList<IntCursor>();
+            for (String file : files) {
+                cursors.add(fileManager.openIntCursor(file, false, ReadOptions.DEFAULT));
+            }
+            sortManager.streamingMergeSortInt(cursors, false, sink);
+        }
+        return Files.readString(output);
+    }
+
+    private String parallelInt(List<String> files) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            parallelMergeManager.parallelMergeInt(files, false, ReadOptions.DEFAULT, sink, OPTIONS);
+        }
+        return Files.readString(output);
+    }
+
+    /**
+     * Файлы с повторяющимися числами, невалидными строками и разными переводами строк
+     * @param broken - в середину последнего файла вставляется число, нарушающее порядок
+     */
+    private List<String> generateIntFiles(boolean broken) throws IOException {
+        var random = new Random(2);
+        var files = new ArrayList<String>();
+        for (int i = 0; i < FILES; i++) {
+            var numbers = new int[SIZE];
+            for (int j = 0; j < SIZE; j++) {
+                numbers[j] = random.nextInt(5_000) - 2_500;
+            }
+            Arrays.sort(numbers);
+            var lines = new ArrayList<String>();
+            for (int number : numbers) {
+                lines.add(String.valueOf(number));
+            }
+            lines.add(SIZE / 3, "not a number");
+            if (broken && i == FILES - 1) {
+                lines.add(SIZE / 2, "-100000");
+            }
+            files.add(writeFile(lines, random));
+        }
+        return files;
+    }
+
+    private String writeFile(List<String> lines, Random random) throws IOException {
+        var text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append(LINE_ENDINGS[random.nextInt(LINE_ENDINGS.length)]);
+        }
+        return tempFiles.write(text.toString());
+    }
+
+    /**
+     * @return FileManager как FileManagerImpl, но запись второй части в partDirectory обрывается
+     */
+    private FileManager failingParts(Path partDirectory) {
+        var partsOpened = new AtomicInteger();
+        return (FileManager) Proxy.newProxyInstance(FileManager.class.getClassLoader(),
+                new Class<?>[]{FileManager.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(fileManager, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("openOutputSink")
+                            && Path.of((String) args[0]).startsWith(partDirectory)
+                            && partsOpened.incrementAndGet() == 2) {
+                        return new FailingSink((OutputSink) result);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Приёмник, у которого после первого элемента "кончилось место": остальные элементы теряются
+     */
+    private static class FailingSink implements OutputSink {
+        private final OutputSink sink;
+        private int written;
+
+        FailingSink(OutputSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(String element) {
+            if (written++ == 0) {
+                sink.write(element);
+            }
+        }
+
+        @Override
+        public void writeInt(int element) {
+            if (written++ == 0) {
+                sink.writeInt(element);
+            }
+        }
+
+        @Override
+        public boolean isFailed() {
+            return written > 1;
+        }
+
+        @Override
+        public void close() {
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.sortmanager;
+
+import junit.framework.TestCase;
+import org.example.TempFiles;
+import org.example.filemanager.ElementCursor;
+import org.example.filemanager.FileManager;
+import org.example.filemanager.FileManagerImpl;
+import org.example.filemanager.IntCursor;
+import org.example.filemanager.ReadOptions;
+import org.example.filemanager.StringOrder;
+import org.example.filemanager.WriteOptions;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Копирование непересекающихся файлов и слияние пересекающихся должно давать тот же файл,
+ * что и слияние всех файлов сразу, байт в байт
+ */
+public class PresortedMergeTest extends TestCase {
+
+    private final FileManager fileManager = new FileManagerImpl();
+    private final SortManager sortManager = new SortManagerImpl();
+    private final PresortedMergeManager presortedMergeManager = new PresortedMergeManagerImpl(sortManager, fileManager);
+    private final TempFiles tempFiles = new TempFiles();
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempFiles.deleteAll();
+    }
+
+    public void testRangePartitionedIntFiles() throws IOException {
+        var files = List.of(
+                tempFiles.write("200\n201\n300\n"),
+                tempFiles.write("-5\n0\n7\n100\n"),
+                tempFiles.write("300\n300\n450\n"),
+                tempFiles.write("1000\n2000\n"));
+
+        assertEquals(mergeAllInt(files, false), presortedInt(files, false));
+        assertEquals("-5\n0\n7\n100\n200\n201\n300\n300\n300\n450\n1000\n2000\n", presortedInt(files, false));
+    }
+
+    public void testOverlappingAndNotCopyableIntFiles() throws IOException {
+        var files = List.of(
+                tempFiles.write("1\n5\n9\n"),
+                tempFiles.write("4\n6\n"), //пересекается с первым
+                tempFiles.write("20\r\n21\r\n"), //переводы строк не те, что пишет приёмник
+                tempFiles.write("30\nxx\n31\n"), //невалидная строка
+                tempFiles.write("40\n+41\n042\n"), //числа записаны не так, как их запишет приёмник
+                tempFiles.write("50\n1000000\n51\n"), //нарушение порядка поднимает последний элемент файла
+                tempFiles.write("60\n70"), //последняя строка без перевода строки
+                tempFiles.write("abc\n"),
+                tempFiles.write(""));
+
+        assertEquals(mergeAllInt(files, false), presortedInt(files, false));
+    }
+
+    /**
+     * Точный проход нужен только файлу, который по выборке ни с кем не пересекается:
+     * пересекающиеся файлы всё равно сливаются курсором
+     */
+    public void testOnlyCopyCandidatesAreScanned() throws IOException {
+        var overlapping = tempFiles.write("1\n5\n9\n");
+        var candidate = tempFiles.write("100\n200\n");
+        var files = List.of(overlapping, tempFiles.write("4\n6\n"), candidate);
+        var scanned = new ArrayList<String>();
+
+        assertEquals(mergeAllInt(files, false), presortedInt(files, scanned));
+        assertEquals(List.of(candidate), scanned);
+
+        //наибольший элемент выборки 1000 нарушает порядок, но курсор его примет: файл пересекается с candidate
+        files = List.of(overlapping, tempFiles.write("4\n1000\n6\n"), candidate);
+        scanned.clear();
+
+        assertEquals(mergeAllInt(files, false), presortedInt(files, scanned));
+        assertEquals(List.of(), scanned);
+    }
+
+    public void testDescendingIntFiles() throws IOException {
+        var files = List.of(tempFiles.write("3\n2\n1\n"), tempFiles.write("9\n8\n"), tempFiles.write("8\n7\n"));
+
+        assertEquals(mergeAllInt(files, true), presortedInt(files, true));
+    }
+
+    public void testEqualLengthStringsKeepFileOrder() throws IOException {
+        var files = List.of(
+                tempFiles.write("ccc\ndddd\n"),
+                tempFiles.write("a\nbb\nzzz\n"), //строки длины 3 есть и в первом файле, слияние пишет их в порядке файлов
+                tempFiles.write("eeeee\nффффф\n"),
+                tempFiles.write("has space\nggggggg\n"));
+
+        assertEquals(mergeAllString(files, Comparator.comparingInt(String::length)),
+                presortedString(files, StringOrder.LENGTH));
+    }
+
+    /**
+     * @param scanned - сюда запоминаются файлы, для которых был точный проход
+     */
+    private String presortedInt(List<String> files, List<String> scanned) throws IOException {
+        var manager = new PresortedMergeManagerImpl(sortManager, scanCounting(scanned));
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            manager.presortedMergeInt(files, false, ReadOptions.DEFAULT, sink);
+        }
+        return Files.readString(output);
+    }
+
+    /**
+     * @return FileManager как FileManagerImpl, который запоминает файлы точного прохода
+     */
+    private FileManager scanCounting(List<String> scanned) {
+        return (FileManager) Proxy.newProxyInstance(FileManager.class.getClassLoader(),
+                new Class<?>[]{FileManager.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("scan")) {
+                        scanned.add((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(fileManager, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private String mergeAllInt(List<String> files, boolean descending) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            var cursors = new ArrayList<IntCursor>();
+            for (String file : files) {
+                cursors.add(fileManager.openIntCursor(file, descending, ReadOptions.DEFAULT));
+            }
+            sortManager.streamingMergeSortInt(cursors, descending, sink);
+        }
+        return Files.readString(output);
+    }
+
+    private String presortedInt(List<String> files, boolean descending) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            presortedMergeManager.presortedMergeInt(files, descending, ReadOptions.DEFAULT, sink);
+        }
+        return Files.readString(output);
+    }
+
+    private String mergeAllString(List<String> files, Comparator<String> order) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            var cursors = new ArrayList<ElementCursor<String>>();
+            for (String file : files) {
+                cursors.add(fileManager.openStringCursor(file, order, ReadOptions.DEFAULT));
+            }
+            sortManager.streamingMergeSort(cursors, order, sink);
+        }
+        return Files.readString(output);
+    }
+
+    private String presortedString(List<String> files, StringOrder order) throws IOException {
+        var output = tempFiles.create();
+        try (var sink = fileManager.openOutputSink(output.toString(), WriteOptions.DEFAULT)) {
+            presortedMergeManager.presortedMergeString(files, order, false, ReadOptions.DEFAULT, sink);
+        }
+        return Files.readString(output);
+    }
+}